@@ -4,10 +4,13 @@ import com.khata.auth.dto.UserDTO;
 import com.khata.auth.entity.User;
 import com.khata.auth.payload.JwtAuthRequest;
 import com.khata.auth.payload.JwtAuthResponse;
+import com.khata.auth.payload.RefreshTokenRequest;
 import com.khata.auth.service.AuthService;
+import com.khata.auth.service.AuthThrottle;
 import com.khata.auth.service.UserService;
 import com.khata.exceptions.ApiException;
 import com.khata.payload.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -19,8 +22,11 @@ import org.springframework.web.bind.annotation.*;
 @AllArgsConstructor
 public class AuthController {
 
+    private static final String BEARER_PREFIX = "Bearer ";
+
     private final UserService userService;
     private final AuthService authService;
+    private final AuthThrottle authThrottle;
 
     @PostMapping("/register")
     @ResponseStatus(HttpStatus.CREATED)
@@ -31,15 +37,42 @@ public class AuthController {
     }
 
     @PostMapping("/user-login")
-    public ResponseEntity<ApiResponse<?>> loginUser(@Valid @RequestBody JwtAuthRequest jwtAuthRequest) {
-        User user = this.authService.findUserEntityByEmail(jwtAuthRequest.getUsername());
-        if(!user.isVerified()){
-            UserDTO userDTO = this.authService.mapUserEntityToDTO(user);
-            return ResponseEntity.ok(new ApiResponse<>(userDTO, HttpStatus.FORBIDDEN.value(), "Your account is not verified. Please verify your email before logging in"));
-        }else{
-            JwtAuthResponse jwtAuthResponse = this.authService.authenticateUserAndGenerateToken(jwtAuthRequest);
-            return ResponseEntity.ok(new ApiResponse<>(jwtAuthResponse, HttpStatus.OK.value()));
+    public ResponseEntity<ApiResponse<?>> loginUser(@Valid @RequestBody JwtAuthRequest jwtAuthRequest, HttpServletRequest request) {
+        String username = jwtAuthRequest.getUsername();
+        String clientIp = request.getRemoteAddr();
+        this.authThrottle.check(AuthThrottle.Action.LOGIN, username, clientIp);
+        try {
+            User user = this.authService.findUserEntityByEmail(username);
+            if(!user.isVerified()){
+                UserDTO userDTO = this.authService.mapUserEntityToDTO(user);
+                return ResponseEntity.ok(new ApiResponse<>(userDTO, HttpStatus.FORBIDDEN.value(), "Your account is not verified. Please verify your email before logging in"));
+            }else{
+                JwtAuthResponse jwtAuthResponse = this.authService.authenticateUserAndGenerateToken(jwtAuthRequest, user);
+                this.authThrottle.recordSuccess(AuthThrottle.Action.LOGIN, username);
+                return ResponseEntity.ok(new ApiResponse<>(jwtAuthResponse, HttpStatus.OK.value()));
+            }
+        } catch (ApiException ex) {
+            this.authThrottle.recordFailure(AuthThrottle.Action.LOGIN, username, clientIp);
+            throw ex;
         }
     }
 
+    @PostMapping("/refresh-token")
+    public ResponseEntity<ApiResponse<?>> refreshToken(@Valid @RequestBody RefreshTokenRequest refreshTokenRequest) {
+        JwtAuthResponse jwtAuthResponse = this.authService.refreshAccessToken(refreshTokenRequest.getRefreshToken());
+        return ResponseEntity.ok(new ApiResponse<>(jwtAuthResponse, HttpStatus.OK.value()));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse<Void>> logoutUser(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestBody(required = false) RefreshTokenRequest refreshTokenRequest) {
+        String accessToken = authorization != null && authorization.startsWith(BEARER_PREFIX)
+                ? authorization.substring(BEARER_PREFIX.length())
+                : null;
+        String refreshToken = refreshTokenRequest != null ? refreshTokenRequest.getRefreshToken() : null;
+        this.authService.logout(accessToken, refreshToken);
+        return ResponseEntity.ok(new ApiResponse<>(null, HttpStatus.OK.value(), "Logged out successfully"));
+    }
+
 }
@@ -3,6 +3,7 @@ package com.khata.auth.controller;
 import com.khata.auth.dto.UserDTO;
 import com.khata.auth.service.UserService;
 import com.khata.payload.ApiResponse;
+import com.khata.payload.CursorPaginationResponse;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 
@@ -28,7 +29,11 @@ public class UserController {
     }
 
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<UserDTO>>> getUsers(Pageable pageable){
+    public ResponseEntity<ApiResponse<?>> getUsers(@RequestParam(required = false) String cursor, Pageable pageable){
+        if (cursor != null) {
+            CursorPaginationResponse<UserDTO> users = this.userService.getUsers(cursor, pageable);
+            return ResponseEntity.ok(new ApiResponse<>(users, HttpStatus.OK.value()));
+        }
         Page<UserDTO> userDTOPage = this.userService.getUsers(pageable);
         return ResponseEntity.ok(new ApiResponse<>(userDTOPage, HttpStatus.OK.value()));
     }
@@ -52,8 +57,11 @@ public class UserController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse<Page<UserDTO>>> searchUserByFullName(@RequestParam String keyword, Pageable pageable){
-        Page<UserDTO> userDTOPage = this.userService.searchUserByName(keyword, pageable);
+    public ResponseEntity<ApiResponse<Page<UserDTO>>> searchUserByFullName(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "false") boolean approximateCount,
+            Pageable pageable){
+        Page<UserDTO> userDTOPage = this.userService.searchUserByName(keyword, approximateCount, pageable);
         return ResponseEntity.ok(new ApiResponse<>(userDTOPage, HttpStatus.OK.value()));
     }
 }
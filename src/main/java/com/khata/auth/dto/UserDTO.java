@@ -36,6 +36,16 @@ public class UserDTO {
 
     private boolean isVerified;
 
+    // Used by JPQL constructor expressions to read list pages without loading entities or the password hash
+    public UserDTO(Integer id, String fullName, String email, String phoneNumber, Role role, boolean isVerified) {
+        this.id = id;
+        this.fullName = fullName;
+        this.email = email;
+        this.phoneNumber = phoneNumber;
+        this.role = role;
+        this.isVerified = isVerified;
+    }
+
     @JsonIgnore
     public Integer getId(){
         return this.id;
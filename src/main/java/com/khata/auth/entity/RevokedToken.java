@@ -0,0 +1,30 @@
+package com.khata.auth.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@NoArgsConstructor
+@Entity
+@Getter
+@Setter
+@Table(name = "revoked_tokens", indexes = {@Index(columnList = "expiresAt")})
+public class RevokedToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Either the jti of a single access token or "user:<email>" for every token of a user
+    @Column(nullable = false, unique = true, length = 150)
+    private String tokenKey;
+
+    @Column(nullable = false)
+    private LocalDateTime revokedAt;
+
+    // After this time every token covered by the entry has expired anyway
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
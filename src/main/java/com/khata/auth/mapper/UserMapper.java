@@ -0,0 +1,24 @@
+package com.khata.auth.mapper;
+
+import com.khata.auth.dto.UserDTO;
+import com.khata.auth.entity.User;
+import com.khata.config.MapperConfiguration;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(config = MapperConfiguration.class)
+public interface UserMapper {
+
+    // The password hash never leaves the entity
+    @Mapping(target = "password", ignore = true)
+    UserDTO toDTO(User user);
+
+    // The password is encoded by the service, the remaining fields are managed by the server
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "password", ignore = true)
+    @Mapping(target = "resetToken", ignore = true)
+    @Mapping(target = "provider", ignore = true)
+    @Mapping(target = "providerToken", ignore = true)
+    @Mapping(target = "authorities", ignore = true)
+    User toEntity(UserDTO userDTO);
+}
@@ -8,5 +8,6 @@ import lombok.Data;
 @Data
 public class JwtAuthResponse {
     private String token;
+    private String refreshToken;
     private UserDTO userDTO;
 }
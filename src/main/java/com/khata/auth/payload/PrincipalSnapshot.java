@@ -0,0 +1,72 @@
+package com.khata.auth.payload;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An immutable copy of the fields authentication reads from a user.
+ * Cached principals are shared by every request, so they must not be live JPA entities that a caller
+ * could modify, and they must not implement {@code CredentialsContainer}, which would let Spring Security
+ * erase the cached password hash after a login.
+ */
+public final class PrincipalSnapshot implements UserDetails {
+    private final String username;
+    private final String password;
+    private final List<GrantedAuthority> authorities;
+    private final boolean accountNonExpired;
+    private final boolean accountNonLocked;
+    private final boolean credentialsNonExpired;
+    private final boolean enabled;
+
+    private PrincipalSnapshot(UserDetails user) {
+        this.username = user.getUsername();
+        this.password = user.getPassword();
+        this.authorities = List.copyOf(user.getAuthorities());
+        this.accountNonExpired = user.isAccountNonExpired();
+        this.accountNonLocked = user.isAccountNonLocked();
+        this.credentialsNonExpired = user.isCredentialsNonExpired();
+        this.enabled = user.isEnabled();
+    }
+
+    public static PrincipalSnapshot of(UserDetails user) {
+        return user instanceof PrincipalSnapshot snapshot ? snapshot : new PrincipalSnapshot(user);
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return accountNonExpired;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return accountNonLocked;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return credentialsNonExpired;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
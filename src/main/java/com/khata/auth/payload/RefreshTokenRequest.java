@@ -0,0 +1,10 @@
+package com.khata.auth.payload;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class RefreshTokenRequest {
+    @NotBlank(message = "Refresh token cannot be blank.")
+    private String refreshToken;
+}
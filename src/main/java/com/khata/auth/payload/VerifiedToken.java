@@ -0,0 +1,27 @@
+package com.khata.auth.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The result of parsing and verifying a JWT exactly once.
+ * Holds everything the authentication filter needs so the token never has to be parsed again.
+ */
+@AllArgsConstructor
+@Getter
+public class VerifiedToken {
+    private final String tokenId;
+    private final String subject;
+    private final List<String> roles;
+    private final List<GrantedAuthority> authorities;
+    private final Date issuedAt;
+    private final Date expiration;
+
+    public boolean isExpired(Date now) {
+        return expiration.before(now);
+    }
+}
@@ -0,0 +1,26 @@
+package com.khata.auth.repositories;
+
+import com.khata.auth.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface RefreshTokenRepo extends JpaRepository<RefreshToken, Long> {
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    // Only one of several concurrent refreshes with the same token can flip it, the others see 0 rows
+    @Modifying
+    @Query("update RefreshToken r set r.revoked = true where r.tokenHash = :tokenHash and r.revoked = false")
+    int revokeIfActive(String tokenHash);
+
+    @Modifying
+    @Query("update RefreshToken r set r.revoked = true where r.email = :email and r.revoked = false")
+    int revokeAllByEmail(String email);
+
+    @Modifying
+    @Query("delete from RefreshToken r where r.expiresAt < :now")
+    int deleteExpired(LocalDateTime now);
+}
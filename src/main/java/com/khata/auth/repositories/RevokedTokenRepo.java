@@ -0,0 +1,20 @@
+package com.khata.auth.repositories;
+
+import com.khata.auth.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface RevokedTokenRepo extends JpaRepository<RevokedToken, Long> {
+    Optional<RevokedToken> findByTokenKey(String tokenKey);
+
+    List<RevokedToken> findByExpiresAtAfter(LocalDateTime now);
+
+    @Modifying
+    @Query("delete from RevokedToken r where r.expiresAt < :now")
+    int deleteExpired(LocalDateTime now);
+}
@@ -1,14 +1,23 @@
 package com.khata.auth.repositories;
 
+import com.khata.auth.dto.UserDTO;
 import com.khata.auth.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.Optional;
 
-public interface UserRepo extends JpaRepository<User, Integer> {
+public interface UserRepo extends JpaRepository<User, Integer>, JpaSpecificationExecutor<User> {
     Optional<User> findByEmail(String email);
     Optional<User> findByPhoneNumber(String phoneNumber);
     Page<User> findByFullNameContainingIgnoreCase(String name, Pageable pageable);
+    Slice<User> findSliceByFullNameContainingIgnoreCase(String name, Pageable pageable);
+
+    // Reads only the columns UserDTO exposes, so list pages never load password hashes or reset tokens
+    @Query("select new com.khata.auth.dto.UserDTO(u.id, u.fullName, u.email, u.phoneNumber, u.role, u.isVerified) from User u")
+    Slice<UserDTO> findUserList(Pageable pageable);
 }
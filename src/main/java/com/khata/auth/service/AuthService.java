@@ -2,49 +2,57 @@ package com.khata.auth.service;
 
 import com.khata.auth.dto.UserDTO;
 import com.khata.auth.entity.User;
+import com.khata.auth.mapper.UserMapper;
 import com.khata.auth.payload.JwtAuthRequest;
 import com.khata.auth.payload.JwtAuthResponse;
 import com.khata.auth.repositories.UserRepo;
+import com.khata.auth.payload.VerifiedToken;
 import com.khata.exceptions.ApiException;
+import io.jsonwebtoken.JwtException;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Service
 @Slf4j
 public class AuthService {
 
-    private final AuthenticationManager authenticationManager;
-    private final UserDetailsService userDetailsService;
+    private final PreloadedUserAuthenticationProvider authenticationProvider;
     private final JwtTokenService jwtTokenService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
     private final UserRepo userRepo;
-    private final ModelMapper modelMapper;
+    private final UserMapper userMapper;
 
     /**
      * Constructs the AuthService with necessary dependencies.
      *
-     * @param authenticationManager The authentication manager for authenticating users.
-     * @param userDetailsService    The service to load user details for authentication.
+     * @param passwordEncoder       The encoder used to check passwords of already loaded users.
+     * @param userDetailsPasswordService The service that stores re-hashed passwords after a login.
      * @param jwtTokenService       The service for generating JWT tokens.
+     * @param refreshTokenService   The service for issuing and rotating refresh tokens.
+     * @param tokenRevocationService The service for revoking access tokens.
      * @param userRepo              The repository to interact with the User entity.
-     * @param modelMapper           The model mapper to convert between entities and DTOs.
+     * @param userMapper            The mapper to convert users to DTOs.
      */
     public AuthService(
-            AuthenticationManager authenticationManager,
-            UserDetailsService userDetailsService,
+            PasswordEncoder passwordEncoder,
+            UserDetailsPasswordService userDetailsPasswordService,
             JwtTokenService jwtTokenService,
+            RefreshTokenService refreshTokenService,
+            TokenRevocationService tokenRevocationService,
             UserRepo userRepo,
-            ModelMapper modelMapper) {
-        this.authenticationManager = authenticationManager;
-        this.userDetailsService = userDetailsService;
+            UserMapper userMapper) {
+        this.authenticationProvider = new PreloadedUserAuthenticationProvider(passwordEncoder, userDetailsPasswordService);
         this.jwtTokenService = jwtTokenService;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationService = tokenRevocationService;
         this.userRepo = userRepo;
-        this.modelMapper = modelMapper;
+        this.userMapper = userMapper;
     }
 
     /**
@@ -55,20 +63,59 @@ public class AuthService {
      * @throws ApiException If authentication fails or if the user is not found.
      */
     public JwtAuthResponse authenticateUserAndGenerateToken(JwtAuthRequest jwtAuthRequest) {
-        authenticateUserCredentials(jwtAuthRequest.getUsername(), jwtAuthRequest.getPassword());
-        UserDetails userDetails = loadUserDetailsByUsername(jwtAuthRequest.getUsername());
-        String token = generateJwtTokenForUser(userDetails);
-        UserDTO userDTO = mapUserEntityToDTO(findUserEntityByEmail(jwtAuthRequest.getUsername()));
+        return authenticateUserAndGenerateToken(jwtAuthRequest, findUserEntityByEmail(jwtAuthRequest.getUsername()));
+    }
 
-        return new JwtAuthResponse(token, userDTO);
+    /**
+     * Authenticates the credentials of an already loaded user and generates a JWT token if successful.
+     * The same user instance is used for the password check, the token and the response, so the
+     * whole login costs a single users query.
+     *
+     * @param jwtAuthRequest The request containing the user's username and password.
+     * @param user           The user loaded for the requested username.
+     * @return A JWT authentication response containing the token and user details.
+     * @throws ApiException If authentication fails.
+     */
+    public JwtAuthResponse authenticateUserAndGenerateToken(JwtAuthRequest jwtAuthRequest, User user) {
+        authenticateUserCredentials(user, jwtAuthRequest.getPassword());
+        return issueTokens(user);
     }
 
     public JwtAuthResponse autoLoginAfterVerification(String email) {
-        UserDetails userDetails = loadUserDetailsByUsername(email);
-        String token = generateJwtTokenForUser(userDetails);
-        User user = findUserEntityByEmail(email);
-        UserDTO userDTO = mapUserEntityToDTO(user);
-        return new JwtAuthResponse(token, userDTO);
+        return issueTokens(findUserEntityByEmail(email));
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token.
+     * The presented refresh token is consumed and cannot be used again.
+     *
+     * @param refreshToken The refresh token issued at login or at the previous refresh.
+     * @return A JWT authentication response containing the new tokens and user details.
+     */
+    public JwtAuthResponse refreshAccessToken(String refreshToken) {
+        String email = refreshTokenService.consume(refreshToken);
+        return issueTokens(findUserEntityByEmail(email));
+    }
+
+    /**
+     * Signs the user out by revoking the presented access token and refresh token.
+     * Tokens that are already invalid are ignored.
+     *
+     * @param accessToken  The access token of the session, may be null.
+     * @param refreshToken The refresh token of the session, may be null.
+     */
+    public void logout(String accessToken, String refreshToken) {
+        if (accessToken != null) {
+            try {
+                VerifiedToken verifiedToken = jwtTokenService.verifyToken(accessToken);
+                tokenRevocationService.revokeToken(verifiedToken);
+            } catch (JwtException e) {
+                log.debug("Ignoring invalid access token on logout: {}", e.getMessage());
+            }
+        }
+        if (refreshToken != null) {
+            refreshTokenService.revoke(refreshToken);
+        }
     }
 
     public User findUserEntityByEmail(String email) {
@@ -77,19 +124,20 @@ public class AuthService {
     }
 
     public UserDTO mapUserEntityToDTO(User user) {
-        return modelMapper.map(user, UserDTO.class);
+        return userMapper.toDTO(user);
     }
 
     /**
-     * Authenticates the user's credentials using the provided username and password.
+     * Authenticates the password against the already loaded user.
      *
-     * @param username The username of the user to authenticate.
-     * @param password The password of the user to authenticate.
+     * @param user     The user to authenticate.
+     * @param password The password presented for the user.
      * @throws ApiException If the credentials are invalid.
      */
-    private void authenticateUserCredentials(String username, String password) {
+    private void authenticateUserCredentials(User user, String password) {
+        String username = user.getUsername();
         try {
-            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, password));
+            authenticationProvider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(user, password));
             log.info("User {} authenticated successfully", username);
         } catch (BadCredentialsException e) {
             log.error("Invalid authentication attempt for user {}", username);
@@ -97,8 +145,11 @@ public class AuthService {
         }
     }
 
-    private UserDetails loadUserDetailsByUsername(String username) {
-        return userDetailsService.loadUserByUsername(username);
+    private JwtAuthResponse issueTokens(User user) {
+        String token = generateJwtTokenForUser(user);
+        String refreshToken = refreshTokenService.issue(user.getEmail());
+        UserDTO userDTO = mapUserEntityToDTO(user);
+        return new JwtAuthResponse(token, refreshToken, userDTO);
     }
 
     private String generateJwtTokenForUser(UserDetails userDetails) {
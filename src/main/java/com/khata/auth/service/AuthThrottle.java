@@ -0,0 +1,81 @@
+package com.khata.auth.service;
+
+import com.khata.exceptions.TooManyRequestsException;
+import com.khata.utils.StripedFailureCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Throttles the public login and OTP verification endpoints per account and per client IP.
+ * <p>
+ * {@link #check(Action, String, String)} runs before any database lookup or password hash, so a
+ * throttled credential-stuffing or OTP brute-force run costs the server almost nothing.
+ * <p>
+ * Callers pass {@code request.getRemoteAddr()} as the client IP. Behind a load balancer that is the
+ * client's address only because Tomcat resolves it from {@code X-Forwarded-For} for requests from trusted
+ * proxies ({@code server.forward-headers-strategy=native}); otherwise every client would share one IP.
+ */
+@Component
+@Slf4j
+public class AuthThrottle {
+
+    public enum Action {
+        LOGIN,
+        OTP
+    }
+
+    private static final int SLOTS_POWER_OF_TWO = 15;
+    private static final long MAX_BACKOFF_SECONDS = 15 * 60;
+    // Far longer than the backoff, so a slow guesser who waits out each backoff keeps its count
+    private static final long WINDOW_SECONDS = 24 * 60 * 60;
+
+    private final StripedFailureCounter loginByAccount =
+            new StripedFailureCounter(SLOTS_POWER_OF_TWO, 5, 1, MAX_BACKOFF_SECONDS, WINDOW_SECONDS);
+    // A 6-digit OTP allows far fewer guesses than a password before backoff kicks in
+    private final StripedFailureCounter otpByAccount =
+            new StripedFailureCounter(SLOTS_POWER_OF_TWO, 3, 5, MAX_BACKOFF_SECONDS, WINDOW_SECONDS);
+    // Shared by both actions and more lenient, since many users may sit behind one NAT address
+    private final StripedFailureCounter byClientIp =
+            new StripedFailureCounter(SLOTS_POWER_OF_TWO, 20, 1, MAX_BACKOFF_SECONDS, WINDOW_SECONDS);
+
+    /**
+     * Rejects the attempt if the account or the client IP is in backoff.
+     *
+     * @param action   The throttled action.
+     * @param email    The account the attempt targets.
+     * @param clientIp The address of the client.
+     * @throws TooManyRequestsException If the attempt must wait.
+     */
+    public void check(Action action, String email, String clientIp) {
+        long retryAfter = Math.max(
+                accountCounter(action).retryAfterSeconds(normalize(email)),
+                byClientIp.retryAfterSeconds(normalize(clientIp)));
+        if (retryAfter > 0) {
+            log.warn("Throttled {} attempt for {} from {}, retry after {}s", action, email, clientIp, retryAfter);
+            throw new TooManyRequestsException(retryAfter);
+        }
+    }
+
+    public void recordFailure(Action action, String email, String clientIp) {
+        accountCounter(action).recordFailure(normalize(email));
+        byClientIp.recordFailure(normalize(clientIp));
+    }
+
+    /**
+     * Clears the account's failures after a successful attempt. The IP counter is left to expire,
+     * so one valid account cannot be used to unlock guessing against others.
+     */
+    public void recordSuccess(Action action, String email) {
+        accountCounter(action).reset(normalize(email));
+    }
+
+    private StripedFailureCounter accountCounter(Action action) {
+        return action == Action.LOGIN ? loginByAccount : otpByAccount;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
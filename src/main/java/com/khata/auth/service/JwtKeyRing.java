@@ -0,0 +1,296 @@
+package com.khata.auth.service;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.Key;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the HMAC keys used to sign and verify JWT tokens.
+ * <p>
+ * Keys are persisted in a local properties file so tokens survive restarts and can be verified by
+ * every node that reads the same file. Each key has an id ({@code kid}) that is written to the token
+ * header, and verification looks the key up by that id in a pre-decoded in-memory map.
+ * <p>
+ * Rotation is staged: a new key is published to the file ahead of its activation time so every node
+ * has loaded it before any node signs with it, and the previous key is kept until all tokens signed
+ * with it have expired. Rotation is off by default because the file is rewritten without any
+ * cross-node lock: set {@code jwt.keyring.rotation-enabled=true} on exactly one node and let the
+ * others just reload the file.
+ * <p>
+ * File format:
+ * <pre>
+ * key.&lt;kid&gt;=&lt;base64 encoded secret&gt;
+ * activates.&lt;kid&gt;=&lt;epoch millis from which the key signs new tokens&gt;
+ * </pre>
+ */
+@Component
+@Slf4j
+public class JwtKeyRing extends LocatorAdapter<Key> {
+
+    private static final String KEY_PREFIX = "key.";
+    private static final String ACTIVATES_PREFIX = "activates.";
+
+    private final Path keyRingPath;
+    private final Duration rotationInterval;
+    private final boolean rotationEnabled;
+    private final long publishDelayMillis;
+    private final Clock clock;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile State state;
+    private volatile long loadedModifiedTime = -1;
+
+    @Autowired
+    public JwtKeyRing(
+            @Value("${jwt.keyring.path:config/jwt-keyring.properties}") String keyRingPath,
+            @Value("${jwt.keyring.rotation-interval:7d}") Duration rotationInterval,
+            @Value("${jwt.keyring.rotation-enabled:false}") boolean rotationEnabled,
+            @Value("${jwt.keyring.reload-interval:60000}") long reloadIntervalMillis) {
+        this(keyRingPath, rotationInterval, rotationEnabled, reloadIntervalMillis, Clock.systemUTC());
+    }
+
+    /**
+     * Creates a key ring whose activation and retirement times are read from the given clock.
+     */
+    public JwtKeyRing(String keyRingPath, Duration rotationInterval, boolean rotationEnabled,
+                      long reloadIntervalMillis, Clock clock) {
+        this.clock = clock;
+        this.keyRingPath = Paths.get(keyRingPath);
+        this.rotationInterval = rotationInterval;
+        this.rotationEnabled = rotationEnabled;
+        // Two reload cycles guarantee every node has seen a new key before it becomes active
+        this.publishDelayMillis = 2 * reloadIntervalMillis;
+        initialize();
+    }
+
+    /**
+     * Returns the key that signs new tokens together with its id.
+     */
+    public SigningKey getActiveKey() {
+        return state.active;
+    }
+
+    /**
+     * Resolves the verification key from the {@code kid} header of a signed token.
+     *
+     * @throws SignatureException if the token has no kid or the kid is unknown to this node.
+     */
+    @Override
+    protected Key locate(JwsHeader header) {
+        String kid = header.getKeyId();
+        SecretKey key = kid == null ? null : state.keys.get(kid);
+        if (key == null) {
+            throw new SignatureException("Unknown JWT signing key: " + kid);
+        }
+        return key;
+    }
+
+    /**
+     * Picks up keys written by other nodes, rotates the active key when it is due and
+     * drops keys whose tokens can no longer be valid.
+     */
+    @Scheduled(fixedDelayString = "${jwt.keyring.reload-interval:60000}")
+    public void refresh() {
+        lock.lock();
+        try {
+            reloadIfChanged();
+            if (rotationEnabled) {
+                rotateIfDue();
+            }
+            state = state.withActiveKeyAt(clock.millis());
+        } catch (IOException e) {
+            log.error("Failed to refresh JWT key ring from {}: {}", keyRingPath, e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void initialize() {
+        lock.lock();
+        try {
+            if (Files.exists(keyRingPath)) {
+                reloadIfChanged();
+            } else {
+                Map<String, StoredKey> keys = new HashMap<>();
+                StoredKey initial = newKey(clock.millis());
+                keys.put(initial.kid, initial);
+                persist(keys);
+                state = State.of(keys, clock.millis());
+                log.info("Created JWT key ring at {} with key {}", keyRingPath, initial.kid);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to load JWT key ring from " + keyRingPath, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reloadIfChanged() throws IOException {
+        long modifiedTime = Files.getLastModifiedTime(keyRingPath).toMillis();
+        if (modifiedTime == loadedModifiedTime && state != null) {
+            return;
+        }
+        Map<String, StoredKey> keys = read();
+        if (keys.isEmpty()) {
+            throw new IOException("JWT key ring contains no keys");
+        }
+        state = State.of(keys, clock.millis());
+        loadedModifiedTime = modifiedTime;
+        log.info("Loaded JWT key ring with {} key(s), active key {}", keys.size(), state.active.kid());
+    }
+
+    private void rotateIfDue() throws IOException {
+        long now = clock.millis();
+        Map<String, StoredKey> keys = new HashMap<>(state.stored);
+        StoredKey newest = keys.values().stream().max(Comparator.comparingLong(k -> k.activatesAt)).orElseThrow();
+
+        boolean changed = false;
+        if (newest.activatesAt + rotationInterval.toMillis() <= now) {
+            StoredKey next = newKey(now + publishDelayMillis);
+            keys.put(next.kid, next);
+            changed = true;
+            log.info("Published JWT key {} activating in {} ms", next.kid, publishDelayMillis);
+        }
+        changed |= retireExpiredKeys(keys, now);
+
+        if (changed) {
+            persist(keys);
+            state = State.of(keys, now);
+        }
+    }
+
+    /**
+     * Removes every key that was superseded longer ago than the token validity,
+     * since no unexpired token can still be signed with it.
+     */
+    private boolean retireExpiredKeys(Map<String, StoredKey> keys, long now) {
+        List<StoredKey> ordered = new ArrayList<>(keys.values());
+        ordered.sort(Comparator.comparingLong(k -> k.activatesAt));
+        boolean changed = false;
+        for (int i = 0; i < ordered.size() - 1; i++) {
+            long supersededAt = ordered.get(i + 1).activatesAt;
+            if (supersededAt <= now && supersededAt + JwtTokenService.JWT_TOKEN_VALIDITY < now) {
+                keys.remove(ordered.get(i).kid);
+                changed = true;
+                log.info("Retired JWT key {}", ordered.get(i).kid);
+            }
+        }
+        return changed;
+    }
+
+    private Map<String, StoredKey> read() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(keyRingPath)) {
+            properties.load(in);
+        }
+        Map<String, StoredKey> keys = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (!name.startsWith(KEY_PREFIX)) {
+                continue;
+            }
+            String kid = name.substring(KEY_PREFIX.length());
+            byte[] secret = Base64.getDecoder().decode(properties.getProperty(name));
+            long activatesAt = Long.parseLong(properties.getProperty(ACTIVATES_PREFIX + kid, "0"));
+            keys.put(kid, new StoredKey(kid, Keys.hmacShaKeyFor(secret), activatesAt));
+        }
+        return keys;
+    }
+
+    private void persist(Map<String, StoredKey> keys) throws IOException {
+        Properties properties = new Properties();
+        for (StoredKey key : keys.values()) {
+            properties.setProperty(KEY_PREFIX + key.kid, Base64.getEncoder().encodeToString(key.key.getEncoded()));
+            properties.setProperty(ACTIVATES_PREFIX + key.kid, String.valueOf(key.activatesAt));
+        }
+
+        Path directory = keyRingPath.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "jwt-keyring", ".tmp");
+        try {
+            restrictPermissions(temp);
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, "Khata JWT signing keys");
+            }
+            Files.move(temp, keyRingPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        loadedModifiedTime = Files.getLastModifiedTime(keyRingPath).toMillis();
+    }
+
+    private void restrictPermissions(Path path) throws IOException {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            log.debug("File system does not support POSIX permissions for {}", path);
+        }
+    }
+
+    private StoredKey newKey(long activatesAt) {
+        try {
+            SecretKey key = KeyGenerator.getInstance("HmacSHA256").generateKey();
+            return new StoredKey(UUID.randomUUID().toString(), key, activatesAt);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * The key used to sign new tokens and the id written to their {@code kid} header.
+     */
+    public record SigningKey(String kid, SecretKey key) {
+    }
+
+    private record StoredKey(String kid, SecretKey key, long activatesAt) {
+    }
+
+    /**
+     * Immutable snapshot of the key ring, swapped atomically on reload or rotation.
+     */
+    private record State(Map<String, StoredKey> stored, Map<String, SecretKey> keys, SigningKey active) {
+
+        static State of(Map<String, StoredKey> stored, long now) {
+            Map<String, SecretKey> keys = new HashMap<>();
+            stored.values().forEach(k -> keys.put(k.kid, k.key));
+            return new State(Map.copyOf(stored), Map.copyOf(keys), pickActive(stored, now));
+        }
+
+        State withActiveKeyAt(long now) {
+            SigningKey current = pickActive(stored, now);
+            return current.kid().equals(active.kid()) ? this : new State(stored, keys, current);
+        }
+
+        /**
+         * The newest key that is already active, or the oldest key if none is active yet.
+         */
+        private static SigningKey pickActive(Map<String, StoredKey> stored, long now) {
+            StoredKey active = stored.values().stream()
+                    .filter(k -> k.activatesAt <= now)
+                    .max(Comparator.comparingLong(k -> k.activatesAt))
+                    .orElseGet(() -> stored.values().stream()
+                            .min(Comparator.comparingLong(k -> k.activatesAt))
+                            .orElseThrow());
+            return new SigningKey(active.kid, active.key);
+        }
+    }
+}
@@ -1,44 +1,100 @@
 package com.khata.auth.service;
 
-import io.jsonwebtoken.io.Decoders;
+import com.khata.auth.payload.VerifiedToken;
+import com.khata.utils.ExpiringCache;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.KeyGenerator;
-import javax.crypto.SecretKey;
 
 @Service
 public class JwtTokenService {
 
-    // Token validity in seconds
-    public static final long JWT_TOKEN_VALIDITY = 5 * 60 * 60 * 1000;
+    // Access token validity in milliseconds, kept short because refresh tokens renew the session
+    public static final long JWT_TOKEN_VALIDITY = 15 * 60 * 1000;
 
-    // Securely generate a secret key (recommend external configuration for production)
-    private String secretKey = "";
+    // Upper bound on the number of verified tokens kept in memory
+    private static final int VERIFIED_TOKEN_CACHE_SIZE = 10_000;
+
+    // Persistent, rotating signing keys shared by every node
+    private final JwtKeyRing keyRing;
+
+    // Parsers are immutable and thread-safe, so one instance is shared by every request
+    private final JwtParser jwtParser;
+
+    // Verified tokens keyed by the SHA-256 digest of the compact token, each entry expiring with the token
+    private final ExpiringCache<String, VerifiedToken> verifiedTokenCache;
+
+    // Time source for issuing tokens, checking their expiry and expiring cached verifications
+    private final Clock clock;
 
     /**
-     * Constructor to initialize the JwtTokenService and generate a secret key using HmacSHA256.
-     * @throws RuntimeException if the key generation fails.
+     * Constructor to initialize the JwtTokenService with the key ring used for signing and verification.
+     * The parser is built once here and resolves the verification key from the token's kid header.
+     *
+     * @param keyRing The key ring holding the active and still valid signing keys.
      */
-    public JwtTokenService(){
-        try{
-            KeyGenerator keyGen = KeyGenerator.getInstance("HmacSHA256");
-            SecretKey sk = keyGen.generateKey();
-            secretKey =  Base64.getEncoder().encodeToString(sk.getEncoded());
-        }catch (NoSuchAlgorithmException e){
-            throw new RuntimeException(e);
+    @Autowired
+    public JwtTokenService(JwtKeyRing keyRing){
+        this(keyRing, Clock.systemUTC());
+    }
+
+    /**
+     * Constructor taking the clock that tokens are issued and checked against.
+     *
+     * @param keyRing The key ring holding the active and still valid signing keys.
+     * @param clock The time source for issuing tokens and checking their expiry.
+     */
+    public JwtTokenService(JwtKeyRing keyRing, Clock clock){
+        this.keyRing = keyRing;
+        this.clock = clock;
+        this.verifiedTokenCache = new ExpiringCache<>(VERIFIED_TOKEN_CACHE_SIZE, JWT_TOKEN_VALIDITY, clock);
+        this.jwtParser = Jwts.parser()
+                .keyLocator(keyRing)
+                .clock(() -> new Date(clock.millis()))
+                .build();
+    }
+
+    /**
+     * Parses and verifies the JWT token once and returns everything needed to authenticate the request.
+     * Tokens that were already verified are served from an in-memory cache until they expire.
+     *
+     * @param token The JWT token to verify.
+     * @return The verified subject, roles and expiry of the token.
+     * @throws io.jsonwebtoken.JwtException if the token is expired, malformed or has an invalid signature.
+     */
+    public VerifiedToken verifyToken(String token) {
+        String digest = digest(token);
+        VerifiedToken verifiedToken = verifiedTokenCache.get(digest);
+        if (verifiedToken != null) {
+            return verifiedToken;
         }
+
+        Claims claims = getAllClaimsFromToken(token);
+        List<String> roles = extractRoles(claims);
+        List<GrantedAuthority> authorities = roles.stream()
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toUnmodifiableList());
+        verifiedToken = new VerifiedToken(claims.getId(), claims.getSubject(), roles, authorities,
+                claims.getIssuedAt(), claims.getExpiration());
+
+        verifiedTokenCache.put(digest, verifiedToken, verifiedToken.getExpiration().getTime());
+        return verifiedToken;
     }
 
     /**
@@ -48,7 +104,7 @@ public class JwtTokenService {
      * @return The username stored in the token.
      */
     public String getUsernameFromToken(String token) {
-        return getClaimFromToken(token, Claims::getSubject);
+        return verifyToken(token).getSubject();
     }
 
     /**
@@ -58,8 +114,7 @@ public class JwtTokenService {
      * @return A list of roles stored in the token.
      */
     public List<String> getRolesFromToken(String token) {
-        Claims claims = getAllClaimsFromToken(token);
-        return claims.get("roles", List.class);
+        return verifyToken(token).getRoles();
     }
 
     /**
@@ -69,7 +124,7 @@ public class JwtTokenService {
      * @return The expiration date of the token.
      */
     public Date getExpirationDateFromToken(String token) {
-        return getClaimFromToken(token, Claims::getExpiration);
+        return verifyToken(token).getExpiration();
     }
 
     /**
@@ -106,24 +161,39 @@ public class JwtTokenService {
      * @return True if the token is valid, false otherwise.
      */
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !hasTokenExpired(token));
+        return validateToken(verifyToken(token), userDetails);
+    }
+
+    /**
+     * Validates an already verified JWT token against the given user details.
+     *
+     * @param verifiedToken The verified token.
+     * @param userDetails The user details to validate the token against.
+     * @return True if the token belongs to the user and has not expired, false otherwise.
+     */
+    public Boolean validateToken(VerifiedToken verifiedToken, UserDetails userDetails) {
+        return verifiedToken.getSubject().equals(userDetails.getUsername()) && !verifiedToken.isExpired(new Date(clock.millis()));
     }
 
     /**
-     * Builds the JWT token using the provided claims and subject.
+     * Builds the JWT token using the provided claims and subject, signed with the active key
+     * and carrying its id in the kid header.
      *
      * @param claims The claims to include in the token.
      * @param subject The subject (usually the username) to associate with the token.
      * @return The built JWT token.
      */
     private String buildToken(Map<String, Object> claims, String subject) {
+        JwtKeyRing.SigningKey signingKey = keyRing.getActiveKey();
+        long now = clock.millis();
         return Jwts.builder()
+                .header().keyId(signingKey.kid()).and()
                 .claims(claims)
+                .id(UUID.randomUUID().toString())
                 .subject(subject)
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + JWT_TOKEN_VALIDITY))
-                .signWith(decodeSecretKey())
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + JWT_TOKEN_VALIDITY))
+                .signWith(signingKey.key())
                 .compact();
     }
 
@@ -134,32 +204,38 @@ public class JwtTokenService {
      * @return The claims extracted from the token.
      */
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(decodeSecretKey())
-                .build()
+        return jwtParser
                 .parseSignedClaims(token)
                 .getPayload();
     }
 
     /**
-     * Checks if the JWT token has expired.
+     * Reads the roles claim as a list of strings.
      *
-     * @param token The JWT token to check.
-     * @return True if the token has expired, false otherwise.
+     * @param claims The verified claims.
+     * @return The roles stored in the token, or an empty list if there are none.
      */
-    private Boolean hasTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+    private List<String> extractRoles(Claims claims) {
+        List<?> roles = claims.get("roles", List.class);
+        if (roles == null) {
+            return List.of();
+        }
+        return roles.stream().map(String::valueOf).collect(Collectors.toUnmodifiableList());
     }
 
     /**
-     * Decodes the secret key from its base64 encoded form.
+     * Hashes the compact token so raw bearer tokens are never kept as cache keys.
      *
-     * @return The decoded secret key.
+     * @param token The JWT token.
+     * @return The hex encoded SHA-256 digest of the token.
      */
-    private SecretKey decodeSecretKey(){
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
     }
 }
 
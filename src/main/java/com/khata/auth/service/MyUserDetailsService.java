@@ -1,23 +1,28 @@
 package com.khata.auth.service;
 
+import com.khata.auth.entity.User;
 import com.khata.auth.repositories.UserRepo;
 import com.khata.exceptions.ResourceNotFoundException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
-public class MyUserDetailsService implements UserDetailsService {
+public class MyUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepo userRepo;
+    private final PrincipalCache principalCache;
 
-    public MyUserDetailsService(UserRepo userRepo) {
+    public MyUserDetailsService(UserRepo userRepo, PrincipalCache principalCache) {
         this.userRepo = userRepo;
+        this.principalCache = principalCache;
     }
 
     /**
      * Loads the user details for the provided username (email).
+     * Users are served from the {@link PrincipalCache} and only read from the repository on a miss.
      * Throws a ResourceNotFoundException if the user is not found in the repository.
      *
      * @param username The email address of the user to be fetched.
@@ -26,7 +31,25 @@ public class MyUserDetailsService implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return this.userRepo.findByEmail(username).orElseThrow(
-                ()-> new ResourceNotFoundException("User", "email", username));
+        return this.principalCache.get(username, email -> this.userRepo.findByEmail(email).orElseThrow(
+                ()-> new ResourceNotFoundException("User", "email", email)));
+    }
+
+    /**
+     * Stores a re-encoded password hash after a successful login when the stored hash
+     * was created with a weaker BCrypt cost than the current one.
+     *
+     * @param user        The authenticated user.
+     * @param newPassword The password encoded with the current settings.
+     * @return The user with the updated password.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User entity = this.userRepo.findByEmail(user.getUsername()).orElseThrow(
+                ()-> new ResourceNotFoundException("User", "email", user.getUsername()));
+        entity.setPassword(newPassword);
+        User updatedUser = this.userRepo.save(entity);
+        this.principalCache.invalidate(user.getUsername());
+        return updatedUser;
     }
 }
@@ -0,0 +1,68 @@
+package com.khata.auth.service;
+
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsChecker;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Checks a password against a user the login pipeline has already loaded.
+ * <p>
+ * The principal of the presented token must be the loaded {@link UserDetails}, so authentication never
+ * queries the users table and a wrong password costs exactly one hash comparison. Unlike
+ * {@code DaoAuthenticationProvider} there is no user cache to retry through on a failed check.
+ * <p>
+ * Not registered with the global {@code AuthenticationManager}: it only supports pre-loaded principals,
+ * so form and basic login keep using the user details service.
+ */
+public class PreloadedUserAuthenticationProvider implements AuthenticationProvider {
+
+    private final PasswordEncoder passwordEncoder;
+    private final UserDetailsPasswordService userDetailsPasswordService;
+    private final UserDetailsChecker userDetailsChecker = new AccountStatusUserDetailsChecker();
+
+    public PreloadedUserAuthenticationProvider(
+            PasswordEncoder passwordEncoder,
+            UserDetailsPasswordService userDetailsPasswordService) {
+        this.passwordEncoder = passwordEncoder;
+        this.userDetailsPasswordService = userDetailsPasswordService;
+    }
+
+    /**
+     * Authenticates a token whose principal is the already loaded user and whose credentials are the raw password.
+     *
+     * @throws BadCredentialsException if the password does not match.
+     * @throws AuthenticationException if the account is locked, disabled or expired.
+     */
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (!(authentication.getPrincipal() instanceof UserDetails user)) {
+            throw new InternalAuthenticationServiceException("Expected a pre-loaded user as the principal");
+        }
+        userDetailsChecker.check(user);
+
+        Object credentials = authentication.getCredentials();
+        String presentedPassword = credentials == null ? null : credentials.toString();
+        if (presentedPassword == null || !passwordEncoder.matches(presentedPassword, user.getPassword())) {
+            throw new BadCredentialsException("Bad credentials");
+        }
+
+        // Re-hashes stored passwords with the current BCrypt cost after a successful login
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            user = userDetailsPasswordService.updatePassword(user, passwordEncoder.encode(presentedPassword));
+        }
+        return UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities());
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+}
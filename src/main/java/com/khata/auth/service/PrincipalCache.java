@@ -0,0 +1,67 @@
+package com.khata.auth.service;
+
+import com.khata.auth.payload.PrincipalSnapshot;
+import com.khata.utils.CacheMetrics;
+import com.khata.utils.ExpiringCache;
+import com.khata.utils.TransactionUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL based cache of loaded principals keyed by username (email).
+ * Sits in front of the users table so authenticated requests do not query it every time.
+ * Entries are immutable {@link PrincipalSnapshot}s rather than the loaded entities, since every request shares them.
+ */
+@Component
+@Slf4j
+public class PrincipalCache implements MeterBinder {
+
+    private static final int MAX_SIZE = 10_000;
+    private static final long TTL_MILLIS = 5 * 60 * 1000;
+
+    private final ExpiringCache<String, PrincipalSnapshot> cache = new ExpiringCache<>(MAX_SIZE, TTL_MILLIS);
+
+    /**
+     * Returns the cached principal for the username, loading it on a miss.
+     *
+     * @param username The email address of the user.
+     * @param loader   The function that loads the user from the database.
+     * @return An immutable snapshot of the cached or freshly loaded principal.
+     */
+    public UserDetails get(String username, Function<String, ? extends UserDetails> loader) {
+        return cache.get(username, name -> PrincipalSnapshot.of(loader.apply(name)));
+    }
+
+    /**
+     * Evicts the principal for the username. When called inside a transaction the entry is
+     * evicted again after commit, so a concurrent request cannot re-cache the old row.
+     *
+     * @param username The email address of the user.
+     */
+    public void invalidate(String username) {
+        TransactionUtil.nowAndAfterCommit(() -> cache.invalidate(username));
+        log.debug("Principal cache entry invalidated for {}", username);
+    }
+
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    public long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CacheMetrics.bind(registry, "principals", cache);
+    }
+}
@@ -0,0 +1,135 @@
+package com.khata.auth.service;
+
+import com.khata.auth.entity.RefreshToken;
+import com.khata.auth.repositories.RefreshTokenRepo;
+import com.khata.exceptions.JwtTokenException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Issues, rotates and revokes opaque refresh tokens backed by the {@code refresh_tokens} table.
+ * <p>
+ * Only the SHA-256 hash of a token is stored. Every refresh rotates the token; presenting a token
+ * that was already rotated or revoked is treated as theft and revokes every refresh token of the user.
+ */
+@Service
+@Slf4j
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepo refreshTokenRepo;
+    private final Duration refreshTokenValidity;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public RefreshTokenService(
+            RefreshTokenRepo refreshTokenRepo,
+            @Value("${jwt.refresh-token.validity:30d}") Duration refreshTokenValidity) {
+        this.refreshTokenRepo = refreshTokenRepo;
+        this.refreshTokenValidity = refreshTokenValidity;
+    }
+
+    /**
+     * Issues a new refresh token for the user.
+     *
+     * @param email The email address of the user.
+     * @return The raw refresh token to hand to the client.
+     */
+    @Transactional
+    public String issue(String email) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(hash(rawToken));
+        refreshToken.setEmail(email);
+        refreshToken.setExpiresAt(LocalDateTime.now().plus(refreshTokenValidity));
+        refreshToken.setRevoked(false);
+        refreshTokenRepo.save(refreshToken);
+        return rawToken;
+    }
+
+    /**
+     * Consumes a refresh token so it cannot be used again.
+     *
+     * @param rawToken The refresh token presented by the client.
+     * @return The email address of the user the token belongs to.
+     * @throws JwtTokenException If the token is unknown, expired, or was already used.
+     */
+    @Transactional(noRollbackFor = JwtTokenException.class)
+    public String consume(String rawToken) {
+        String tokenHash = hash(rawToken);
+        RefreshToken refreshToken = refreshTokenRepo.findByTokenHash(tokenHash)
+                .orElseThrow(() -> new JwtTokenException(HttpStatus.UNAUTHORIZED, "Invalid refresh token"));
+
+        // The conditional update, not the row read above, decides which of two concurrent refreshes wins
+        if (refreshToken.isRevoked() || refreshTokenRepo.revokeIfActive(tokenHash) == 0) {
+            log.warn("Reuse of a revoked refresh token detected for user {}", refreshToken.getEmail());
+            refreshTokenRepo.revokeAllByEmail(refreshToken.getEmail());
+            throw new JwtTokenException(HttpStatus.UNAUTHORIZED, "Refresh token has been revoked");
+        }
+        if (refreshToken.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new JwtTokenException(HttpStatus.UNAUTHORIZED, "Refresh token has expired");
+        }
+        return refreshToken.getEmail();
+    }
+
+    /**
+     * Revokes a single refresh token if it exists, e.g. on logout.
+     *
+     * @param rawToken The refresh token presented by the client.
+     */
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepo.findByTokenHash(hash(rawToken)).ifPresent(refreshToken -> {
+            refreshToken.setRevoked(true);
+            refreshTokenRepo.save(refreshToken);
+        });
+    }
+
+    /**
+     * Revokes every refresh token of the user, e.g. after a password change.
+     *
+     * @param email The email address of the user.
+     */
+    @Transactional
+    public void revokeAllForUser(String email) {
+        int revoked = refreshTokenRepo.revokeAllByEmail(email);
+        log.info("Revoked {} refresh token(s) for user {}", revoked, email);
+    }
+
+    /**
+     * Deletes refresh tokens that have expired.
+     */
+    @Scheduled(fixedDelayString = "${jwt.refresh-token.purge-interval:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = refreshTokenRepo.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.debug("Purged {} expired refresh tokens", deleted);
+        }
+    }
+
+    private String hash(String rawToken) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(messageDigest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
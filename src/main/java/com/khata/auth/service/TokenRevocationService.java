@@ -0,0 +1,190 @@
+package com.khata.auth.service;
+
+import com.khata.auth.entity.RevokedToken;
+import com.khata.auth.payload.VerifiedToken;
+import com.khata.auth.repositories.RevokedTokenRepo;
+import com.khata.utils.BloomFilter;
+import com.khata.utils.TransactionUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Revocation list for access tokens, used for logout, password changes and forced sign-out.
+ * <p>
+ * Revocations are stored in the {@code revoked_tokens} table and mirrored in memory as a Bloom filter
+ * in front of an exact map. Almost every request is answered by the Bloom filter alone; only keys it
+ * reports as possibly present are confirmed against the map. The in-memory copy is resynchronised from
+ * the database on a schedule so revocations made on other nodes are picked up.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    private static final String USER_KEY_PREFIX = "user:";
+    private static final int EXPECTED_REVOCATIONS = 100_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final RevokedTokenRepo revokedTokenRepo;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile Snapshot snapshot = Snapshot.empty();
+
+    public TokenRevocationService(RevokedTokenRepo revokedTokenRepo) {
+        this.revokedTokenRepo = revokedTokenRepo;
+    }
+
+    /**
+     * Checks whether the token was revoked, either on its own or together with all tokens of its user.
+     * Runs entirely in memory.
+     *
+     * @param token The verified access token.
+     * @return True if the token must be rejected.
+     */
+    public boolean isRevoked(VerifiedToken token) {
+        Snapshot current = snapshot;
+        if (token.getTokenId() != null && current.contains(token.getTokenId())) {
+            return true;
+        }
+        Long revokedAt = current.revokedAt(USER_KEY_PREFIX + token.getSubject());
+        // Both sides have second precision: iat cannot order tokens within the revocation second, so those are revoked too
+        return revokedAt != null && (token.getIssuedAt() == null || token.getIssuedAt().getTime() <= revokedAt);
+    }
+
+    /**
+     * Revokes a single access token, e.g. on logout.
+     *
+     * @param token The verified access token to revoke.
+     */
+    @Transactional
+    public void revokeToken(VerifiedToken token) {
+        if (token.getTokenId() == null) {
+            return;
+        }
+        record(token.getTokenId(), token.getExpiration().getTime());
+        log.info("Access token revoked for user {}", token.getSubject());
+    }
+
+    /**
+     * Revokes every access token issued to the user up to now, e.g. after a password change.
+     *
+     * @param email The email address of the user.
+     */
+    @Transactional
+    public void revokeAllForUser(String email) {
+        record(USER_KEY_PREFIX + email, System.currentTimeMillis() + JwtTokenService.JWT_TOKEN_VALIDITY);
+        log.info("All access tokens revoked for user {}", email);
+    }
+
+    /**
+     * Rebuilds the in-memory revocation list from the database, dropping expired revocations.
+     */
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval:30000}")
+    public void refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        lock.lock();
+        try {
+            long nowMillis = System.currentTimeMillis();
+            Snapshot fresh = Snapshot.empty();
+            for (RevokedToken revokedToken : revokedTokenRepo.findByExpiresAtAfter(now)) {
+                LocalDateTime revokedAt = revokedToken.getRevokedAt().truncatedTo(ChronoUnit.SECONDS);
+                fresh.add(revokedToken.getTokenKey(), toMillis(revokedAt), toMillis(revokedToken.getExpiresAt()));
+            }
+            // Keep local revocations that may not have been visible to the query above
+            snapshot.entries.forEach((key, entry) -> {
+                if (entry.expiresAt > nowMillis) {
+                    fresh.add(key, entry.revokedAt, entry.expiresAt);
+                }
+            });
+            snapshot = fresh;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes revocations whose tokens have all expired.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = revokedTokenRepo.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.debug("Purged {} expired token revocations", deleted);
+        }
+    }
+
+    /**
+     * Stores the revocation and adds it to the in-memory list once the transaction commits, so a rolled back
+     * revocation is never enforced. The revocation time is truncated to the second, the precision of the
+     * {@code iat} claim it is compared with.
+     */
+    private void record(String tokenKey, long expiresAtMillis) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        RevokedToken revokedToken = revokedTokenRepo.findByTokenKey(tokenKey).orElseGet(RevokedToken::new);
+        revokedToken.setTokenKey(tokenKey);
+        revokedToken.setRevokedAt(now);
+        revokedToken.setExpiresAt(toLocalDateTime(expiresAtMillis));
+        revokedTokenRepo.save(revokedToken);
+
+        TransactionUtil.afterCommit(() -> {
+            lock.lock();
+            try {
+                snapshot.add(tokenKey, toMillis(now), expiresAtMillis);
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private record Entry(long revokedAt, long expiresAt) {
+    }
+
+    /**
+     * Bloom filter plus exact map. Entries are only ever added; expired ones disappear when the
+     * snapshot is rebuilt.
+     */
+    private record Snapshot(BloomFilter filter, Map<String, Entry> entries) {
+
+        static Snapshot empty() {
+            return new Snapshot(new BloomFilter(EXPECTED_REVOCATIONS, FALSE_POSITIVE_RATE), new ConcurrentHashMap<>());
+        }
+
+        void add(String key, long revokedAt, long expiresAt) {
+            filter.put(key);
+            entries.merge(key, new Entry(revokedAt, expiresAt),
+                    (a, b) -> new Entry(Math.max(a.revokedAt, b.revokedAt), Math.max(a.expiresAt, b.expiresAt)));
+        }
+
+        boolean contains(String key) {
+            return filter.mightContain(key) && entries.containsKey(key);
+        }
+
+        Long revokedAt(String key) {
+            if (!filter.mightContain(key)) {
+                return null;
+            }
+            Entry entry = entries.get(key);
+            return entry == null ? null : entry.revokedAt;
+        }
+    }
+}
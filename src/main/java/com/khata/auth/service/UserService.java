@@ -1,6 +1,7 @@
 package com.khata.auth.service;
 
 import com.khata.auth.dto.UserDTO;
+import com.khata.payload.CursorPaginationResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -9,6 +10,7 @@ public interface UserService {
     UserDTO updateUser(UserDTO userDTO, Integer userId);
     UserDTO getUserById(Integer userId);
     Page<UserDTO> getUsers(Pageable pageable);
-    Page<UserDTO> searchUserByName( String name, Pageable pageable);
+    CursorPaginationResponse<UserDTO> getUsers(String cursor, Pageable pageable);
+    Page<UserDTO> searchUserByName(String name, boolean approximateCount, Pageable pageable);
     void deleteUser(Integer userId);
 }
@@ -2,48 +2,76 @@ package com.khata.auth.service.impl;
 
 import com.khata.auth.dto.UserDTO;
 import com.khata.auth.entity.User;
+import com.khata.auth.mapper.UserMapper;
 import com.khata.auth.repositories.UserRepo;
+import com.khata.auth.service.PrincipalCache;
+import com.khata.auth.service.RefreshTokenService;
+import com.khata.auth.service.TokenRevocationService;
 import com.khata.auth.service.UserService;
 import com.khata.exceptions.ResourceAlreadyExistsException;
 import com.khata.exceptions.ResourceNotFoundException;
 import com.khata.mailVerification.service.MailVerificationService;
+import com.khata.payload.CursorPaginationResponse;
+import com.khata.utils.CursorPaginator;
+import com.khata.utils.PaginationUtil;
+import com.khata.utils.RowCounters;
 import com.khata.utils.EmailAndPhoneUtil;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Set;
+
 @Service
 @Slf4j
 public class UserServiceImpl implements UserService {
 
+    private static final String ROW_COUNTER = "users";
+    // Cursors carry the sort key values in readable form, so only columns that are safe to show may be sorted by
+    private static final Set<String> CURSOR_SORTS = Set.of("fullName", "email");
+
     private final UserRepo userRepo;
-    private final ModelMapper modelMapper;
+    private final UserMapper userMapper;
     private final PasswordEncoder encoder;
     private final MailVerificationService mailVerificationService;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationService tokenRevocationService;
+    private final RefreshTokenService refreshTokenService;
+    private final CursorPaginator cursorPaginator;
+    private final RowCounters rowCounters;
 
 
-    public UserServiceImpl(UserRepo userRepo, ModelMapper modelMapper, PasswordEncoder encoder, MailVerificationService mailVerificationService) {
+    public UserServiceImpl(UserRepo userRepo, UserMapper userMapper, PasswordEncoder encoder, MailVerificationService mailVerificationService,
+                           PrincipalCache principalCache, TokenRevocationService tokenRevocationService, RefreshTokenService refreshTokenService,
+                           CursorPaginator cursorPaginator, RowCounters rowCounters) {
         this.userRepo = userRepo;
-        this.modelMapper = modelMapper;
+        this.userMapper = userMapper;
         this.encoder = encoder;
         this.mailVerificationService = mailVerificationService;
+        this.principalCache = principalCache;
+        this.tokenRevocationService = tokenRevocationService;
+        this.refreshTokenService = refreshTokenService;
+        this.cursorPaginator = cursorPaginator;
+        this.rowCounters = rowCounters;
+        rowCounters.register(ROW_COUNTER, userRepo::count);
     }
 
     @Override
     @Transactional
     public UserDTO createUser(UserDTO userDTO) {
-        User user = modelMapper.map(userDTO, User.class);
+        User user = userMapper.toEntity(userDTO);
         checkEmailIfExists(userDTO.getEmail());
         checkPhoneNumberIfExists(userDTO.getPhoneNumber());
         user.setPassword(encodePassword(userDTO.getPassword()));
         User savedUser = this.userRepo.save(user);
+        rowCounters.increment(ROW_COUNTER);
         mailVerificationService.sendVerificationEmail(userDTO.getEmail());
         log.info("User created with email: {}", userDTO.getEmail());
-        return modelMapper.map(savedUser, UserDTO.class);
+        return userMapper.toDTO(savedUser);
     }
 
     @Override
@@ -63,31 +91,41 @@ public class UserServiceImpl implements UserService {
         user.setPhoneNumber(userDTO.getPhoneNumber());
         if (userDTO.getPassword() != null && !userDTO.getPassword().isEmpty()) {
             user.setPassword(encodePassword(userDTO.getPassword()));
+            signOutEverywhere(user.getEmail());
         }
         User updateUser = this.userRepo.save(user);
+        principalCache.invalidate(user.getEmail());
         log.info("User updated with ID: {}", userId);
-        return modelMapper.map(updateUser, UserDTO.class);
+        return userMapper.toDTO(updateUser);
     }
 
     @Override
     @Transactional(readOnly = true)
     public UserDTO getUserById(Integer userId) {
         User user = getUserEntityById(userId);
-        return modelMapper.map(user, UserDTO.class);
+        return userMapper.toDTO(user);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<UserDTO> getUsers(Pageable pageable) {
-        Page<User> users = this.userRepo.findAll(pageable);
-        return users.map(user -> modelMapper.map(user, UserDTO.class));
+        Slice<UserDTO> users = this.userRepo.findUserList(pageable);
+        return PaginationUtil.withTotal(users, rowCounters.get(ROW_COUNTER));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPaginationResponse<UserDTO> getUsers(String cursor, Pageable pageable) {
+        return this.cursorPaginator.scroll(this.userRepo, User.class, cursor, pageable, CURSOR_SORTS, user -> userMapper.toDTO(user));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Page<UserDTO> searchUserByName(String name, Pageable pageable) {
-        Page<User> users = this.userRepo.findByFullNameContainingIgnoreCase(name, pageable);
-        return users.map(user -> modelMapper.map(user, UserDTO.class));
+    public Page<UserDTO> searchUserByName(String name, boolean approximateCount, Pageable pageable) {
+        Page<User> users = approximateCount
+                ? PaginationUtil.withApproximateTotal(this.userRepo.findSliceByFullNameContainingIgnoreCase(name, pageable))
+                : this.userRepo.findByFullNameContainingIgnoreCase(name, pageable);
+        return users.map(user -> userMapper.toDTO(user));
     }
 
     @Override
@@ -95,6 +133,9 @@ public class UserServiceImpl implements UserService {
     public void deleteUser(Integer userId) {
         User user = getUserEntityById(userId);
         this.userRepo.delete(user);
+        rowCounters.decrement(ROW_COUNTER);
+        principalCache.invalidate(user.getEmail());
+        signOutEverywhere(user.getEmail());
         log.info("User deleted with ID: {}", userId);
     }
 
@@ -103,6 +144,11 @@ public class UserServiceImpl implements UserService {
                 () -> new ResourceNotFoundException("User", "id", userId));
     }
 
+    private void signOutEverywhere(String email) {
+        tokenRevocationService.revokeAllForUser(email);
+        refreshTokenService.revokeAllForUser(email);
+    }
+
     private String encodePassword(String rawPassword) {
         if (rawPassword == null || rawPassword.isEmpty()) {
             throw new IllegalArgumentException("Password cannot be null or empty");
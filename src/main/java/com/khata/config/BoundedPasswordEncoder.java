@@ -0,0 +1,162 @@
+package com.khata.config;
+
+import com.khata.exceptions.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * BCrypt password encoder that hashes and verifies on its own small, bounded thread pool.
+ * <p>
+ * BCrypt is deliberately CPU heavy. Running it on a dedicated pool caps how many cores a burst of
+ * logins or registrations can take, so cheap endpoints keep being served. When both the pool and its
+ * queue are full the call fails fast with {@link ServiceBusyException} instead of piling up.
+ * The BCrypt cost is calibrated once at startup from the measured hash time on this machine.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final int MIN_STRENGTH = 10;
+    private static final int MAX_STRENGTH = 14;
+    private static final int CALIBRATION_ROUNDS = 3;
+
+    private final BCryptPasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejections;
+
+    /**
+     * @param targetHashTime the hash time the BCrypt cost is tuned towards
+     * @param threads        the number of threads allowed to hash concurrently
+     * @param queueCapacity  the number of operations allowed to wait for a thread
+     * @param timeout        the maximum time a caller waits for its operation
+     * @param registry       the registry hash latency and queue depth are published to
+     */
+    public BoundedPasswordEncoder(Duration targetHashTime, int threads, int queueCapacity, Duration timeout, MeterRegistry registry) {
+        int strength = calibrateStrength(targetHashTime);
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.timeoutMillis = timeout.toMillis();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                namedThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("password.hash.duration").tag("operation", "encode").register(registry);
+        this.matchesTimer = Timer.builder("password.hash.duration").tag("operation", "matches").register(registry);
+        this.rejections = Counter.builder("password.hash.rejected").register(registry);
+        Gauge.builder("password.hash.queue.depth", executor, e -> e.getQueue().size()).register(registry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+
+        log.info("Password hashing uses BCrypt strength {} on {} thread(s) with a queue of {}", strength, threads, queueCapacity);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword), encodeTimer);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword), matchesTimer);
+    }
+
+    /**
+     * Hashes stored with a lower cost than the calibrated one are re-encoded on the next successful login.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Stops the hashing pool when the application context closes.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T execute(Supplier<T> operation, Timer timer) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.record(operation));
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            log.warn("Password hashing queue is full, rejecting request");
+            throw new ServiceBusyException("Server is busy, please try again shortly");
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejections.increment();
+            throw new ServiceBusyException("Server is busy, please try again shortly");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Password hashing was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Measures the hash time at the minimum strength and picks the highest strength whose
+     * estimated hash time stays within the target. Each extra strength step doubles the cost.
+     */
+    private static int calibrateStrength(Duration targetHashTime) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(MIN_STRENGTH);
+        probe.encode("calibration-warmup");
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration-probe");
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        int strength = strengthFor(best, targetHashTime.toNanos());
+        log.debug("BCrypt strength {} takes {} ms, calibrated strength {}", MIN_STRENGTH, best / 1_000_000, strength);
+        return strength;
+    }
+
+    /**
+     * The highest strength between {@value #MIN_STRENGTH} and {@value #MAX_STRENGTH} whose estimated hash time,
+     * doubling from the measured time at the minimum strength, stays within the target.
+     */
+    static int strengthFor(long minStrengthNanos, long targetNanos) {
+        int strength = MIN_STRENGTH;
+        long estimate = minStrengthNanos;
+        while (strength < MAX_STRENGTH && estimate * 2 <= targetNanos) {
+            estimate *= 2;
+            strength++;
+        }
+        return strength;
+    }
+
+    private static ThreadFactory namedThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -1,13 +1,13 @@
 package com.khata.config;
 
+import com.khata.auth.payload.VerifiedToken;
 import com.khata.auth.service.JwtTokenService;
+import com.khata.auth.service.TokenRevocationService;
 import com.khata.exceptions.JwtTokenException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -24,8 +24,6 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * JwtAuthenticationFilter is a custom filter that processes JWT authentication tokens in HTTP requests.
@@ -40,11 +38,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenService jwtTokenService;
     private final UserDetailsService userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
 
     @Autowired
-    public JwtAuthenticationFilter(JwtTokenService jwtTokenService, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtTokenService jwtTokenService, UserDetailsService userDetailsService, TokenRevocationService tokenRevocationService) {
         this.jwtTokenService = jwtTokenService;
         this.userDetailsService = userDetailsService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @Override
@@ -52,11 +52,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String token = extractToken(request);
-            if (token != null) {
-                String username = jwtTokenService.getUsernameFromToken(token);
+            if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                VerifiedToken verifiedToken = jwtTokenService.verifyToken(token);
+                if (tokenRevocationService.isRevoked(verifiedToken)) {
+                    log.warn("Revoked JWT token presented for user: {}", verifiedToken.getSubject());
+                    throw new JwtTokenException(HttpStatus.UNAUTHORIZED, "JWT token has been revoked");
+                }
 
-                if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    setAuthentication(username, token, request);
+                if (verifiedToken.getSubject() != null) {
+                    setAuthentication(verifiedToken, request);
                 }
             }
 
@@ -93,23 +97,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     /**
      * Sets the authentication context if the JWT token is valid.
-     * Loads user details, validates the token, and creates an authentication token
+     * Loads user details, validates the already verified token, and creates an authentication token
      * to set in the SecurityContextHolder.
      *
-     * @param username the username extracted from the token
-     * @param token the JWT token
+     * @param verifiedToken the token verified once by {@link JwtTokenService#verifyToken(String)}
      * @param request the HTTP request
      */
-    private void setAuthentication(String username, String token, HttpServletRequest request) {
+    private void setAuthentication(VerifiedToken verifiedToken, HttpServletRequest request) {
+        String username = verifiedToken.getSubject();
         UserDetails userDetails = userDetailsService.loadUserByUsername(username);
 
-        if (jwtTokenService.validateToken(token, userDetails)) {
-            List<GrantedAuthority> authorities = jwtTokenService.getRolesFromToken(token).stream()
-                    .map(SimpleGrantedAuthority::new)
-                    .collect(Collectors.toList());
-
+        if (jwtTokenService.validateToken(verifiedToken, userDetails)) {
             UsernamePasswordAuthenticationToken authenticationToken =
-                    new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
+                    new UsernamePasswordAuthenticationToken(userDetails, null, verifiedToken.getAuthorities());
             authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
             SecurityContextHolder.getContext().setAuthentication(authenticationToken);
 
@@ -0,0 +1,19 @@
+package com.khata.config;
+
+import org.mapstruct.MapperConfig;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * Shared settings for the generated entity/DTO mappers.
+ * <p>
+ * A target property that no source fills, or a conversion that may lose precision, fails the build instead of
+ * silently producing nulls or rounded values at runtime. Such mismatches must be ignored or converted explicitly
+ * in the mapper.
+ */
+@MapperConfig(
+        componentModel = "spring",
+        unmappedTargetPolicy = ReportingPolicy.ERROR,
+        typeConversionPolicy = ReportingPolicy.ERROR
+)
+public interface MapperConfiguration {
+}
@@ -1,6 +1,7 @@
 package com.khata.exceptions;
 
 import com.khata.payload.ApiResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -26,6 +27,10 @@ import java.util.Map;
  * application.</li>
  * <li>{@link ResourceAlreadyExistsException} - Handles cases where the email
  * already exists in the system.</li>
+ * <li>{@link ServiceBusyException} - Handles requests rejected because a bounded
+ * resource is saturated.</li>
+ * <li>{@link TooManyRequestsException} - Handles clients throttled after too many
+ * failed attempts.</li>
  * </ul>
  * <p>
  * Each exception is caught and an appropriate HTTP status code is returned with
@@ -113,4 +118,36 @@ public class GlobalExceptionHandler {
         ApiResponse<Object> apiResponse = new ApiResponse<>(null, HttpStatus.UNAUTHORIZED.value(), message);
         return new ResponseEntity<>(apiResponse, HttpStatus.BAD_REQUEST);
     }
-}
\ No newline at end of file
+
+    /**
+     * Handles {@link ServiceBusyException} and returns a 503 status code so clients
+     * can back off and retry.
+     *
+     * @param ex the exception that was thrown
+     * @return a {@link ResponseEntity} containing an {@link ApiResponse} with the error message
+     *         and HTTP status
+     */
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ApiResponse<Object>> handleServiceBusyException(ServiceBusyException ex) {
+        String message = ex.getMessage();
+        ApiResponse<Object> apiResponse = new ApiResponse<>(null, HttpStatus.SERVICE_UNAVAILABLE.value(), message);
+        return new ResponseEntity<>(apiResponse, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Handles {@link TooManyRequestsException} and returns a 429 status code with a
+     * Retry-After header telling the client how long to back off.
+     *
+     * @param ex the exception that was thrown
+     * @return a {@link ResponseEntity} containing an {@link ApiResponse} with the error message
+     *         and HTTP status
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ApiResponse<Object>> handleTooManyRequestsException(TooManyRequestsException ex) {
+        String message = ex.getMessage();
+        ApiResponse<Object> apiResponse = new ApiResponse<>(null, HttpStatus.TOO_MANY_REQUESTS.value(), message);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(apiResponse);
+    }
+}
@@ -0,0 +1,11 @@
+package com.khata.exceptions;
+
+/**
+ * Thrown when a bounded resource is saturated and the request is rejected instead of queued.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.khata.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a client is throttled after too many failed attempts.
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(long retryAfterSeconds) {
+        super(String.format("Too many failed attempts. Please try again in %d seconds", retryAfterSeconds));
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,51 @@
+package com.khata.invoice.controller;
+
+import com.khata.invoice.dto.InvoiceDTO;
+import com.khata.invoice.service.InvoiceGroupCommitter;
+import com.khata.invoice.service.InvoiceService;
+import com.khata.payload.ApiResponse;
+import com.khata.payload.PaginationResponse;
+import com.khata.utils.PaginationUtil;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/invoice")
+@AllArgsConstructor
+public class InvoiceController {
+
+    private final InvoiceService invoiceService;
+    // Only present when invoice.group-commit.enabled is set
+    private final ObjectProvider<InvoiceGroupCommitter> invoiceGroupCommitter;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public ResponseEntity<ApiResponse<InvoiceDTO>> createInvoice(@Valid @RequestBody InvoiceDTO invoiceDTO) {
+        InvoiceGroupCommitter groupCommitter = this.invoiceGroupCommitter.getIfAvailable();
+        InvoiceDTO invoice = groupCommitter != null
+                ? groupCommitter.createInvoice(invoiceDTO)
+                : this.invoiceService.createInvoice(invoiceDTO);
+        ApiResponse<InvoiceDTO> response = new ApiResponse<>(invoice, HttpStatus.CREATED.value(), "Invoice Created Successfully");
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @GetMapping("/{invoiceId}")
+    public ResponseEntity<ApiResponse<InvoiceDTO>> getInvoice(@PathVariable Long invoiceId) {
+        InvoiceDTO invoice = this.invoiceService.getInvoiceById(invoiceId);
+        return ResponseEntity.ok(new ApiResponse<>(invoice, HttpStatus.OK.value()));
+    }
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<PaginationResponse<InvoiceDTO>>> getInvoices(
+            @RequestParam(required = false) Integer partyId,
+            Pageable pageable) {
+        Page<InvoiceDTO> invoices = this.invoiceService.getInvoices(partyId, pageable);
+        return ResponseEntity.ok(new ApiResponse<>(PaginationUtil.buildPaginationResponse(invoices), HttpStatus.OK.value()));
+    }
+}
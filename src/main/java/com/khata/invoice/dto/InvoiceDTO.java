@@ -0,0 +1,42 @@
+package com.khata.invoice.dto;
+
+import com.khata.invoice.entity.enums.InvoiceType;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class InvoiceDTO {
+    private Long id;
+
+    @NotNull(message = "Party id cannot be null")
+    private Integer partyId;
+
+    @NotNull(message = "Invoice type cannot be null")
+    private InvoiceType invoiceType;
+
+    // Defaults to today when not given
+    private LocalDate invoiceDate;
+
+    @Size(max = 100, message = "Reference must be less than 100 characters")
+    private String reference;
+
+    @NotEmpty(message = "An invoice needs at least one line")
+    @Size(max = 500, message = "An invoice can have at most 500 lines")
+    private List<@Valid @NotNull(message = "Invoice line cannot be null") InvoiceLineDTO> lines;
+
+    private BigDecimal total;
+
+    private LocalDateTime createdAt;
+}
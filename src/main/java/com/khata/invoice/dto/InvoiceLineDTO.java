@@ -0,0 +1,36 @@
+package com.khata.invoice.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class InvoiceLineDTO {
+    private Long id;
+
+    @NotNull(message = "Product id cannot be null")
+    private Integer productId;
+
+    private String productName;
+
+    @NotNull(message = "Quantity cannot be null")
+    @Min(value = 1, message = "Quantity must be greater than 0")
+    @Max(value = 1_000_000, message = "Quantity must be at most 1000000")
+    private Integer quantity;
+
+    // Defaults to the product's selling price on a sale and its purchase price on a purchase
+    @DecimalMin(value = "0", message = "Unit price must be greater than or equal to 0")
+    @Digits(integer = 17, fraction = 2, message = "Unit price must have at most 2 decimal places")
+    private BigDecimal unitPrice;
+
+    private BigDecimal amount;
+}
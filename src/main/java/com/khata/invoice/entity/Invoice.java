@@ -0,0 +1,49 @@
+package com.khata.invoice.entity;
+
+import com.khata.invoice.entity.enums.InvoiceType;
+import com.khata.party.entity.Party;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A sale to or purchase from a party. Invoices are never updated; the stock and ledger changes they made are
+ * corrected by an opposite invoice.
+ */
+@NoArgsConstructor
+@Entity
+@Immutable
+@Getter
+@Setter
+@Table(name = "invoice", indexes = {@Index(columnList = "party_id, id")})
+public class Invoice {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "party_id", nullable = false)
+    private Party party;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private InvoiceType invoiceType;
+
+    @Column(nullable = false)
+    private LocalDate invoiceDate;
+
+    @Column(length = 100)
+    private String reference;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal total;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
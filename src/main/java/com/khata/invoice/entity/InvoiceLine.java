@@ -0,0 +1,43 @@
+package com.khata.invoice.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+
+/**
+ * One product on an invoice. Lines are written with a JDBC batch, so the invoice and product are plain columns.
+ */
+@NoArgsConstructor
+@Entity
+@Immutable
+@Getter
+@Setter
+@Table(name = "invoice_line", indexes = {@Index(columnList = "invoice_id, id")})
+public class InvoiceLine {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "invoice_id", nullable = false)
+    private Long invoiceId;
+
+    @Column(name = "product_id", nullable = false)
+    private Integer productId;
+
+    // The product's name when invoiced, so the invoice still reads the same after the product is renamed or deleted
+    @Column(nullable = false, length = 100)
+    private String productName;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal unitPrice;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+}
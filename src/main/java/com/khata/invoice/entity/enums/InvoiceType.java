@@ -0,0 +1,8 @@
+package com.khata.invoice.entity.enums;
+
+public enum InvoiceType {
+    // Goods sold to a customer: stock goes down and the party owes the shop
+    SALE,
+    // Goods bought from a vendor: stock goes up and the shop owes the party
+    PURCHASE
+}
@@ -0,0 +1,20 @@
+package com.khata.invoice.mapper;
+
+import com.khata.config.MapperConfiguration;
+import com.khata.invoice.dto.InvoiceDTO;
+import com.khata.invoice.dto.InvoiceLineDTO;
+import com.khata.invoice.entity.Invoice;
+import com.khata.invoice.entity.InvoiceLine;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(config = MapperConfiguration.class)
+public interface InvoiceMapper {
+
+    // Lines are only read for a single invoice, and set by the service
+    @Mapping(target = "partyId", source = "party.id")
+    @Mapping(target = "lines", ignore = true)
+    InvoiceDTO toDTO(Invoice invoice);
+
+    InvoiceLineDTO toDTO(InvoiceLine line);
+}
@@ -0,0 +1,11 @@
+package com.khata.invoice.repositories;
+
+import com.khata.invoice.entity.InvoiceLine;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface InvoiceLineRepo extends JpaRepository<InvoiceLine, Long> {
+
+    List<InvoiceLine> findByInvoiceIdOrderByIdAsc(Long invoiceId);
+}
@@ -0,0 +1,16 @@
+package com.khata.invoice.repositories;
+
+import com.khata.invoice.entity.Invoice;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface InvoiceRepo extends JpaRepository<Invoice, Long> {
+
+    // Newest first, read through the (party_id, id) index
+    Page<Invoice> findByPartyIdOrderByIdDesc(Integer partyId, Pageable pageable);
+
+    Page<Invoice> findAllByOrderByIdDesc(Pageable pageable);
+
+    boolean existsByPartyId(Integer partyId);
+}
@@ -0,0 +1,276 @@
+package com.khata.invoice.service;
+
+import com.khata.exceptions.ServiceBusyException;
+import com.khata.invoice.dto.InvoiceDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Records invoices in group commits, for bursts of small sales from many tills.
+ * <p>
+ * An invoice in a transaction of its own pays for a commit, and the log flush behind it, on every sale. Here
+ * invoices wait in a bounded queue and a single writer thread records up to {@code max-batch} of them in one
+ * transaction, waiting at most {@code max-wait-ms} for a batch to fill. Each invoice runs after a savepoint of
+ * its own, so one that fails is rolled back alone and its caller gets its own error while the rest of the batch
+ * commits. A failure inside a transactional call, such as the ledger posting, marks the whole transaction for
+ * rollback, and that mark cannot be undone; the batch is then rolled back and recorded again without the failed
+ * invoice.
+ * <p>
+ * A batch locks the products, then the party balances, of all its invoices in id order before recording any of
+ * them, the order every single invoice and stock movement takes them in. There is a single writer so batches do
+ * not contend with each other for those locks.
+ * Callers wait for the commit of their batch, up to {@code result-timeout-ms}, so a result is only returned once
+ * it is durable. When the queue is full or the committer is stopping, the call fails fast with
+ * {@link ServiceBusyException} instead of piling up.
+ * <p>
+ * Enabled with {@code invoice.group-commit.enabled=true}; invoices are otherwise recorded one transaction each.
+ */
+@Component
+@ConditionalOnProperty(name = "invoice.group-commit.enabled", havingValue = "true")
+@Slf4j
+public class InvoiceGroupCommitter {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final InvoiceService invoiceService;
+    private final EntityManager entityManager;
+    private final DataSource dataSource;
+    private final TransactionTemplate batchTransaction;
+    private final BlockingQueue<PendingInvoice> queue;
+    private final int maxBatch;
+    private final long maxWaitNanos;
+    private final long resultTimeoutMillis;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final Timer commitTimer;
+    private final Timer latencyTimer;
+    private final DistributionSummary batchSizes;
+    private final Counter rejections;
+
+    public InvoiceGroupCommitter(InvoiceService invoiceService, EntityManager entityManager, DataSource dataSource,
+                                 PlatformTransactionManager transactionManager, MeterRegistry registry,
+                                 @Value("${invoice.group-commit.queue-capacity:1024}") int queueCapacity,
+                                 @Value("${invoice.group-commit.max-batch:64}") int maxBatch,
+                                 @Value("${invoice.group-commit.max-wait-ms:5}") long maxWaitMillis,
+                                 @Value("${invoice.group-commit.result-timeout-ms:30000}") long resultTimeoutMillis) {
+        this.invoiceService = invoiceService;
+        this.entityManager = entityManager;
+        this.dataSource = dataSource;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatch = maxBatch;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.resultTimeoutMillis = resultTimeoutMillis;
+        this.writer = new Thread(this::run, "invoice-group-commit");
+
+        this.commitTimer = Timer.builder("invoice.group-commit.duration").register(registry);
+        this.latencyTimer = Timer.builder("invoice.group-commit.latency").register(registry);
+        this.batchSizes = DistributionSummary.builder("invoice.group-commit.batch.size").register(registry);
+        this.rejections = Counter.builder("invoice.group-commit.rejected").register(registry);
+        Gauge.builder("invoice.group-commit.queue.depth", queue, BlockingQueue::size).register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.start();
+        log.info("Invoice group commit started with a queue of {}, batches of up to {} and a wait of up to {} ms",
+                queue.remainingCapacity(), maxBatch, TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+    }
+
+    /**
+     * Stops taking invoices and waits for the queued ones to be recorded. Invoices offered from then on are rejected.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join();
+    }
+
+    /**
+     * Queues the invoice for the next group commit and waits until its batch has committed.
+     *
+     * @param invoiceDTO The invoice to record.
+     * @return The recorded invoice, as {@link InvoiceService#createInvoice} returns it.
+     */
+    public InvoiceDTO createInvoice(InvoiceDTO invoiceDTO) {
+        PendingInvoice pending = new PendingInvoice(invoiceDTO);
+        if (!running || !queue.offer(pending)) {
+            rejections.increment();
+            log.warn("Invoice group commit queue is full, rejecting request");
+            throw new ServiceBusyException("Server is busy, please try again shortly");
+        }
+        // stop() began after the check above, and the writer may have drained the queue for the last time already
+        if (!running && queue.remove(pending)) {
+            rejections.increment();
+            throw new ServiceBusyException("Server is shutting down, please try again shortly");
+        }
+        try {
+            return pending.result.get(resultTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // The invoice may still be committed after the caller gave up, so a blind retry could record it twice
+            log.warn("Invoice group commit did not answer within {} ms", resultTimeoutMillis);
+            throw new ServiceBusyException("Invoice recording is taking too long; check the invoices before retrying");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Invoice recording was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void run() {
+        List<PendingInvoice> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingInvoice first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch);
+                commit(batch);
+            } catch (InterruptedException e) {
+                // Not interrupted by stop(), which lets the queue drain; keep serving the callers already waiting
+                log.warn("Invoice group commit writer was interrupted");
+                if (!batch.isEmpty()) {
+                    commit(batch);
+                }
+            } catch (Throwable e) {
+                // Errors too, or their callers would wait for an answer that never comes
+                log.error("Invoice group commit failed", e);
+                batch.forEach(pending -> pending.result.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Takes what is already queued, and waits for more only until the batch is full or the wait is over
+    private void fill(List<PendingInvoice> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (batch.size() < maxBatch) {
+            if (queue.drainTo(batch, maxBatch - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            PendingInvoice next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void commit(List<PendingInvoice> batch) {
+        long start = System.nanoTime();
+        List<PendingInvoice> remaining = new ArrayList<>(batch);
+        List<PendingInvoice> recorded = new ArrayList<>(batch.size());
+        boolean rolledBack;
+        do {
+            recorded.clear();
+            try {
+                rolledBack = Boolean.TRUE.equals(batchTransaction.execute(status -> recordAll(remaining, recorded, status)));
+            } catch (RuntimeException ex) {
+                // Not retried: whether a failed commit was applied is unknown, and a retry could record invoices twice
+                log.error("Invoice group commit of {} invoices failed", remaining.size(), ex);
+                remaining.forEach(pending -> pending.result.completeExceptionally(ex));
+                return;
+            }
+            // Nothing was committed, so the invoices that have not failed are recorded again
+            remaining.removeIf(pending -> pending.result.isDone());
+        } while (rolledBack && !remaining.isEmpty());
+        long end = System.nanoTime();
+        commitTimer.record(end - start, TimeUnit.NANOSECONDS);
+        batchSizes.record(batch.size());
+        for (PendingInvoice pending : recorded) {
+            latencyTimer.record(end - pending.queuedAt, TimeUnit.NANOSECONDS);
+            pending.result.complete(pending.invoice);
+        }
+    }
+
+    // Records the invoices one after the other and returns whether the transaction has to be rolled back instead
+    private boolean recordAll(List<PendingInvoice> batch, List<PendingInvoice> recorded, TransactionStatus status) {
+        invoiceService.lockForInvoices(batch.stream().map(pending -> pending.request).toList());
+        // The JDBC connection of the JPA transaction; Spring's JPA support cannot create savepoints itself
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        for (PendingInvoice pending : batch) {
+            Savepoint savepoint = setSavepoint(connection);
+            try {
+                pending.invoice = invoiceService.recordInvoice(pending.request);
+                recorded.add(pending);
+            } catch (RuntimeException ex) {
+                pending.result.completeExceptionally(ex);
+                if (status.isRollbackOnly()) {
+                    // A transactional call marked the whole transaction for rollback. Marking it locally too
+                    // makes the template roll back without throwing, and the others are recorded again
+                    status.setRollbackOnly();
+                    return true;
+                }
+                // The invoices before this one are already flushed, so only the failed one's entities are
+                // dropped and none of its changes is written with the batch
+                rollbackToSavepoint(connection, savepoint);
+                entityManager.clear();
+            }
+        }
+        return false;
+    }
+
+    private static Savepoint setSavepoint(Connection connection) {
+        try {
+            return connection.setSavepoint();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not set a savepoint for the invoice", e);
+        }
+    }
+
+    private static void rollbackToSavepoint(Connection connection, Savepoint savepoint) {
+        try {
+            connection.rollback(savepoint);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not roll back the failed invoice", e);
+        }
+    }
+
+    private static final class PendingInvoice {
+        private final InvoiceDTO request;
+        private final long queuedAt = System.nanoTime();
+        private final CompletableFuture<InvoiceDTO> result = new CompletableFuture<>();
+        private InvoiceDTO invoice;
+
+        private PendingInvoice(InvoiceDTO request) {
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.khata.invoice.service;
+
+import com.khata.invoice.dto.InvoiceDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public interface InvoiceService {
+    InvoiceDTO createInvoice(InvoiceDTO invoiceDTO);
+    InvoiceDTO recordInvoice(InvoiceDTO invoiceDTO);
+    void lockForInvoices(List<InvoiceDTO> invoices);
+    InvoiceDTO getInvoiceById(Long invoiceId);
+    Page<InvoiceDTO> getInvoices(Integer partyId, Pageable pageable);
+}
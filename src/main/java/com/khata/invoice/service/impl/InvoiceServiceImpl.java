@@ -0,0 +1,261 @@
+package com.khata.invoice.service.impl;
+
+import com.khata.exceptions.ApiException;
+import com.khata.exceptions.ResourceNotFoundException;
+import com.khata.invoice.dto.InvoiceDTO;
+import com.khata.invoice.dto.InvoiceLineDTO;
+import com.khata.invoice.entity.Invoice;
+import com.khata.invoice.entity.enums.InvoiceType;
+import com.khata.invoice.mapper.InvoiceMapper;
+import com.khata.invoice.repositories.InvoiceLineRepo;
+import com.khata.invoice.repositories.InvoiceRepo;
+import com.khata.invoice.service.InvoiceService;
+import com.khata.ledger.dto.LedgerEntryDTO;
+import com.khata.ledger.entity.enums.LedgerEntryType;
+import com.khata.ledger.service.LedgerService;
+import com.khata.party.repositories.PartyRepo;
+import com.khata.product.service.ProductCatalogCache;
+import com.khata.product.service.ProductSearchIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records sale and purchase invoices. One invoice changes the stock of all its products, records their stock
+ * movements and posts the matching ledger entry in a single transaction.
+ * <p>
+ * The products are locked with one {@code SELECT ... FOR UPDATE} in product id order. Every invoice and stock
+ * movement locks products in that same order, so two invoices sharing products wait for each other instead of
+ * deadlocking. Stock updates, stock movements and invoice lines are then written as JDBC batches, so the number
+ * of round trips does not grow with the number of lines.
+ */
+@Service
+@Slf4j
+public class InvoiceServiceImpl implements InvoiceService {
+
+    private static final String LOCK_PRODUCTS_SQL =
+            "SELECT id, name, quantity, purchase_price, selling_price FROM product WHERE id = ANY(?) ORDER BY id FOR UPDATE";
+    private static final String LOCK_BALANCES_SQL =
+            "SELECT party_id FROM party_balance WHERE party_id = ANY(?) ORDER BY party_id FOR UPDATE";
+    private static final String UPDATE_STOCK_SQL = "UPDATE product SET quantity = quantity + ? WHERE id = ?";
+    private static final String INSERT_MOVEMENT_SQL =
+            "INSERT INTO stock_movement (product_id, quantity_change, quantity_after, reference, created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_LINE_SQL =
+            "INSERT INTO invoice_line (invoice_id, product_id, product_name, quantity, unit_price, amount) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final InvoiceRepo invoiceRepo;
+    private final InvoiceLineRepo invoiceLineRepo;
+    private final PartyRepo partyRepo;
+    private final LedgerService ledgerService;
+    private final ProductCatalogCache productCatalogCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final InvoiceMapper invoiceMapper;
+    private final JdbcTemplate jdbcTemplate;
+
+    public InvoiceServiceImpl(InvoiceRepo invoiceRepo, InvoiceLineRepo invoiceLineRepo, PartyRepo partyRepo,
+                              LedgerService ledgerService, ProductCatalogCache productCatalogCache,
+                              ProductSearchIndex productSearchIndex, InvoiceMapper invoiceMapper, JdbcTemplate jdbcTemplate) {
+        this.invoiceRepo = invoiceRepo;
+        this.invoiceLineRepo = invoiceLineRepo;
+        this.partyRepo = partyRepo;
+        this.ledgerService = ledgerService;
+        this.productCatalogCache = productCatalogCache;
+        this.productSearchIndex = productSearchIndex;
+        this.invoiceMapper = invoiceMapper;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Records an invoice, moves the stock of its products and posts it to the party's ledger: a sale as a debit,
+     * a purchase as a credit. A sale is rejected without changing anything when a product does not have enough stock.
+     *
+     * @param invoiceDTO The invoice to record.
+     * @return The recorded invoice with its lines.
+     */
+    @Override
+    @Transactional
+    public InvoiceDTO createInvoice(InvoiceDTO invoiceDTO) {
+        return recordInvoice(invoiceDTO);
+    }
+
+    /**
+     * Records an invoice like {@link #createInvoice} in the caller's transaction, which must be active. A failure
+     * does not mark that transaction for rollback, so the caller can roll back to a savepoint and carry on.
+     *
+     * @param invoiceDTO The invoice to record.
+     * @return The recorded invoice with its lines.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = RuntimeException.class)
+    public InvoiceDTO recordInvoice(InvoiceDTO invoiceDTO) {
+        Integer partyId = invoiceDTO.getPartyId();
+        if (!partyRepo.existsById(partyId)) {
+            throw new ResourceNotFoundException("Party", "id", partyId);
+        }
+        boolean sale = invoiceDTO.getInvoiceType() == InvoiceType.SALE;
+
+        // A product may appear on several lines; its stock is checked and moved once, by their total
+        Map<Integer, Integer> quantities = new TreeMap<>();
+        for (InvoiceLineDTO line : invoiceDTO.getLines()) {
+            quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        Map<Integer, LockedProduct> products = lockProducts(quantities.keySet().toArray(Integer[]::new));
+        quantities.forEach((productId, quantity) -> {
+            LockedProduct product = products.get(productId);
+            if (product == null) {
+                throw new ResourceNotFoundException("Product", "id", productId);
+            }
+            if (sale && product.quantity() < quantity) {
+                throw new ApiException("Not enough stock of " + product.name() + ": " + product.quantity() + " left, " + quantity + " needed");
+            }
+        });
+
+        List<Object[]> lineArgs = new ArrayList<>(invoiceDTO.getLines().size());
+        BigDecimal total = BigDecimal.ZERO;
+        for (InvoiceLineDTO line : invoiceDTO.getLines()) {
+            LockedProduct product = products.get(line.getProductId());
+            BigDecimal unitPrice = line.getUnitPrice() != null ? line.getUnitPrice()
+                    : sale ? product.sellingPrice() : product.purchasePrice();
+            BigDecimal amount = unitPrice.multiply(BigDecimal.valueOf(line.getQuantity()));
+            total = total.add(amount);
+            // The invoice id is filled in once the invoice is saved
+            lineArgs.add(new Object[]{null, product.id(), product.name(), line.getQuantity(), unitPrice, amount});
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Invoice invoice = new Invoice();
+        invoice.setParty(partyRepo.getReferenceById(partyId));
+        invoice.setInvoiceType(invoiceDTO.getInvoiceType());
+        invoice.setInvoiceDate(invoiceDTO.getInvoiceDate() != null ? invoiceDTO.getInvoiceDate() : LocalDate.now());
+        invoice.setReference(invoiceDTO.getReference());
+        invoice.setTotal(total);
+        invoice.setCreatedAt(now);
+        Invoice savedInvoice = invoiceRepo.save(invoice);
+        String movementReference = "INV-" + savedInvoice.getId();
+
+        List<Object[]> stockArgs = new ArrayList<>(quantities.size());
+        List<Object[]> movementArgs = new ArrayList<>(quantities.size());
+        Map<Integer, Integer> quantitiesAfter = new HashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            int change = sale ? -quantity : quantity;
+            int quantityAfter = products.get(productId).quantity() + change;
+            stockArgs.add(new Object[]{change, productId});
+            movementArgs.add(new Object[]{productId, change, quantityAfter, movementReference, now});
+            quantitiesAfter.put(productId, quantityAfter);
+        });
+        for (Object[] args : lineArgs) {
+            args[0] = savedInvoice.getId();
+        }
+        jdbcTemplate.batchUpdate(UPDATE_STOCK_SQL, stockArgs);
+        jdbcTemplate.batchUpdate(INSERT_MOVEMENT_SQL, movementArgs);
+        jdbcTemplate.batchUpdate(INSERT_LINE_SQL, lineArgs);
+
+        // Nothing is owed for an invoice of free goods
+        if (total.signum() > 0) {
+            LedgerEntryDTO entry = new LedgerEntryDTO();
+            entry.setEntryType(sale ? LedgerEntryType.DEBIT : LedgerEntryType.CREDIT);
+            entry.setAmount(total);
+            entry.setEntryDate(savedInvoice.getInvoiceDate());
+            entry.setReference(movementReference);
+            entry.setDescription((sale ? "Sale" : "Purchase") + " invoice " + savedInvoice.getId());
+            ledgerService.postEntry(partyId, entry);
+        }
+
+        // Surfaces any pending write error here, before the product changes are published on commit
+        invoiceRepo.flush();
+        quantitiesAfter.forEach((productId, quantityAfter) -> {
+            productCatalogCache.invalidateProduct(productId);
+            productSearchIndex.updateQuantity(productId, quantityAfter);
+        });
+        log.info("Invoice {} recorded for party {}: {} with {} lines, total {}",
+                savedInvoice.getId(), partyId, savedInvoice.getInvoiceType(), lineArgs.size(), total);
+        return toDTOWithLines(savedInvoice);
+    }
+
+    /**
+     * Locks the products, then the party balances, of invoices about to be recorded one after the other in the
+     * caller's transaction, which must be active. Recording them would otherwise lock them invoice by invoice, out
+     * of the id order every other invoice and stock movement follows.
+     *
+     * @param invoices The invoices to lock for.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = RuntimeException.class)
+    public void lockForInvoices(List<InvoiceDTO> invoices) {
+        Integer[] productIds = invoices.stream()
+                .flatMap(invoice -> invoice.getLines().stream())
+                .map(InvoiceLineDTO::getProductId)
+                .distinct()
+                .sorted()
+                .toArray(Integer[]::new);
+        Integer[] partyIds = invoices.stream()
+                .map(InvoiceDTO::getPartyId)
+                .distinct()
+                .sorted()
+                .toArray(Integer[]::new);
+        lockProducts(productIds);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOCK_BALANCES_SQL);
+            statement.setArray(1, connection.createArrayOf("integer", partyIds));
+            return statement;
+        }, resultSet -> {
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public InvoiceDTO getInvoiceById(Long invoiceId) {
+        Invoice invoice = invoiceRepo.findById(invoiceId).orElseThrow(
+                () -> new ResourceNotFoundException("Invoice", "id", invoiceId)
+        );
+        return toDTOWithLines(invoice);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<InvoiceDTO> getInvoices(Integer partyId, Pageable pageable) {
+        Page<Invoice> invoices = partyId == null
+                ? invoiceRepo.findAllByOrderByIdDesc(pageable)
+                : invoiceRepo.findByPartyIdOrderByIdDesc(partyId, pageable);
+        return invoices.map(invoiceMapper::toDTO);
+    }
+
+    private Map<Integer, LockedProduct> lockProducts(Integer[] productIds) {
+        Map<Integer, LockedProduct> products = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOCK_PRODUCTS_SQL);
+            statement.setArray(1, connection.createArrayOf("integer", productIds));
+            return statement;
+        }, resultSet -> {
+            LockedProduct product = new LockedProduct(resultSet.getInt("id"), resultSet.getString("name"),
+                    resultSet.getInt("quantity"), resultSet.getBigDecimal("purchase_price"), resultSet.getBigDecimal("selling_price"));
+            products.put(product.id(), product);
+        });
+        return products;
+    }
+
+    private InvoiceDTO toDTOWithLines(Invoice invoice) {
+        InvoiceDTO invoiceDTO = invoiceMapper.toDTO(invoice);
+        invoiceDTO.setLines(invoiceLineRepo.findByInvoiceIdOrderByIdAsc(invoice.getId()).stream()
+                .map(invoiceMapper::toDTO)
+                .toList());
+        return invoiceDTO;
+    }
+
+    private record LockedProduct(int id, String name, int quantity, BigDecimal purchasePrice, BigDecimal sellingPrice) {
+    }
+}
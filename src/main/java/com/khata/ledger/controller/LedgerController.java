@@ -0,0 +1,68 @@
+package com.khata.ledger.controller;
+
+import com.khata.ledger.dto.LedgerEntryDTO;
+import com.khata.ledger.dto.PartyAgingDTO;
+import com.khata.ledger.dto.PartyBalanceDTO;
+import com.khata.ledger.payload.AgingReport;
+import com.khata.ledger.service.LedgerService;
+import com.khata.party.entity.enums.PartyType;
+import com.khata.payload.ApiResponse;
+import com.khata.payload.PaginationResponse;
+import com.khata.utils.PaginationUtil;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/ledger")
+@AllArgsConstructor
+public class LedgerController {
+
+    private final LedgerService ledgerService;
+
+    @PostMapping("/party/{partyId}/entries")
+    @ResponseStatus(HttpStatus.CREATED)
+    public ResponseEntity<ApiResponse<LedgerEntryDTO>> postEntry(@PathVariable Integer partyId, @Valid @RequestBody LedgerEntryDTO entryDTO) {
+        LedgerEntryDTO entry = this.ledgerService.postEntry(partyId, entryDTO);
+        ApiResponse<LedgerEntryDTO> response = new ApiResponse<>(entry, HttpStatus.CREATED.value(), "Ledger Entry Posted Successfully");
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @GetMapping("/party/{partyId}/entries")
+    public ResponseEntity<ApiResponse<PaginationResponse<LedgerEntryDTO>>> getEntries(@PathVariable Integer partyId, Pageable pageable) {
+        Page<LedgerEntryDTO> entries = this.ledgerService.getEntries(partyId, pageable);
+        return ResponseEntity.ok(new ApiResponse<>(PaginationUtil.buildPaginationResponse(entries), HttpStatus.OK.value()));
+    }
+
+    @GetMapping("/party/{partyId}/balance")
+    public ResponseEntity<ApiResponse<PartyBalanceDTO>> getBalance(@PathVariable Integer partyId) {
+        PartyBalanceDTO balance = this.ledgerService.getBalance(partyId);
+        return ResponseEntity.ok(new ApiResponse<>(balance, HttpStatus.OK.value()));
+    }
+
+    @GetMapping("/balances")
+    public ResponseEntity<ApiResponse<PaginationResponse<PartyBalanceDTO>>> getBalances(
+            @RequestParam(required = false) PartyType partyType,
+            Pageable pageable) {
+        Page<PartyBalanceDTO> balances = this.ledgerService.getBalances(partyType, pageable);
+        return ResponseEntity.ok(new ApiResponse<>(PaginationUtil.buildPaginationResponse(balances), HttpStatus.OK.value()));
+    }
+
+    @GetMapping("/aging")
+    public ResponseEntity<ApiResponse<AgingReport>> getAgingReport() {
+        AgingReport report = this.ledgerService.getAgingReport();
+        return ResponseEntity.ok(new ApiResponse<>(report, HttpStatus.OK.value()));
+    }
+
+    @GetMapping("/aging/parties")
+    public ResponseEntity<ApiResponse<PaginationResponse<PartyAgingDTO>>> getPartyAging(
+            @RequestParam(required = false) PartyType partyType,
+            Pageable pageable) {
+        Page<PartyAgingDTO> aging = this.ledgerService.getPartyAging(partyType, pageable);
+        return ResponseEntity.ok(new ApiResponse<>(PaginationUtil.buildPaginationResponse(aging), HttpStatus.OK.value()));
+    }
+}
@@ -0,0 +1,33 @@
+package com.khata.ledger.dto;
+
+import com.khata.party.entity.enums.PartyType;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class AgingSummaryDTO {
+    private PartyType partyType;
+    private BigDecimal days0To30;
+    private BigDecimal days31To60;
+    private BigDecimal days61To90;
+    private BigDecimal over90Days;
+    private BigDecimal total;
+    private long partyCount;
+
+    // Used by JPQL constructor expressions
+    public AgingSummaryDTO(PartyType partyType, BigDecimal days0To30, BigDecimal days31To60, BigDecimal days61To90,
+                           BigDecimal over90Days, Long partyCount) {
+        this.partyType = partyType;
+        this.days0To30 = days0To30;
+        this.days31To60 = days31To60;
+        this.days61To90 = days61To90;
+        this.over90Days = over90Days;
+        this.total = days0To30.add(days31To60).add(days61To90).add(over90Days);
+        this.partyCount = partyCount;
+    }
+}
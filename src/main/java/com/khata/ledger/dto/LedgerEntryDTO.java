@@ -0,0 +1,44 @@
+package com.khata.ledger.dto;
+
+import com.khata.ledger.entity.enums.LedgerEntryType;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class LedgerEntryDTO {
+    private Long id;
+
+    private Integer partyId;
+
+    @NotNull(message = "Entry type cannot be null")
+    private LedgerEntryType entryType;
+
+    @NotNull(message = "Amount cannot be null")
+    @DecimalMin(value = "0.01", message = "Amount must be greater than 0")
+    @Digits(integer = 17, fraction = 2, message = "Amount must have at most 2 decimal places")
+    private BigDecimal amount;
+
+    // Defaults to today when not given
+    private LocalDate entryDate;
+
+    @Size(max = 100, message = "Reference must be less than 100 characters")
+    private String reference;
+
+    @Size(max = 255, message = "Description must be less than 255 characters")
+    private String description;
+
+    private BigDecimal balanceAfter;
+
+    private LocalDateTime createdAt;
+}
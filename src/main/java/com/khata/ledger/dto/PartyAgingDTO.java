@@ -0,0 +1,33 @@
+package com.khata.ledger.dto;
+
+import com.khata.party.entity.enums.PartyType;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class PartyAgingDTO {
+    private Integer partyId;
+    private String name;
+    private PartyType partyType;
+    private BigDecimal days0To30;
+    private BigDecimal days31To60;
+    private BigDecimal days61To90;
+    private BigDecimal over90Days;
+
+    // Used by JPQL constructor expressions
+    public PartyAgingDTO(Integer partyId, String name, PartyType partyType, BigDecimal days0To30, BigDecimal days31To60,
+                         BigDecimal days61To90, BigDecimal over90Days) {
+        this.partyId = partyId;
+        this.name = name;
+        this.partyType = partyType;
+        this.days0To30 = days0To30;
+        this.days31To60 = days31To60;
+        this.days61To90 = days61To90;
+        this.over90Days = over90Days;
+    }
+}
@@ -0,0 +1,33 @@
+package com.khata.ledger.dto;
+
+import com.khata.party.entity.enums.PartyType;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class PartyBalanceDTO {
+    private Integer partyId;
+    private String name;
+    private PartyType partyType;
+    private BigDecimal balance;
+    private BigDecimal totalDebit;
+    private BigDecimal totalCredit;
+    private long entryCount;
+
+    // Used by JPQL constructor expressions; a party without entries has no balance row and reads as zero
+    public PartyBalanceDTO(Integer partyId, String name, PartyType partyType, BigDecimal balance, BigDecimal totalDebit,
+                           BigDecimal totalCredit, Long entryCount) {
+        this.partyId = partyId;
+        this.name = name;
+        this.partyType = partyType;
+        this.balance = balance == null ? BigDecimal.ZERO : balance;
+        this.totalDebit = totalDebit == null ? BigDecimal.ZERO : totalDebit;
+        this.totalCredit = totalCredit == null ? BigDecimal.ZERO : totalCredit;
+        this.entryCount = entryCount == null ? 0 : entryCount;
+    }
+}
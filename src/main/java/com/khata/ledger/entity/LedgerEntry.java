@@ -0,0 +1,56 @@
+package com.khata.ledger.entity;
+
+import com.khata.ledger.entity.enums.LedgerEntryType;
+import com.khata.party.entity.Party;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One posting to a party's account. Entries are never updated or deleted; a mistake is corrected by posting
+ * an opposite entry.
+ */
+@NoArgsConstructor
+@Entity
+@Immutable
+@Getter
+@Setter
+@Table(name = "ledger_entry", indexes = {@Index(columnList = "party_id, id")})
+public class LedgerEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "party_id", nullable = false)
+    private Party party;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private LedgerEntryType entryType;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private LocalDate entryDate;
+
+    @Column(length = 100)
+    private String reference;
+
+    @Column(length = 255)
+    private String description;
+
+    // The party's balance right after this entry, in posting order
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balanceAfter;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,40 @@
+package com.khata.ledger.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * The unsettled part of a ledger entry. Entries on the opposite side settle a party's open items oldest first,
+ * so all open items of a party have the same sign and add up to its balance.
+ */
+@NoArgsConstructor
+@Entity
+@Getter
+@Setter
+@Table(name = "ledger_open_item", indexes = {
+        @Index(columnList = "partyId, entryDate, id"),
+        @Index(columnList = "entryDate")
+})
+public class LedgerOpenItem {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Integer partyId;
+
+    @Column(nullable = false)
+    private Long entryId;
+
+    @Column(nullable = false)
+    private LocalDate entryDate;
+
+    // Positive when owed to the shop, negative when owed by the shop
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal remaining;
+}
@@ -0,0 +1,39 @@
+package com.khata.ledger.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A party's open balance split by the age of its open items. Amounts are signed like the balance.
+ * Parties without open items have no row.
+ */
+@NoArgsConstructor
+@Entity
+@Getter
+@Setter
+@Table(name = "party_aging")
+public class PartyAging {
+    @Id
+    private Integer partyId;
+
+    @Column(name = "days_0_30", nullable = false, precision = 19, scale = 2)
+    private BigDecimal days0To30;
+
+    @Column(name = "days_31_60", nullable = false, precision = 19, scale = 2)
+    private BigDecimal days31To60;
+
+    @Column(name = "days_61_90", nullable = false, precision = 19, scale = 2)
+    private BigDecimal days61To90;
+
+    @Column(name = "over_90_days", nullable = false, precision = 19, scale = 2)
+    private BigDecimal over90Days;
+
+    // The day the buckets were computed for
+    @Column(nullable = false)
+    private LocalDate asOf;
+}
@@ -0,0 +1,38 @@
+package com.khata.ledger.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Running totals of a party's ledger, maintained by every posting in the same transaction as the entry, so
+ * balances are read without summing the history. Parties without entries have no row.
+ */
+@NoArgsConstructor
+@Entity
+@Getter
+@Setter
+@Table(name = "party_balance")
+public class PartyBalance {
+    @Id
+    private Integer partyId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalDebit;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalCredit;
+
+    @Column(nullable = false)
+    private long entryCount;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
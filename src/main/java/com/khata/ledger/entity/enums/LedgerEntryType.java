@@ -0,0 +1,12 @@
+package com.khata.ledger.entity.enums;
+
+/**
+ * Side of a party's account an entry is posted to. The balance is debits minus credits, so a positive
+ * balance is owed to the shop (receivable) and a negative one is owed by the shop (payable).
+ */
+public enum LedgerEntryType {
+    // Goods sold or money given to the party, or a payment made to a vendor
+    DEBIT,
+    // A payment received from the party, or goods bought from a vendor on credit
+    CREDIT
+}
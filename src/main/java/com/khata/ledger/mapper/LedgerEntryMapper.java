@@ -0,0 +1,21 @@
+package com.khata.ledger.mapper;
+
+import com.khata.config.MapperConfiguration;
+import com.khata.ledger.dto.LedgerEntryDTO;
+import com.khata.ledger.entity.LedgerEntry;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(config = MapperConfiguration.class)
+public interface LedgerEntryMapper {
+
+    @Mapping(target = "partyId", source = "party.id")
+    LedgerEntryDTO toDTO(LedgerEntry entry);
+
+    // The party, running balance and timestamps are set by the service, never taken from the request
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "party", ignore = true)
+    @Mapping(target = "balanceAfter", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    LedgerEntry toEntity(LedgerEntryDTO entryDTO);
+}
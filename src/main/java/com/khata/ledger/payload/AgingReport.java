@@ -0,0 +1,16 @@
+package com.khata.ledger.payload;
+
+import com.khata.ledger.dto.AgingSummaryDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@AllArgsConstructor
+@Data
+public class AgingReport {
+    private LocalDate asOf;
+    // One row per party type that has open balances
+    private List<AgingSummaryDTO> summaries;
+}
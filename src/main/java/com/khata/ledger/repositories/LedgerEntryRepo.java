@@ -0,0 +1,14 @@
+package com.khata.ledger.repositories;
+
+import com.khata.ledger.entity.LedgerEntry;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface LedgerEntryRepo extends JpaRepository<LedgerEntry, Long> {
+
+    // Newest first, read through the (party_id, id) index
+    Page<LedgerEntry> findByPartyIdOrderByIdDesc(Integer partyId, Pageable pageable);
+
+    boolean existsByPartyId(Integer partyId);
+}
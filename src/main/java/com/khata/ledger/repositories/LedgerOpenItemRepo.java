@@ -0,0 +1,20 @@
+package com.khata.ledger.repositories;
+
+import com.khata.ledger.entity.LedgerOpenItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface LedgerOpenItemRepo extends JpaRepository<LedgerOpenItem, Long> {
+
+    // Oldest first, the order in which they are settled
+    List<LedgerOpenItem> findByPartyIdOrderByEntryDateAscIdAsc(Integer partyId);
+
+    @Query("select distinct o.partyId from LedgerOpenItem o where o.entryDate between :from and :to")
+    List<Integer> findPartyIdsWithItemsDatedBetween(LocalDate from, LocalDate to);
+
+    @Query("select distinct o.partyId from LedgerOpenItem o")
+    List<Integer> findPartyIdsWithOpenItems();
+}
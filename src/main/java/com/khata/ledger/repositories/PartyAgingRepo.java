@@ -0,0 +1,27 @@
+package com.khata.ledger.repositories;
+
+import com.khata.ledger.dto.AgingSummaryDTO;
+import com.khata.ledger.dto.PartyAgingDTO;
+import com.khata.ledger.entity.PartyAging;
+import com.khata.party.entity.enums.PartyType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface PartyAgingRepo extends JpaRepository<PartyAging, Integer> {
+
+    @Query("select new com.khata.ledger.dto.AgingSummaryDTO(p.partyType, sum(a.days0To30), sum(a.days31To60), " +
+            "sum(a.days61To90), sum(a.over90Days), count(a)) " +
+            "from PartyAging a join Party p on p.id = a.partyId group by p.partyType")
+    List<AgingSummaryDTO> summarize();
+
+    @Query(value = "select new com.khata.ledger.dto.PartyAgingDTO(p.id, p.name, p.partyType, a.days0To30, a.days31To60, " +
+            "a.days61To90, a.over90Days) " +
+            "from PartyAging a join Party p on p.id = a.partyId where :partyType is null or p.partyType = :partyType",
+            countQuery = "select count(a) from PartyAging a join Party p on p.id = a.partyId " +
+                    "where :partyType is null or p.partyType = :partyType")
+    Page<PartyAgingDTO> findPartyAging(PartyType partyType, Pageable pageable);
+}
@@ -0,0 +1,44 @@
+package com.khata.ledger.repositories;
+
+import com.khata.ledger.dto.PartyBalanceDTO;
+import com.khata.ledger.entity.PartyBalance;
+import com.khata.party.entity.enums.PartyType;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface PartyBalanceRepo extends JpaRepository<PartyBalance, Integer> {
+
+    // Adds one entry to the party's totals, creating the row on its first entry, and returns the new balance.
+    // The row lock taken by the upsert serializes concurrent postings to the same party, so none is lost
+    @Query(value = "INSERT INTO party_balance (party_id, balance, total_debit, total_credit, entry_count, updated_at) " +
+            "VALUES (:partyId, :debit - :credit, :debit, :credit, 1, :now) " +
+            "ON CONFLICT (party_id) DO UPDATE SET " +
+            "balance = party_balance.balance + EXCLUDED.balance, " +
+            "total_debit = party_balance.total_debit + EXCLUDED.total_debit, " +
+            "total_credit = party_balance.total_credit + EXCLUDED.total_credit, " +
+            "entry_count = party_balance.entry_count + 1, " +
+            "updated_at = EXCLUDED.updated_at " +
+            "RETURNING balance", nativeQuery = true)
+    BigDecimal post(Integer partyId, BigDecimal debit, BigDecimal credit, LocalDateTime now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from PartyBalance b where b.partyId = :partyId")
+    Optional<PartyBalance> lockByPartyId(Integer partyId);
+
+    @Query("select new com.khata.ledger.dto.PartyBalanceDTO(p.id, p.name, p.partyType, b.balance, b.totalDebit, b.totalCredit, b.entryCount) " +
+            "from Party p left join PartyBalance b on b.partyId = p.id where p.id = :partyId")
+    Optional<PartyBalanceDTO> findBalance(Integer partyId);
+
+    @Query(value = "select new com.khata.ledger.dto.PartyBalanceDTO(p.id, p.name, p.partyType, b.balance, b.totalDebit, b.totalCredit, b.entryCount) " +
+            "from Party p left join PartyBalance b on b.partyId = p.id where :partyType is null or p.partyType = :partyType",
+            countQuery = "select count(p) from Party p where :partyType is null or p.partyType = :partyType")
+    Page<PartyBalanceDTO> findBalances(PartyType partyType, Pageable pageable);
+}
@@ -0,0 +1,171 @@
+package com.khata.ledger.service;
+
+import com.khata.ledger.entity.LedgerEntry;
+import com.khata.ledger.entity.LedgerOpenItem;
+import com.khata.ledger.entity.PartyAging;
+import com.khata.ledger.entity.enums.LedgerEntryType;
+import com.khata.ledger.repositories.LedgerOpenItemRepo;
+import com.khata.ledger.repositories.PartyAgingRepo;
+import com.khata.ledger.repositories.PartyBalanceRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Keeps each party's balance split into aging buckets of 0-30, 31-60, 61-90 and over 90 days.
+ * <p>
+ * Every posting settles the party's open items first in, first out and recomputes that party's buckets from its
+ * open items only, never from the full history. Once a day the buckets are rolled forward, but only for parties
+ * with an open item that crossed a bucket boundary since the last run.
+ */
+@Component
+@Slf4j
+public class AgingEngine {
+
+    private static final int[] BUCKET_LIMITS_DAYS = {30, 60, 90};
+
+    private final LedgerOpenItemRepo openItemRepo;
+    private final PartyAgingRepo partyAgingRepo;
+    private final PartyBalanceRepo partyBalanceRepo;
+    private final TransactionTemplate transactionTemplate;
+    // Null until the first rollover, which recomputes every party because the node may have been down for days
+    private volatile LocalDate lastRollover;
+
+    public AgingEngine(LedgerOpenItemRepo openItemRepo, PartyAgingRepo partyAgingRepo, PartyBalanceRepo partyBalanceRepo,
+                       PlatformTransactionManager transactionManager) {
+        this.openItemRepo = openItemRepo;
+        this.partyAgingRepo = partyAgingRepo;
+        this.partyBalanceRepo = partyBalanceRepo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Settles the party's open items with a new entry and updates the party's buckets. Must run in the posting
+     * transaction after the party's balance row was locked, so postings to one party are applied one at a time.
+     *
+     * @param entry The entry that was just posted.
+     */
+    public void apply(LedgerEntry entry) {
+        Integer partyId = entry.getParty().getId();
+        BigDecimal rest = entry.getEntryType() == LedgerEntryType.DEBIT ? entry.getAmount() : entry.getAmount().negate();
+        List<LedgerOpenItem> openItems = new ArrayList<>(openItemRepo.findByPartyIdOrderByEntryDateAscIdAsc(partyId));
+
+        Iterator<LedgerOpenItem> iterator = openItems.iterator();
+        while (rest.signum() != 0 && iterator.hasNext()) {
+            LedgerOpenItem item = iterator.next();
+            if (item.getRemaining().signum() == rest.signum()) {
+                // Open items all share one sign, so the entry settles nothing
+                break;
+            }
+            BigDecimal remaining = item.getRemaining().add(rest);
+            if (remaining.signum() == rest.signum() || remaining.signum() == 0) {
+                rest = remaining;
+                iterator.remove();
+                openItemRepo.delete(item);
+            } else {
+                item.setRemaining(remaining);
+                rest = BigDecimal.ZERO;
+            }
+        }
+        if (rest.signum() != 0) {
+            LedgerOpenItem item = new LedgerOpenItem();
+            item.setPartyId(partyId);
+            item.setEntryId(entry.getId());
+            item.setEntryDate(entry.getEntryDate());
+            item.setRemaining(rest);
+            openItems.add(openItemRepo.save(item));
+        }
+        updateBuckets(partyId, openItems, LocalDate.now());
+    }
+
+    /**
+     * Moves amounts to older buckets for the parties whose open items crossed a bucket boundary since the last run.
+     */
+    @Scheduled(cron = "${ledger.aging.rollover-cron:0 5 0 * * *}")
+    public void rollover() {
+        rollover(LocalDate.now());
+    }
+
+    /**
+     * Rolls the buckets forward to the given day, recomputing the parties whose open items crossed a bucket boundary
+     * since the last run. Does nothing if the buckets are already as of that day.
+     *
+     * @param today The day to age the open items at.
+     */
+    public void rollover(LocalDate today) {
+        LocalDate since = lastRollover;
+        if (since != null && !since.isBefore(today)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<Integer> partyIds;
+        if (since == null) {
+            partyIds = openItemRepo.findPartyIdsWithOpenItems();
+        } else {
+            // An item dated d is older than `limit` days on day t when t - d > limit, so the items that crossed
+            // a limit after `since` up to today are the ones dated from since - limit to today - limit - 1
+            partyIds = new ArrayList<>();
+            for (int limit : BUCKET_LIMITS_DAYS) {
+                partyIds.addAll(openItemRepo.findPartyIdsWithItemsDatedBetween(
+                        since.minusDays(limit), today.minusDays(limit + 1)));
+            }
+        }
+        // One short transaction per party, in id order, so the rollover holds one balance lock at a time and never
+        // waits on postings while holding the locks of other parties
+        partyIds = partyIds.stream().distinct().sorted().toList();
+        for (Integer partyId : partyIds) {
+            transactionTemplate.executeWithoutResult(status -> recompute(partyId, today));
+        }
+        lastRollover = today;
+        log.info("Aging rollover for {} recomputed {} parties in {} ms", today, partyIds.size(), System.currentTimeMillis() - start);
+    }
+
+    private void recompute(Integer partyId, LocalDate today) {
+        // Takes the lock postings take, so a concurrent posting is not overwritten with older buckets
+        if (partyBalanceRepo.lockByPartyId(partyId).isEmpty()) {
+            return;
+        }
+        updateBuckets(partyId, openItemRepo.findByPartyIdOrderByEntryDateAscIdAsc(partyId), today);
+    }
+
+    private void updateBuckets(Integer partyId, List<LedgerOpenItem> openItems, LocalDate today) {
+        if (openItems.isEmpty()) {
+            partyAgingRepo.findById(partyId).ifPresent(partyAgingRepo::delete);
+            return;
+        }
+        BigDecimal[] buckets = {BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO};
+        for (LedgerOpenItem item : openItems) {
+            int bucket = bucketOf(ChronoUnit.DAYS.between(item.getEntryDate(), today));
+            buckets[bucket] = buckets[bucket].add(item.getRemaining());
+        }
+        PartyAging aging = partyAgingRepo.findById(partyId).orElseGet(() -> {
+            PartyAging created = new PartyAging();
+            created.setPartyId(partyId);
+            return created;
+        });
+        aging.setDays0To30(buckets[0]);
+        aging.setDays31To60(buckets[1]);
+        aging.setDays61To90(buckets[2]);
+        aging.setOver90Days(buckets[3]);
+        aging.setAsOf(today);
+        partyAgingRepo.save(aging);
+    }
+
+    private static int bucketOf(long ageDays) {
+        for (int i = 0; i < BUCKET_LIMITS_DAYS.length; i++) {
+            if (ageDays <= BUCKET_LIMITS_DAYS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_LIMITS_DAYS.length;
+    }
+}
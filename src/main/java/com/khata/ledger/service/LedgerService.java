@@ -0,0 +1,18 @@
+package com.khata.ledger.service;
+
+import com.khata.ledger.dto.LedgerEntryDTO;
+import com.khata.ledger.dto.PartyAgingDTO;
+import com.khata.ledger.dto.PartyBalanceDTO;
+import com.khata.ledger.payload.AgingReport;
+import com.khata.party.entity.enums.PartyType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface LedgerService {
+    LedgerEntryDTO postEntry(Integer partyId, LedgerEntryDTO entryDTO);
+    Page<LedgerEntryDTO> getEntries(Integer partyId, Pageable pageable);
+    PartyBalanceDTO getBalance(Integer partyId);
+    Page<PartyBalanceDTO> getBalances(PartyType partyType, Pageable pageable);
+    AgingReport getAgingReport();
+    Page<PartyAgingDTO> getPartyAging(PartyType partyType, Pageable pageable);
+}
@@ -0,0 +1,112 @@
+package com.khata.ledger.service.impl;
+
+import com.khata.exceptions.ResourceNotFoundException;
+import com.khata.ledger.dto.LedgerEntryDTO;
+import com.khata.ledger.dto.PartyAgingDTO;
+import com.khata.ledger.dto.PartyBalanceDTO;
+import com.khata.ledger.entity.LedgerEntry;
+import com.khata.ledger.entity.enums.LedgerEntryType;
+import com.khata.ledger.mapper.LedgerEntryMapper;
+import com.khata.ledger.payload.AgingReport;
+import com.khata.ledger.repositories.LedgerEntryRepo;
+import com.khata.ledger.repositories.PartyAgingRepo;
+import com.khata.ledger.repositories.PartyBalanceRepo;
+import com.khata.ledger.service.AgingEngine;
+import com.khata.ledger.service.LedgerService;
+import com.khata.party.entity.enums.PartyType;
+import com.khata.party.repositories.PartyRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Service
+@Slf4j
+public class LedgerServiceImpl implements LedgerService {
+
+    private final LedgerEntryRepo ledgerEntryRepo;
+    private final PartyBalanceRepo partyBalanceRepo;
+    private final PartyAgingRepo partyAgingRepo;
+    private final PartyRepo partyRepo;
+    private final AgingEngine agingEngine;
+    private final LedgerEntryMapper ledgerEntryMapper;
+
+    public LedgerServiceImpl(LedgerEntryRepo ledgerEntryRepo, PartyBalanceRepo partyBalanceRepo, PartyAgingRepo partyAgingRepo,
+                             PartyRepo partyRepo, AgingEngine agingEngine, LedgerEntryMapper ledgerEntryMapper) {
+        this.ledgerEntryRepo = ledgerEntryRepo;
+        this.partyBalanceRepo = partyBalanceRepo;
+        this.partyAgingRepo = partyAgingRepo;
+        this.partyRepo = partyRepo;
+        this.agingEngine = agingEngine;
+        this.ledgerEntryMapper = ledgerEntryMapper;
+    }
+
+    /**
+     * Appends an entry to the party's ledger and updates the party's balance and aging buckets in the same transaction.
+     *
+     * @param partyId  The id of the party.
+     * @param entryDTO The entry to post.
+     * @return The posted entry with the party's balance after it.
+     */
+    @Override
+    @Transactional
+    public LedgerEntryDTO postEntry(Integer partyId, LedgerEntryDTO entryDTO) {
+        if (!partyRepo.existsById(partyId)) {
+            throw new ResourceNotFoundException("Party", "id", partyId);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        BigDecimal amount = entryDTO.getAmount();
+        boolean debit = entryDTO.getEntryType() == LedgerEntryType.DEBIT;
+        // Balance first: the upsert locks the balance row, so entries of one party get their running balances in order
+        BigDecimal balance = partyBalanceRepo.post(partyId, debit ? amount : BigDecimal.ZERO, debit ? BigDecimal.ZERO : amount, now);
+
+        LedgerEntry entry = ledgerEntryMapper.toEntity(entryDTO);
+        entry.setParty(partyRepo.getReferenceById(partyId));
+        if (entry.getEntryDate() == null) {
+            entry.setEntryDate(LocalDate.now());
+        }
+        entry.setBalanceAfter(balance);
+        entry.setCreatedAt(now);
+        LedgerEntry savedEntry = ledgerEntryRepo.save(entry);
+        agingEngine.apply(savedEntry);
+        log.info("Ledger entry {} posted to party {}: {} {}", savedEntry.getId(), partyId, entry.getEntryType(), amount);
+        return ledgerEntryMapper.toDTO(savedEntry);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<LedgerEntryDTO> getEntries(Integer partyId, Pageable pageable) {
+        return ledgerEntryRepo.findByPartyIdOrderByIdDesc(partyId, pageable).map(ledgerEntryMapper::toDTO);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PartyBalanceDTO getBalance(Integer partyId) {
+        return partyBalanceRepo.findBalance(partyId).orElseThrow(
+                () -> new ResourceNotFoundException("Party", "id", partyId)
+        );
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<PartyBalanceDTO> getBalances(PartyType partyType, Pageable pageable) {
+        return partyBalanceRepo.findBalances(partyType, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AgingReport getAgingReport() {
+        return new AgingReport(LocalDate.now(), partyAgingRepo.summarize());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<PartyAgingDTO> getPartyAging(PartyType partyType, Pageable pageable) {
+        return partyAgingRepo.findPartyAging(partyType, pageable);
+    }
+}
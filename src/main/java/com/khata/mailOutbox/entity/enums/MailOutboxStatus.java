@@ -0,0 +1,8 @@
+package com.khata.mailOutbox.entity.enums;
+
+public enum MailOutboxStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    DEAD
+}
@@ -0,0 +1,49 @@
+package com.khata.mailOutbox.repositories;
+
+import com.khata.mailOutbox.entity.MailOutbox;
+import com.khata.mailOutbox.entity.enums.MailOutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface MailOutboxRepo extends JpaRepository<MailOutbox, Long> {
+
+    // Rows locked by another dispatcher are skipped instead of waited on
+    @Query(value = "SELECT * FROM mail_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<MailOutbox> lockDueBatch(LocalDateTime now, int limit);
+
+    @Modifying
+    @Query("update MailOutbox m set m.status = :status, m.claimedAt = :now where m.id in :ids")
+    int markClaimed(Collection<Long> ids, MailOutboxStatus status, LocalDateTime now);
+
+    // Matching the claim time leaves rows alone that were released as stale and claimed again since
+    @Modifying
+    @Query("update MailOutbox m set m.status = com.khata.mailOutbox.entity.enums.MailOutboxStatus.SENT, " +
+            "m.sentAt = :now, m.attempts = m.attempts + 1, m.lastError = null where m.id in :ids " +
+            "and m.status = com.khata.mailOutbox.entity.enums.MailOutboxStatus.SENDING and m.claimedAt = :claimedAt")
+    int markSent(Collection<Long> ids, LocalDateTime now, LocalDateTime claimedAt);
+
+    @Modifying
+    @Query("update MailOutbox m set m.status = :status, m.attempts = :attempts, m.nextAttemptAt = :nextAttemptAt, " +
+            "m.lastError = :lastError where m.id = :id " +
+            "and m.status = com.khata.mailOutbox.entity.enums.MailOutboxStatus.SENDING and m.claimedAt = :claimedAt")
+    int markFailed(Long id, MailOutboxStatus status, int attempts, LocalDateTime nextAttemptAt, String lastError,
+                   LocalDateTime claimedAt);
+
+    // Messages claimed by a node that died before reporting back are handed out again
+    @Modifying
+    @Query("update MailOutbox m set m.status = com.khata.mailOutbox.entity.enums.MailOutboxStatus.PENDING " +
+            "where m.status = com.khata.mailOutbox.entity.enums.MailOutboxStatus.SENDING and m.claimedAt < :before")
+    int releaseStaleClaims(LocalDateTime before);
+
+    // Sent messages still hold their bodies, including one-time codes, so they are not kept around
+    @Modifying
+    @Query(value = "DELETE FROM mail_outbox WHERE id IN (" +
+            "SELECT id FROM mail_outbox WHERE status = 'SENT' AND sent_at < :before LIMIT :limit)", nativeQuery = true)
+    int deleteSentBatch(LocalDateTime before, int limit);
+}
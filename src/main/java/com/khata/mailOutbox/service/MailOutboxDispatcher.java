@@ -0,0 +1,254 @@
+package com.khata.mailOutbox.service;
+
+import com.khata.mailOutbox.entity.MailOutbox;
+import com.khata.mailOutbox.entity.enums.MailOutboxStatus;
+import com.khata.mailOutbox.repositories.MailOutboxRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background sender for the mail outbox.
+ * <p>
+ * Each run claims a batch of due messages with {@code FOR UPDATE SKIP LOCKED}, so several nodes can
+ * dispatch concurrently without sending a message twice, and commits the claim before talking to the
+ * mail server. Failed sends are retried with exponential backoff and end up in the {@code DEAD} state
+ * after the maximum number of attempts. Sent messages are deleted once they are older than
+ * {@code mail.outbox.sent-retention}.
+ * <p>
+ * A claim is only considered stale once the whole batch could have timed out against the mail server,
+ * so a slow but live sender never has its messages handed out again. Should it happen anyway, the sender's
+ * late report only applies to rows still carrying its claim time.
+ * <p>
+ * The outbox jobs run on a thread of their own rather than the shared {@code @Scheduled} pool, so a slow
+ * mail server cannot hold up the key ring refresh or the other scheduled jobs.
+ */
+@Component
+@Slf4j
+public class MailOutboxDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final MailOutboxRepo mailOutboxRepo;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final Duration claimTimeout;
+    private final Duration sentRetention;
+    private final int purgeBatchSize;
+    private final long pollIntervalMillis;
+    private final long claimTimeoutCheckIntervalMillis;
+    private final long purgeIntervalMillis;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mail-outbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MailOutboxDispatcher(
+            MailOutboxRepo mailOutboxRepo,
+            JavaMailSender mailSender,
+            PlatformTransactionManager transactionManager,
+            @Value("${mail.outbox.batch-size:50}") int batchSize,
+            @Value("${mail.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${mail.outbox.base-backoff:30s}") Duration baseBackoff,
+            @Value("${mail.outbox.max-backoff:1h}") Duration maxBackoff,
+            @Value("${mail.outbox.sent-retention:1d}") Duration sentRetention,
+            @Value("${mail.outbox.purge-batch-size:1000}") int purgeBatchSize,
+            @Value("${mail.outbox.poll-interval:1000}") long pollIntervalMillis,
+            @Value("${mail.outbox.claim-timeout-check-interval:60000}") long claimTimeoutCheckIntervalMillis,
+            @Value("${mail.outbox.purge-interval:3600000}") long purgeIntervalMillis,
+            @Value("${spring.mail.properties.mail.smtp.connectiontimeout:5000}") long connectionTimeoutMillis,
+            @Value("${spring.mail.properties.mail.smtp.timeout:5000}") long readTimeoutMillis,
+            @Value("${spring.mail.properties.mail.smtp.writetimeout:5000}") long writeTimeoutMillis) {
+        this.mailOutboxRepo = mailOutboxRepo;
+        this.mailSender = mailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = baseBackoff;
+        this.maxBackoff = maxBackoff;
+        this.sentRetention = sentRetention;
+        this.purgeBatchSize = purgeBatchSize;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.claimTimeoutCheckIntervalMillis = claimTimeoutCheckIntervalMillis;
+        this.purgeIntervalMillis = purgeIntervalMillis;
+        this.claimTimeout = claimTimeout(batchSize, connectionTimeoutMillis + readTimeoutMillis + writeTimeoutMillis);
+        log.info("Mail outbox claims expire after {}", claimTimeout);
+    }
+
+    /**
+     * Worst case time a batch can spend against an unresponsive mail server, doubled as a safety margin.
+     * Each message opens its own connection and may hit the connect, read and write timeouts once.
+     */
+    static Duration claimTimeout(int batchSize, long perMessageTimeoutMillis) {
+        return Duration.ofMillis(2L * batchSize * perMessageTimeoutMillis);
+    }
+
+    @PostConstruct
+    public void start() {
+        schedule(this::dispatch, pollIntervalMillis);
+        schedule(this::releaseStaleClaims, claimTimeoutCheckIntervalMillis);
+        schedule(this::purgeSent, purgeIntervalMillis);
+    }
+
+    /**
+     * Stops the outbox jobs, letting a batch that is being sent finish.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        scheduler.shutdown();
+        if (!scheduler.awaitTermination(claimTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Sends due messages until the outbox has no more due work or a batch comes back short.
+     */
+    public void dispatch() {
+        Claim claim;
+        do {
+            claim = claimBatch();
+            if (!claim.messages().isEmpty()) {
+                sendBatch(claim);
+            }
+        } while (claim.messages().size() == batchSize);
+    }
+
+    /**
+     * Returns messages whose sender died mid-batch to the queue.
+     */
+    public void releaseStaleClaims() {
+        Integer released = transactionTemplate.execute(status ->
+                mailOutboxRepo.releaseStaleClaims(LocalDateTime.now().minus(claimTimeout)));
+        if (released != null && released > 0) {
+            log.warn("Released {} stale mail outbox claim(s)", released);
+        }
+    }
+
+    /**
+     * Deletes sent messages older than the retention in chunks of {@code mail.outbox.purge-batch-size},
+     * each in its own transaction, until none are left.
+     */
+    public void purgeSent() {
+        LocalDateTime before = LocalDateTime.now().minus(sentRetention);
+        int total = 0;
+        Integer deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> mailOutboxRepo.deleteSentBatch(before, purgeBatchSize));
+            total += deleted == null ? 0 : deleted;
+        } while (deleted != null && deleted == purgeBatchSize);
+        if (total > 0) {
+            log.info("Purged {} sent mail outbox message(s)", total);
+        }
+    }
+
+    /**
+     * Runs the job with a fixed delay between runs. A failed run is logged and does not cancel the next ones.
+     */
+    private void schedule(Runnable job, long delayMillis) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                job.run();
+            } catch (RuntimeException e) {
+                log.error("Mail outbox job failed", e);
+            }
+        }, delayMillis, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private Claim claimBatch() {
+        return transactionTemplate.execute(status -> {
+            // Stored with the microsecond precision of the column, so reports can match it exactly
+            LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            List<MailOutbox> due = mailOutboxRepo.lockDueBatch(now, batchSize);
+            if (!due.isEmpty()) {
+                mailOutboxRepo.markClaimed(due.stream().map(MailOutbox::getId).toList(), MailOutboxStatus.SENDING, now);
+            }
+            return new Claim(due, now);
+        });
+    }
+
+    private void sendBatch(Claim claim) {
+        List<MailOutbox> batch = claim.messages();
+        List<Long> sent = new ArrayList<>(batch.size());
+        List<MailOutbox> failed = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+
+        for (MailOutbox message : batch) {
+            try {
+                send(message);
+                sent.add(message.getId());
+            } catch (Exception e) {
+                log.warn("Failed to send mail {} to {}: {}", message.getId(), message.getRecipient(), e.getMessage());
+                failed.add(message);
+                errors.add(e.getMessage());
+            }
+        }
+
+        Integer recorded = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            int rows = sent.isEmpty() ? 0 : mailOutboxRepo.markSent(sent, now, claim.claimedAt());
+            for (int i = 0; i < failed.size(); i++) {
+                rows += recordFailure(failed.get(i), errors.get(i), now, claim.claimedAt());
+            }
+            return rows;
+        });
+        if (recorded != null && recorded < batch.size()) {
+            log.warn("{} mail outbox message(s) were claimed again before their result was recorded", batch.size() - recorded);
+        }
+        log.debug("Mail outbox batch done: {} sent, {} failed", sent.size(), failed.size());
+    }
+
+    private int recordFailure(MailOutbox message, String error, LocalDateTime now, LocalDateTime claimedAt) {
+        int attempts = message.getAttempts() + 1;
+        MailOutboxStatus status = attempts >= maxAttempts ? MailOutboxStatus.DEAD : MailOutboxStatus.PENDING;
+        if (status == MailOutboxStatus.DEAD) {
+            log.error("Mail {} to {} moved to dead letter after {} attempts", message.getId(), message.getRecipient(), attempts);
+        }
+        return mailOutboxRepo.markFailed(message.getId(), status, attempts, now.plus(backoff(attempts)), truncate(error), claimedAt);
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = baseBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private void send(MailOutbox message) throws Exception {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true);
+        helper.setTo(message.getRecipient());
+        helper.setSubject(message.getSubject());
+        helper.setText(message.getBody(), true);
+        mailSender.send(mimeMessage);
+    }
+
+    private record Claim(List<MailOutbox> messages, LocalDateTime claimedAt) {
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
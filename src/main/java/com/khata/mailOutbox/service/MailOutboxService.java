@@ -0,0 +1,5 @@
+package com.khata.mailOutbox.service;
+
+public interface MailOutboxService {
+    void enqueue(String recipient, String subject, String htmlBody);
+}
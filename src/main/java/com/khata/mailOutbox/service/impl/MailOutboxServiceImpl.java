@@ -0,0 +1,47 @@
+package com.khata.mailOutbox.service.impl;
+
+import com.khata.mailOutbox.entity.MailOutbox;
+import com.khata.mailOutbox.entity.enums.MailOutboxStatus;
+import com.khata.mailOutbox.repositories.MailOutboxRepo;
+import com.khata.mailOutbox.service.MailOutboxService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Service
+@Slf4j
+public class MailOutboxServiceImpl implements MailOutboxService {
+
+    private final MailOutboxRepo mailOutboxRepo;
+
+    public MailOutboxServiceImpl(MailOutboxRepo mailOutboxRepo) {
+        this.mailOutboxRepo = mailOutboxRepo;
+    }
+
+    /**
+     * Stores the message in the outbox as part of the caller's transaction.
+     * It is only sent by the {@link com.khata.mailOutbox.service.MailOutboxDispatcher} once that transaction has committed,
+     * so a rolled back operation never sends mail and a slow mail server never holds a connection.
+     *
+     * @param recipient The email address to send to.
+     * @param subject   The subject of the message.
+     * @param htmlBody  The HTML body of the message.
+     */
+    @Override
+    @Transactional
+    public void enqueue(String recipient, String subject, String htmlBody) {
+        LocalDateTime now = LocalDateTime.now();
+        MailOutbox mailOutbox = new MailOutbox();
+        mailOutbox.setRecipient(recipient);
+        mailOutbox.setSubject(subject);
+        mailOutbox.setBody(htmlBody);
+        mailOutbox.setStatus(MailOutboxStatus.PENDING);
+        mailOutbox.setAttempts(0);
+        mailOutbox.setNextAttemptAt(now);
+        mailOutbox.setCreatedAt(now);
+        mailOutboxRepo.save(mailOutbox);
+        log.debug("Mail to {} queued in outbox", recipient);
+    }
+}
@@ -5,10 +5,12 @@ import com.khata.auth.entity.User;
 import com.khata.auth.payload.JwtAuthRequest;
 import com.khata.auth.payload.JwtAuthResponse;
 import com.khata.auth.service.AuthService;
+import com.khata.auth.service.AuthThrottle;
 import com.khata.exceptions.ApiException;
 import com.khata.mailVerification.dto.MailVerificationDTO;
 import com.khata.mailVerification.service.MailVerificationService;
 import com.khata.payload.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -23,22 +25,28 @@ public class MailVerificationController {
 
     private final MailVerificationService mailVerificationService;
     private final AuthService authService;
+    private final AuthThrottle authThrottle;
 
-    public MailVerificationController(MailVerificationService mailVerificationService, AuthService authService) {
+    public MailVerificationController(MailVerificationService mailVerificationService, AuthService authService, AuthThrottle authThrottle) {
         this.mailVerificationService = mailVerificationService;
         this.authService = authService;
+        this.authThrottle = authThrottle;
     }
 
     @PostMapping("/verify")
-    public ResponseEntity<ApiResponse<?>> verifyEmail(@RequestBody MailVerificationDTO verificationDTO) {
+    public ResponseEntity<ApiResponse<?>> verifyEmail(@RequestBody MailVerificationDTO verificationDTO, HttpServletRequest request) {
+        String username = verificationDTO.getEmail();
+        String clientIp = request.getRemoteAddr();
+        authThrottle.check(AuthThrottle.Action.OTP, username, clientIp);
         try {
-            String username = verificationDTO.getEmail();
             mailVerificationService.verifyOTP(username, verificationDTO.getOtp());
+            authThrottle.recordSuccess(AuthThrottle.Action.OTP, username);
 
             JwtAuthResponse jwtAuthResponse = authService.autoLoginAfterVerification(verificationDTO.getEmail());
 
             return ResponseEntity.ok(new ApiResponse<>(jwtAuthResponse, HttpStatus.OK.value(), "Email verified successfully"));
         } catch (ApiException | IllegalArgumentException ex) {
+            authThrottle.recordFailure(AuthThrottle.Action.OTP, username, clientIp);
             return ResponseEntity
                     .status(HttpStatus.BAD_REQUEST)
                     .body(new ApiResponse<>(null, HttpStatus.BAD_REQUEST.value(), ex.getMessage()));
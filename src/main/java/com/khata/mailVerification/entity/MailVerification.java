@@ -4,6 +4,8 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -12,6 +14,10 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(name = "mail_verification", indexes = {
+        @Index(name = "ux_mail_verification_email", columnList = "email", unique = true),
+        @Index(name = "ix_mail_verification_expiry_time", columnList = "expiryTime")
+})
 @Getter
 @Setter
 @NoArgsConstructor
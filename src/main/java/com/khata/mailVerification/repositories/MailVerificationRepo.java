@@ -2,11 +2,27 @@ package com.khata.mailVerification.repositories;
 
 import com.khata.mailVerification.entity.MailVerification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface MailVerificationRepo extends JpaRepository<MailVerification, Long> {
     Optional<MailVerification> findByEmail(String email);
 
     Optional<MailVerification> findByEmailAndOtp(String email, String otp);
-}
\ No newline at end of file
+
+    // One statement against the unique email index, so concurrent sends for one email cannot both insert
+    @Modifying
+    @Query(value = "INSERT INTO mail_verification (email, otp, expiry_time, used) VALUES (:email, :otp, :expiryTime, false) " +
+            "ON CONFLICT (email) DO UPDATE SET otp = EXCLUDED.otp, expiry_time = EXCLUDED.expiry_time, used = false",
+            nativeQuery = true)
+    int upsert(String email, String otp, LocalDateTime expiryTime);
+
+    // Bounded so a large backlog is removed in short transactions instead of one long lock
+    @Modifying
+    @Query(value = "DELETE FROM mail_verification WHERE id IN (" +
+            "SELECT id FROM mail_verification WHERE expiry_time < :now OR used = true LIMIT :limit)", nativeQuery = true)
+    int deleteExpiredBatch(LocalDateTime now, int limit);
+}
@@ -0,0 +1,24 @@
+package com.khata.mailVerification.service;
+
+import com.khata.mailVerification.entity.MailVerification;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Storage for pending email verification codes, one per email address.
+ * <p>
+ * The database backed store is the default. Single-node deployments can set
+ * {@code mail.verification.otp-store=memory} to keep codes in memory instead.
+ */
+public interface OtpStore {
+
+    /**
+     * Stores the code for the email, replacing any earlier one.
+     */
+    void save(String email, String otp, LocalDateTime expiryTime);
+
+    Optional<MailVerification> find(String email);
+
+    void remove(MailVerification verification);
+}
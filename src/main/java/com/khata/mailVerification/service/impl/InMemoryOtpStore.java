@@ -0,0 +1,52 @@
+package com.khata.mailVerification.service.impl;
+
+import com.khata.mailVerification.entity.MailVerification;
+import com.khata.mailVerification.service.OtpStore;
+import com.khata.utils.CacheMetrics;
+import com.khata.utils.ExpiringCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+
+/**
+ * Keeps verification codes in memory, each evicted when it expires.
+ * Codes are lost on restart and are not shared between nodes, so this is only suitable for single-node deployments.
+ */
+@Component
+@ConditionalOnProperty(name = "mail.verification.otp-store", havingValue = "memory")
+public class InMemoryOtpStore implements OtpStore, MeterBinder {
+
+    private static final int MAX_SIZE = 100_000;
+    private static final long DEFAULT_TTL_MILLIS = 10 * 60 * 1000;
+
+    private final ExpiringCache<String, MailVerification> cache = new ExpiringCache<>(MAX_SIZE, DEFAULT_TTL_MILLIS);
+
+    @Override
+    public void save(String email, String otp, LocalDateTime expiryTime) {
+        MailVerification verification = new MailVerification();
+        verification.setEmail(email);
+        verification.setOtp(otp);
+        verification.setExpiryTime(expiryTime);
+        cache.put(email, verification, expiryTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    @Override
+    public Optional<MailVerification> find(String email) {
+        return Optional.ofNullable(cache.get(email));
+    }
+
+    @Override
+    public void remove(MailVerification verification) {
+        cache.invalidate(verification.getEmail());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CacheMetrics.bind(registry, "otp", cache);
+    }
+}
@@ -0,0 +1,67 @@
+package com.khata.mailVerification.service.impl;
+
+import com.khata.mailVerification.entity.MailVerification;
+import com.khata.mailVerification.repositories.MailVerificationRepo;
+import com.khata.mailVerification.service.OtpStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "mail.verification.otp-store", havingValue = "jpa", matchIfMissing = true)
+@Slf4j
+public class JpaOtpStore implements OtpStore {
+
+    private final MailVerificationRepo mailVerificationRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final int purgeBatchSize;
+
+    public JpaOtpStore(
+            MailVerificationRepo mailVerificationRepo,
+            PlatformTransactionManager transactionManager,
+            @Value("${mail.verification.purge-batch-size:1000}") int purgeBatchSize) {
+        this.mailVerificationRepo = mailVerificationRepo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    @Override
+    public void save(String email, String otp, LocalDateTime expiryTime) {
+        transactionTemplate.executeWithoutResult(status -> mailVerificationRepo.upsert(email, otp, expiryTime));
+    }
+
+    @Override
+    public Optional<MailVerification> find(String email) {
+        return mailVerificationRepo.findByEmail(email);
+    }
+
+    @Override
+    public void remove(MailVerification verification) {
+        mailVerificationRepo.delete(verification);
+    }
+
+    /**
+     * Deletes expired and used codes in chunks of {@code mail.verification.purge-batch-size},
+     * each in its own transaction, until none are left.
+     */
+    @Scheduled(fixedDelayString = "${mail.verification.purge-interval:3600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        Integer deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> mailVerificationRepo.deleteExpiredBatch(now, purgeBatchSize));
+            total += deleted == null ? 0 : deleted;
+        } while (deleted != null && deleted == purgeBatchSize);
+        if (total > 0) {
+            log.info("Purged {} expired mail verification code(s)", total);
+        }
+    }
+}
@@ -2,15 +2,14 @@ package com.khata.mailVerification.service.impl;
 
 import com.khata.auth.entity.User;
 import com.khata.auth.repositories.UserRepo;
+import com.khata.auth.service.PrincipalCache;
 import com.khata.exceptions.ApiException;
+import com.khata.mailOutbox.service.MailOutboxService;
 import com.khata.mailVerification.entity.MailVerification;
-import com.khata.mailVerification.repositories.MailVerificationRepo;
 import com.khata.mailVerification.service.MailVerificationService;
-import jakarta.mail.internet.MimeMessage;
+import com.khata.mailVerification.service.OtpStore;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -19,32 +18,35 @@ import java.time.LocalDateTime;
 @Service
 public class MailVerificationServiceImpl implements MailVerificationService {
 
-    private final JavaMailSender mailSender;
-    private final MailVerificationRepo mailVerificationRepo;
+    private final MailOutboxService mailOutboxService;
+    private final OtpStore otpStore;
     private final UserRepo userRepo;
+    private final PrincipalCache principalCache;
 
     public MailVerificationServiceImpl(
-            JavaMailSender mailSender,
-            MailVerificationRepo mailVerificationRepo,
-            UserRepo userRepo) {
-        this.mailSender = mailSender;
-        this.mailVerificationRepo = mailVerificationRepo;
+            MailOutboxService mailOutboxService,
+            OtpStore otpStore,
+            UserRepo userRepo,
+            PrincipalCache principalCache) {
+        this.mailOutboxService = mailOutboxService;
+        this.otpStore = otpStore;
         this.userRepo = userRepo;
+        this.principalCache = principalCache;
     }
 
     @Override
     @Transactional
     public void sendVerificationEmail(String emailId) {
         validateUser(emailId);
-        MailVerification verification = prepareVerificationEntry(emailId);
-        mailVerificationRepo.save(verification);
-        sendOtpEmail(emailId, verification.getOtp());
+        String otp = generateOTP();
+        otpStore.save(emailId, otp, LocalDateTime.now().plusMinutes(10));
+        sendOtpEmail(emailId, otp);
     }
 
     @Override
     @Transactional
     public void verifyOTP(String email, String otp) {
-        MailVerification verification = mailVerificationRepo.findByEmail(email)
+        MailVerification verification = otpStore.find(email)
                 .orElseThrow(() -> new ApiException("No verification request found for the provided email."));
 
         if (!verification.getOtp().equals(otp)) {
@@ -60,7 +62,8 @@ public class MailVerificationServiceImpl implements MailVerificationService {
 
         user.setVerified(true);
         userRepo.save(user);
-        mailVerificationRepo.delete(verification);
+        otpStore.remove(verification);
+        principalCache.invalidate(email);
 
         log.info("{} has been successfully verified", email);
     }
@@ -74,47 +77,15 @@ public class MailVerificationServiceImpl implements MailVerificationService {
         }
     }
 
-    private MailVerification prepareVerificationEntry(String emailId) {
-        String otp = generateOTP();
-        LocalDateTime expiry = LocalDateTime.now().plusMinutes(10);
-
-        return mailVerificationRepo.findByEmail(emailId)
-                .map(existing -> {
-                    existing.setOtp(otp);
-                    existing.setExpiryTime(expiry);
-                    existing.setUsed(false);
-                    return existing;
-                })
-                .orElseGet(() -> {
-                    MailVerification newVerification = new MailVerification();
-                    newVerification.setEmail(emailId);
-                    newVerification.setOtp(otp);
-                    newVerification.setExpiryTime(expiry);
-                    newVerification.setUsed(false);
-                    return newVerification;
-                });
-    }
-
     private void sendOtpEmail(String emailId, String otp) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-            helper.setTo(emailId);
-            helper.setSubject("Your Khata Verification Code");
-
-            String htmlMsg = "<p>Dear User,</p>"
-                    + "<p>Thank you for using <strong>Khata</strong>.</p>"
-                    + "<p>Your 6-digit verification code is: <strong>" + otp + "</strong></p>"
-                    + "<p>Please enter this code in the app to complete your verification.</p>"
-                    + "<p style='color:red;'><strong>Note:</strong> This code will expire in 10 minutes.</p>"
-                    + "<br><p>Best regards,<br>The <strong>Khata</strong> Team</p>";
-
-            helper.setText(htmlMsg, true);
-            mailSender.send(message);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to send verification email");
-        }
+        String htmlMsg = "<p>Dear User,</p>"
+                + "<p>Thank you for using <strong>Khata</strong>.</p>"
+                + "<p>Your 6-digit verification code is: <strong>" + otp + "</strong></p>"
+                + "<p>Please enter this code in the app to complete your verification.</p>"
+                + "<p style='color:red;'><strong>Note:</strong> This code will expire in 10 minutes.</p>"
+                + "<br><p>Best regards,<br>The <strong>Khata</strong> Team</p>";
+
+        mailOutboxService.enqueue(emailId, "Your Khata Verification Code", htmlMsg);
     }
 
     private String generateOTP() {
@@ -1,8 +1,11 @@
 package com.khata.party.controller;
 
 import com.khata.party.dto.PartyDTO;
+import com.khata.party.service.PartyImportService;
 import com.khata.party.service.PartyService;
 import com.khata.payload.ApiResponse;
+import com.khata.payload.CursorPaginationResponse;
+import com.khata.payload.ImportReport;
 import com.khata.payload.PaginationResponse;
 import com.khata.utils.PaginationUtil;
 import jakarta.validation.Valid;
@@ -11,8 +14,13 @@ import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/party")
@@ -20,6 +28,7 @@ import org.springframework.web.bind.annotation.*;
 public class PartyController {
 
     private final PartyService partyService;
+    private final PartyImportService partyImportService;
 
     @PostMapping("/")
     @ResponseStatus(HttpStatus.CREATED)
@@ -29,14 +38,29 @@ public class PartyController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<ApiResponse<ImportReport>> createParties(@RequestBody List<PartyDTO> parties){
+        ImportReport report = this.partyImportService.createParties(parties);
+        return ResponseEntity.ok(new ApiResponse<>(report, HttpStatus.OK.value(), "Party Import Completed"));
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<ImportReport>> importParties(@RequestParam("file") MultipartFile file) throws IOException {
+        ImportReport report = this.partyImportService.importParties(file.getInputStream());
+        return ResponseEntity.ok(new ApiResponse<>(report, HttpStatus.OK.value(), "Party Import Completed"));
+    }
+
     @GetMapping
-    public ResponseEntity<ApiResponse<PaginationResponse<PartyDTO>>> getPartyList(Pageable pageable) {
+    public ResponseEntity<ApiResponse<?>> getPartyList(@RequestParam(required = false) String cursor, Pageable pageable) {
+        if (cursor != null) {
+            CursorPaginationResponse<PartyDTO> cursorPayload = this.partyService.getParties(cursor, pageable);
+            return ResponseEntity.ok(new ApiResponse<>(cursorPayload, HttpStatus.OK.value()));
+        }
         Page<PartyDTO> partyDTOPage = this.partyService.getParties(pageable);
 
         PaginationResponse<PartyDTO> paginationPayload = PaginationUtil.buildPaginationResponse(partyDTOPage);
 
-        ApiResponse<PaginationResponse<PartyDTO>> response = new ApiResponse<>(paginationPayload, HttpStatus.OK.value());
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(new ApiResponse<>(paginationPayload, HttpStatus.OK.value()));
     }
 
     @PutMapping("/{partyId}")
@@ -53,8 +77,14 @@ public class PartyController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse<PaginationResponse<PartyDTO>>> searchPartyByName(@RequestParam String keyword, Pageable pageable){
-        Page<PartyDTO> partyDTOPage = this.partyService.searchPartyByName(keyword, pageable);
+    public ResponseEntity<ApiResponse<PaginationResponse<PartyDTO>>> searchPartyByName(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "contains") String mode,
+            @RequestParam(defaultValue = "false") boolean approximateCount,
+            Pageable pageable){
+        Page<PartyDTO> partyDTOPage = "ranked".equalsIgnoreCase(mode)
+                ? this.partyService.searchPartiesRanked(keyword, pageable)
+                : this.partyService.searchPartyByName(keyword, approximateCount, pageable);
 
         PaginationResponse<PartyDTO> paginationPayload = PaginationUtil.buildPaginationResponse(partyDTOPage);
 
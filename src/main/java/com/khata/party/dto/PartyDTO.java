@@ -37,4 +37,15 @@ public class PartyDTO {
 
     @NotNull(message = "Party type cannot be null")
     private PartyType partyType;
+
+    // Used by JPQL constructor expressions to read list pages without loading entities
+    public PartyDTO(Integer id, String name, String email, String phoneNumber, String address, String partyBusinessName, PartyType partyType) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.phoneNumber = phoneNumber;
+        this.address = address;
+        this.partyBusinessName = partyBusinessName;
+        this.partyType = partyType;
+    }
 }
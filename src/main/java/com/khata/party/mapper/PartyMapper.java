@@ -0,0 +1,17 @@
+package com.khata.party.mapper;
+
+import com.khata.config.MapperConfiguration;
+import com.khata.party.dto.PartyDTO;
+import com.khata.party.entity.Party;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(config = MapperConfiguration.class)
+public interface PartyMapper {
+
+    PartyDTO toDTO(Party party);
+
+    // The id is assigned by the database, never taken from the request
+    @Mapping(target = "id", ignore = true)
+    Party toEntity(PartyDTO partyDTO);
+}
@@ -1,14 +1,25 @@
 package com.khata.party.repositories;
 
+import com.khata.party.dto.PartyDTO;
 import com.khata.party.entity.Party;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
-public interface PartyRepo extends JpaRepository<Party, Integer> {
+public interface PartyRepo extends JpaRepository<Party, Integer>, JpaSpecificationExecutor<Party> {
     Optional<Party> findByEmail(String email);
     Optional<Party> findByPhoneNumber(String phoneNumber);
     Page<Party> findByNameContainingIgnoreCase(String name, Pageable pageable);
+    Slice<Party> findSliceByNameContainingIgnoreCase(String name, Pageable pageable);
+
+    @Query("select new com.khata.party.dto.PartyDTO(p.id, p.name, p.email, p.phoneNumber, p.address, p.partyBusinessName, p.partyType) " +
+            "from Party p")
+    Slice<PartyDTO> findPartyList(Pageable pageable);
+    List<Party> findTop5000ByIdGreaterThanOrderByIdAsc(Integer id);
 }
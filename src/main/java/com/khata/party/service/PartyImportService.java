@@ -0,0 +1,12 @@
+package com.khata.party.service;
+
+import com.khata.party.dto.PartyDTO;
+import com.khata.payload.ImportReport;
+
+import java.io.InputStream;
+import java.util.List;
+
+public interface PartyImportService {
+    ImportReport createParties(List<PartyDTO> parties);
+    ImportReport importParties(InputStream csv);
+}
@@ -0,0 +1,80 @@
+package com.khata.party.service;
+
+import com.khata.party.dto.PartyDTO;
+import com.khata.party.entity.Party;
+import com.khata.party.mapper.PartyMapper;
+import com.khata.party.repositories.PartyRepo;
+import com.khata.utils.NgramIndex;
+import com.khata.utils.TransactionUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * In-memory trigram index over party name, business name, phone number and email, used for ranked typeahead search.
+ * <p>
+ * The index is loaded in id order at startup and kept current by {@link PartyService} as parties are created,
+ * updated and deleted. Changes made inside a transaction are applied only after it commits.
+ * <p>
+ * Nothing resynchronizes the index with the database, and each node holds its own copy, so a party changed
+ * through another node or directly in the database shows up only after a restart. Ranked search is therefore
+ * only suitable for single-node deployments.
+ */
+@Component
+@Slf4j
+public class PartySearchIndex {
+
+    private static final int LOAD_BATCH_SIZE = 5_000;
+
+    private final PartyRepo partyRepo;
+    private final PartyMapper partyMapper;
+    private final NgramIndex<PartyDTO> index = new NgramIndex<>();
+
+    public PartySearchIndex(PartyRepo partyRepo, PartyMapper partyMapper) {
+        this.partyRepo = partyRepo;
+        this.partyMapper = partyMapper;
+    }
+
+    @PostConstruct
+    public void load() {
+        long start = System.currentTimeMillis();
+        int lastId = 0;
+        List<Party> batch;
+        do {
+            batch = partyRepo.findTop5000ByIdGreaterThanOrderByIdAsc(lastId);
+            for (Party party : batch) {
+                put(partyMapper.toDTO(party));
+                lastId = party.getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        log.info("Party search index loaded with {} parties in {} ms", index.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Returns one page of the parties matching the keyword, best match first.
+     * The sort of the pageable is ignored since results are ordered by relevance.
+     */
+    public Page<PartyDTO> search(String keyword, Pageable pageable) {
+        NgramIndex.Result<PartyDTO> result = index.search(keyword, (int) pageable.getOffset(), pageable.getPageSize());
+        List<PartyDTO> content = result.matches().stream().map(NgramIndex.Match::value).toList();
+        return new PageImpl<>(content, pageable, result.total());
+    }
+
+    public void index(PartyDTO party) {
+        TransactionUtil.afterCommit(() -> put(party));
+    }
+
+    public void remove(Integer partyId) {
+        TransactionUtil.afterCommit(() -> index.remove(partyId));
+    }
+
+    private void put(PartyDTO party) {
+        String digits = party.getPhoneNumber() == null ? null : party.getPhoneNumber().replaceAll("\\D", "");
+        index.put(party.getId(), party, party.getName(), party.getPartyBusinessName(), digits, party.getEmail());
+    }
+}
@@ -1,6 +1,7 @@
 package com.khata.party.service;
 
 import com.khata.party.dto.PartyDTO;
+import com.khata.payload.CursorPaginationResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -9,6 +10,8 @@ public interface PartyService {
     PartyDTO updateParty(PartyDTO PartyDTO,Integer partyId);
     PartyDTO getPartyById(Integer partyId);
     Page<PartyDTO> getParties(Pageable pageable);
-    Page<PartyDTO> searchPartyByName(String name, Pageable pageable);
+    CursorPaginationResponse<PartyDTO> getParties(String cursor, Pageable pageable);
+    Page<PartyDTO> searchPartyByName(String name, boolean approximateCount, Pageable pageable);
+    Page<PartyDTO> searchPartiesRanked(String keyword, Pageable pageable);
     void deleteParty(Integer partyId);
 }
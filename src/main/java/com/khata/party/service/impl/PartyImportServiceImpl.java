@@ -0,0 +1,277 @@
+package com.khata.party.service.impl;
+
+import com.khata.exceptions.ApiException;
+import com.khata.party.dto.PartyDTO;
+import com.khata.party.entity.enums.PartyType;
+import com.khata.party.service.PartyImportService;
+import com.khata.party.service.PartySearchIndex;
+import com.khata.payload.ImportReport;
+import com.khata.utils.CsvReader;
+import com.khata.utils.EmailAndPhoneUtil;
+import com.khata.utils.RowCounters;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates parties in bulk, from a JSON list or a CSV upload.
+ * <p>
+ * Rows are validated in memory and duplicates within the input are caught with hash sets. Each chunk then
+ * costs one query to find emails and phone numbers that already exist, one query to take ids from the party
+ * id sequence and one JDBC batch insert, instead of two lookups and an insert per party. Each chunk commits on
+ * its own, so rejected rows and failed chunks are reported without undoing the rest.
+ * <p>
+ * CSV columns, matched case-insensitively and ignoring spaces and underscores: {@code name}, {@code email},
+ * {@code phoneNumber}, {@code address}, {@code partyBusinessName} and {@code partyType}.
+ */
+@Service
+@Slf4j
+public class PartyImportServiceImpl implements PartyImportService {
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final String[] COLUMNS = {"name", "email", "phoneNumber", "address", "partyBusinessName", "partyType"};
+    private static final String FIND_EXISTING_SQL =
+            "SELECT email, phone_number FROM party WHERE email = ANY(?) OR phone_number = ANY(?)";
+    private static final String ALLOCATE_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('party', 'id')) FROM generate_series(1, ?)";
+    private static final String INSERT_SQL =
+            "INSERT INTO party (id, name, email, phone_number, address, party_business_name, party_type) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final PartySearchIndex partySearchIndex;
+    private final RowCounters rowCounters;
+
+    public PartyImportServiceImpl(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, Validator validator,
+                                  PartySearchIndex partySearchIndex, RowCounters rowCounters) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.partySearchIndex = partySearchIndex;
+        this.rowCounters = rowCounters;
+    }
+
+    /**
+     * Creates the parties of a JSON list. Rows in the report are the 0-based positions in the list.
+     */
+    @Override
+    public ImportReport createParties(List<PartyDTO> parties) {
+        Batch batch = new Batch();
+        for (int i = 0; i < parties.size(); i++) {
+            batch.add(i, parties.get(i));
+        }
+        return batch.finish();
+    }
+
+    /**
+     * Creates the parties of a CSV file. Rows in the report are the lines of the file, counting the header as row 1.
+     */
+    @Override
+    public ImportReport importParties(InputStream csv) {
+        Batch batch = new Batch();
+        try (CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8)))) {
+            int[] columns = columns(reader.readHeader());
+            String[] record;
+            try {
+                while ((record = reader.next()) != null) {
+                    if (!CsvReader.isBlank(record)) {
+                        batch.add(reader.getRecordNumber(), toParty(record, columns));
+                    }
+                }
+            } catch (IOException ex) {
+                batch.report.addError(reader.getRecordNumber() + 1, "Import stopped, the file could not be read: " + ex.getMessage());
+            }
+        } catch (IOException ex) {
+            throw new ApiException("The uploaded file could not be read");
+        }
+        return batch.finish();
+    }
+
+    /**
+     * State of one bulk create: the report, the emails and phone numbers seen so far and the pending chunk.
+     */
+    private final class Batch {
+
+        private final long start = System.currentTimeMillis();
+        private final ImportReport report = new ImportReport();
+        private final Set<String> seenEmails = new HashSet<>();
+        private final Set<String> seenPhoneNumbers = new HashSet<>();
+        private final List<PartyRow> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        void add(long row, PartyDTO party) {
+            String error = validate(party);
+            if (error == null && seenEmails.contains(party.getEmail())) {
+                error = "Email appears more than once in the import: " + party.getEmail();
+            }
+            if (error == null && seenPhoneNumbers.contains(party.getPhoneNumber())) {
+                error = "Phone number appears more than once in the import: " + party.getPhoneNumber();
+            }
+            if (error != null) {
+                report.addError(row, error);
+                return;
+            }
+            // Only an accepted row claims its email and phone number, so a rejected row cannot block a later one
+            seenEmails.add(party.getEmail());
+            seenPhoneNumbers.add(party.getPhoneNumber());
+            chunk.add(new PartyRow(row, party));
+            if (chunk.size() == CHUNK_SIZE) {
+                insertChunk(chunk, report);
+                chunk.clear();
+            }
+        }
+
+        ImportReport finish() {
+            if (!chunk.isEmpty()) {
+                insertChunk(chunk, report);
+            }
+            log.info("Party import finished in {} ms: {} imported, {} failed",
+                    System.currentTimeMillis() - start, report.getImported(), report.getFailed());
+            return report;
+        }
+    }
+
+    private String validate(PartyDTO party) {
+        if (party == null) {
+            return "Party cannot be null";
+        }
+        Set<ConstraintViolation<PartyDTO>> violations = validator.validate(party);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(" "));
+        }
+        // The same checks as a single create
+        if (!EmailAndPhoneUtil.isValidEmail(party.getEmail())) {
+            return "Invalid email format";
+        }
+        if (!EmailAndPhoneUtil.isValidPhoneNumber(party.getPhoneNumber())) {
+            return "Invalid phone number format";
+        }
+        return null;
+    }
+
+    private void insertChunk(List<PartyRow> chunk, ImportReport report) {
+        List<ImportReport.RowError> rejected = new ArrayList<>();
+        int imported;
+        try {
+            imported = transactionTemplate.execute(status -> {
+                List<PartyRow> accepted = withoutExisting(chunk, rejected);
+                if (accepted.isEmpty()) {
+                    return 0;
+                }
+                List<Integer> ids = jdbcTemplate.queryForList(ALLOCATE_IDS_SQL, Integer.class, accepted.size());
+                List<Object[]> args = new ArrayList<>(accepted.size());
+                for (int i = 0; i < accepted.size(); i++) {
+                    PartyDTO party = accepted.get(i).party();
+                    party.setId(ids.get(i));
+                    args.add(new Object[]{party.getId(), party.getName(), party.getEmail(), party.getPhoneNumber(),
+                            party.getAddress(), party.getPartyBusinessName(), party.getPartyType().name()});
+                }
+                jdbcTemplate.batchUpdate(INSERT_SQL, args);
+
+                for (PartyRow row : accepted) {
+                    partySearchIndex.index(row.party());
+                }
+                rowCounters.increment(PartyServiceImpl.ROW_COUNTER, accepted.size());
+                return accepted.size();
+            });
+        } catch (DataAccessException ex) {
+            // Usually a party created concurrently with the same email or phone number
+            log.warn("Party import chunk starting at row {} failed", chunk.get(0).row(), ex);
+            String message = "Could not be saved: " + ex.getMostSpecificCause().getMessage();
+            for (PartyRow row : chunk) {
+                report.addError(row.row(), message);
+            }
+            return;
+        }
+        for (ImportReport.RowError error : rejected) {
+            report.addError(error.getRow(), error.getMessage());
+        }
+        report.addImported(imported);
+    }
+
+    // Rejects the rows whose email or phone number is already taken, looking all of them up in one query
+    private List<PartyRow> withoutExisting(List<PartyRow> chunk, List<ImportReport.RowError> rejected) {
+        String[] emails = chunk.stream().map(row -> row.party().getEmail()).toArray(String[]::new);
+        String[] phoneNumbers = chunk.stream().map(row -> row.party().getPhoneNumber()).toArray(String[]::new);
+        Set<String> existingEmails = new HashSet<>();
+        Set<String> existingPhoneNumbers = new HashSet<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_EXISTING_SQL);
+            statement.setArray(1, connection.createArrayOf("varchar", emails));
+            statement.setArray(2, connection.createArrayOf("varchar", phoneNumbers));
+            return statement;
+        }, resultSet -> {
+            existingEmails.add(resultSet.getString("email"));
+            existingPhoneNumbers.add(resultSet.getString("phone_number"));
+        });
+
+        List<PartyRow> accepted = new ArrayList<>(chunk.size());
+        for (PartyRow row : chunk) {
+            PartyDTO party = row.party();
+            if (existingEmails.contains(party.getEmail())) {
+                rejected.add(new ImportReport.RowError(row.row(), "Email already exists: " + party.getEmail()));
+            } else if (existingPhoneNumbers.contains(party.getPhoneNumber())) {
+                rejected.add(new ImportReport.RowError(row.row(), "Phone number already exists: " + party.getPhoneNumber()));
+            } else {
+                accepted.add(row);
+            }
+        }
+        return accepted;
+    }
+
+    private static int[] columns(CsvReader.Header header) {
+        if (header == null) {
+            throw new ApiException("The uploaded file is empty");
+        }
+        int[] columns = new int[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            int position = header.indexOf(COLUMNS[i]);
+            if (position < 0) {
+                throw new ApiException("The CSV header must contain the columns name, email, phoneNumber, address, partyBusinessName and partyType");
+            }
+            columns[i] = position;
+        }
+        return columns;
+    }
+
+    private static PartyDTO toParty(String[] record, int[] columns) {
+        PartyDTO party = new PartyDTO();
+        party.setName(CsvReader.field(record, columns[0]));
+        party.setEmail(CsvReader.field(record, columns[1]));
+        party.setPhoneNumber(CsvReader.field(record, columns[2]));
+        party.setAddress(CsvReader.field(record, columns[3]));
+        party.setPartyBusinessName(CsvReader.field(record, columns[4]));
+        String partyType = CsvReader.field(record, columns[5]).toUpperCase(Locale.ROOT);
+        for (PartyType type : PartyType.values()) {
+            if (type.name().equals(partyType)) {
+                party.setPartyType(type);
+            }
+        }
+        return party;
+    }
+
+    private record PartyRow(long row, PartyDTO party) {
+    }
+}
@@ -1,40 +1,69 @@
 package com.khata.party.service.impl;
 
+import com.khata.exceptions.ApiException;
 import com.khata.exceptions.ResourceAlreadyExistsException;
 import com.khata.exceptions.ResourceNotFoundException;
+import com.khata.invoice.repositories.InvoiceRepo;
+import com.khata.ledger.repositories.LedgerEntryRepo;
 import com.khata.party.dto.PartyDTO;
 import com.khata.party.entity.Party;
+import com.khata.party.mapper.PartyMapper;
 import com.khata.party.repositories.PartyRepo;
+import com.khata.party.service.PartySearchIndex;
 import com.khata.party.service.PartyService;
+import com.khata.payload.CursorPaginationResponse;
+import com.khata.utils.CursorPaginator;
+import com.khata.utils.PaginationUtil;
+import com.khata.utils.RowCounters;
 import com.khata.utils.EmailAndPhoneUtil;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Set;
+
 @Service
 @Slf4j
 public class PartyServiceImpl implements PartyService {
 
-    private final PartyRepo partyRepo;
-    private final ModelMapper modelMapper;
+    static final String ROW_COUNTER = "party";
+    private static final Set<String> CURSOR_SORTS = Set.of("name", "partyBusinessName", "email", "phoneNumber", "partyType");
 
-    public PartyServiceImpl(PartyRepo partyRepo, ModelMapper modelMapper) {
-        this.modelMapper = modelMapper;
+    private final PartyRepo partyRepo;
+    private final LedgerEntryRepo ledgerEntryRepo;
+    private final InvoiceRepo invoiceRepo;
+    private final PartyMapper partyMapper;
+    private final PartySearchIndex partySearchIndex;
+    private final CursorPaginator cursorPaginator;
+    private final RowCounters rowCounters;
+
+    public PartyServiceImpl(PartyRepo partyRepo, LedgerEntryRepo ledgerEntryRepo, InvoiceRepo invoiceRepo, PartyMapper partyMapper,
+                            PartySearchIndex partySearchIndex, CursorPaginator cursorPaginator, RowCounters rowCounters) {
+        this.partyMapper = partyMapper;
         this.partyRepo = partyRepo;
+        this.ledgerEntryRepo = ledgerEntryRepo;
+        this.invoiceRepo = invoiceRepo;
+        this.partySearchIndex = partySearchIndex;
+        this.cursorPaginator = cursorPaginator;
+        this.rowCounters = rowCounters;
+        rowCounters.register(ROW_COUNTER, partyRepo::count);
     }
 
     @Override
     @Transactional
     public PartyDTO createParty(PartyDTO partyDTO) {
-        Party party = modelMapper.map(partyDTO, Party.class);
+        Party party = partyMapper.toEntity(partyDTO);
         checkEmailIfExists(partyDTO.getEmail());
         checkPhoneNumberIfExists(partyDTO.getPhoneNumber());
         Party savedParty = partyRepo.save(party);
+        rowCounters.increment(ROW_COUNTER);
         log.info("Party created with name: {}", partyDTO.getName());
-        return modelMapper.map(savedParty, PartyDTO.class);
+        PartyDTO savedPartyDTO = partyMapper.toDTO(savedParty);
+        partySearchIndex.index(savedPartyDTO);
+        return savedPartyDTO;
     }
 
     @Override
@@ -58,34 +87,59 @@ public class PartyServiceImpl implements PartyService {
         party.setAddress(partyDTO.getAddress());
         Party updatedParty = partyRepo.save(party);
         log.info("Party updated with ID: {}", partyId);
-        return modelMapper.map(updatedParty, PartyDTO.class);
+        PartyDTO updatedPartyDTO = partyMapper.toDTO(updatedParty);
+        partySearchIndex.index(updatedPartyDTO);
+        return updatedPartyDTO;
     }
 
     @Override
     @Transactional(readOnly = true)
     public PartyDTO getPartyById(Integer partyId) {
         Party party = getPartyEntityById(partyId);
-        return modelMapper.map(party, PartyDTO.class);
+        return partyMapper.toDTO(party);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<PartyDTO> getParties(Pageable pageable) {
-        Page<Party> parties = partyRepo.findAll(pageable);
-        return parties.map(party -> modelMapper.map(party, PartyDTO.class));
+        Slice<PartyDTO> parties = partyRepo.findPartyList(pageable);
+        return PaginationUtil.withTotal(parties, rowCounters.get(ROW_COUNTER));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPaginationResponse<PartyDTO> getParties(String cursor, Pageable pageable) {
+        return cursorPaginator.scroll(partyRepo, Party.class, cursor, pageable, CURSOR_SORTS, party -> partyMapper.toDTO(party));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Page<PartyDTO> searchPartyByName(String name, Pageable pageable) {
-        Page<Party> parties = partyRepo.findByNameContainingIgnoreCase(name, pageable);
-        return parties.map(party -> modelMapper.map(party, PartyDTO.class));
+    public Page<PartyDTO> searchPartyByName(String name, boolean approximateCount, Pageable pageable) {
+        Page<Party> parties = approximateCount
+                ? PaginationUtil.withApproximateTotal(partyRepo.findSliceByNameContainingIgnoreCase(name, pageable))
+                : partyRepo.findByNameContainingIgnoreCase(name, pageable);
+        return parties.map(party -> partyMapper.toDTO(party));
     }
 
     @Override
+    public Page<PartyDTO> searchPartiesRanked(String keyword, Pageable pageable) {
+        return partySearchIndex.search(keyword, pageable);
+    }
+
+    @Override
+    @Transactional
     public void deleteParty(Integer partyId) {
         Party party = getPartyEntityById(partyId);
+        // The ledger is append-only, so a party with history is kept
+        if (ledgerEntryRepo.existsByPartyId(partyId)) {
+            throw new ApiException("Party has ledger entries and cannot be deleted");
+        }
+        if (invoiceRepo.existsByPartyId(partyId)) {
+            throw new ApiException("Party has invoices and cannot be deleted");
+        }
         partyRepo.delete(party);
+        rowCounters.decrement(ROW_COUNTER);
+        partySearchIndex.remove(partyId);
         log.info("Party deleted with ID: {}", partyId);
     }
 
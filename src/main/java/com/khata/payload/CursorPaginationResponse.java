@@ -0,0 +1,24 @@
+package com.khata.payload;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class CursorPaginationResponse<T> {
+    private List<T> items;
+    private int pageSize;
+    private boolean hasNext;
+    private String nextCursor;
+
+    public CursorPaginationResponse(List<T> items, int pageSize, boolean hasNext, String nextCursor) {
+        this.items = items;
+        this.pageSize = pageSize;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,50 @@
+package com.khata.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. Only the first {@value #MAX_REPORTED_ERRORS} row errors are listed,
+ * so the report stays small however many rows fail; {@code failed} counts all of them.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+public class ImportReport {
+
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private long imported;
+    private long failed;
+    private List<RowError> errors = new ArrayList<>();
+
+    public void addImported(int count) {
+        this.imported += count;
+    }
+
+    /**
+     * Records a rejected row.
+     *
+     * @param row     The position of the row in the input, as documented by each import.
+     * @param message Why the row was rejected.
+     */
+    public void addError(long row, String message) {
+        this.failed++;
+        if (this.errors.size() < MAX_REPORTED_ERRORS) {
+            this.errors.add(new RowError(row, message));
+        }
+    }
+
+    @AllArgsConstructor
+    @Data
+    public static class RowError {
+        private long row;
+        private String message;
+    }
+}
@@ -1,6 +1,7 @@
 package com.khata.product.controller;
 
 import com.khata.payload.ApiResponse;
+import com.khata.payload.CursorPaginationResponse;
 import com.khata.product.dto.CategoryDTO;
 import com.khata.product.service.CategoryService;
 import jakarta.validation.Valid;
@@ -29,7 +30,11 @@ public class CategoryController {
     }
 
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<CategoryDTO>>> getCategories(Pageable pageable) {
+    public ResponseEntity<ApiResponse<?>> getCategories(@RequestParam(required = false) String cursor, Pageable pageable) {
+        if (cursor != null) {
+            CursorPaginationResponse<CategoryDTO> categories = this.categoryService.getCategories(cursor, pageable);
+            return ResponseEntity.ok(new ApiResponse<>(categories, HttpStatus.OK.value()));
+        }
         Page<CategoryDTO> categoryDTOSPage = this.categoryService.getCategories(pageable);
         return ResponseEntity.ok(new ApiResponse<>(categoryDTOSPage, HttpStatus.OK.value()));
     }
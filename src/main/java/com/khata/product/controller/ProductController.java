@@ -1,16 +1,27 @@
 package com.khata.product.controller;
 
 import com.khata.payload.ApiResponse;
+import com.khata.payload.CursorPaginationResponse;
+import com.khata.payload.ImportReport;
+import com.khata.payload.PaginationResponse;
 import com.khata.product.dto.ProductDTO;
+import com.khata.product.dto.StockMovementDTO;
+import com.khata.product.payload.ProductSearchResponse;
+import com.khata.product.service.ProductImportService;
 import com.khata.product.service.ProductService;
+import com.khata.utils.PaginationUtil;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/api/product")
@@ -18,6 +29,7 @@ import org.springframework.web.bind.annotation.*;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductImportService productImportService;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -27,12 +39,31 @@ public class ProductController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<ImportReport>> importProducts(@RequestParam("file") MultipartFile file) throws IOException {
+        ImportReport report = this.productImportService.importProducts(file.getInputStream());
+        return ResponseEntity.ok(new ApiResponse<>(report, HttpStatus.OK.value(), "Product Import Completed"));
+    }
+
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<ProductDTO>>> getProducts(Pageable pageable){
+    public ResponseEntity<ApiResponse<?>> getProducts(@RequestParam(required = false) String cursor, Pageable pageable){
+        if (cursor != null) {
+            CursorPaginationResponse<ProductDTO> products = this.productService.getProducts(cursor, pageable);
+            return ResponseEntity.ok(new ApiResponse<>(products, HttpStatus.OK.value()));
+        }
         Page<ProductDTO> product = this.productService.getProducts(pageable);
         return ResponseEntity.ok(new ApiResponse<>(product, HttpStatus.OK.value()));
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<ProductSearchResponse>> searchProducts(
+            @RequestParam String keyword,
+            @RequestParam(required = false) Integer categoryId,
+            Pageable pageable){
+        ProductSearchResponse searchResponse = this.productService.searchProducts(keyword, categoryId, pageable);
+        return ResponseEntity.ok(new ApiResponse<>(searchResponse, HttpStatus.OK.value()));
+    }
+
     @PutMapping("/{productId}")
     public ResponseEntity<ApiResponse<ProductDTO>> updateProduct(
             @Valid @RequestBody ProductDTO productDTO,
@@ -48,6 +79,24 @@ public class ProductController {
         return ResponseEntity.ok(new ApiResponse<>(productDTO, HttpStatus.OK.value()));
     }
 
+    @PostMapping("/{productId}/stock")
+    @ResponseStatus(HttpStatus.CREATED)
+    public ResponseEntity<ApiResponse<StockMovementDTO>> adjustStock(
+            @PathVariable Integer productId,
+            @Valid @RequestBody StockMovementDTO movementDTO){
+        StockMovementDTO movement = this.productService.adjustStock(productId, movementDTO);
+        ApiResponse<StockMovementDTO> response = new ApiResponse<>(movement, HttpStatus.CREATED.value(), "Stock Updated Successfully");
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @GetMapping("/{productId}/stock")
+    public ResponseEntity<ApiResponse<PaginationResponse<StockMovementDTO>>> getStockMovements(
+            @PathVariable Integer productId,
+            Pageable pageable){
+        Page<StockMovementDTO> movements = this.productService.getStockMovements(productId, pageable);
+        return ResponseEntity.ok(new ApiResponse<>(PaginationUtil.buildPaginationResponse(movements), HttpStatus.OK.value()));
+    }
+
     @DeleteMapping("/{productId}")
     public ResponseEntity<ApiResponse<Void>> deleteProduct(@PathVariable Integer productId){
         this.productService.deleteProduct(productId);
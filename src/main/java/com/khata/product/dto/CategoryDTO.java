@@ -18,4 +18,9 @@ public class CategoryDTO {
     @Size(max = 100, message = "title must be less than 100 characters.")
     private String title;
 
+    // Used by JPQL constructor expressions to read list pages without loading entities
+    public CategoryDTO(Integer id, String title) {
+        this.id = id;
+        this.title = title;
+    }
 }
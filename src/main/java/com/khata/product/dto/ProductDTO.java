@@ -7,6 +7,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.math.BigDecimal;
+
 @NoArgsConstructor
 @Getter
 @Setter
@@ -31,4 +33,14 @@ public class ProductDTO {
     @NotNull(message = "Selling price cannot be null")
     @Min(value = 0, message = "Selling price must be greater than or equal to 0")
     private Double sellingPrice;
+
+    // Used by JPQL constructor expressions to read list pages without loading entities
+    public ProductDTO(Integer id, String productId, Integer quantity, String name, BigDecimal purchasePrice, BigDecimal sellingPrice) {
+        this.id = id;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.name = name;
+        this.purchasePrice = purchasePrice == null ? null : purchasePrice.doubleValue();
+        this.sellingPrice = sellingPrice == null ? null : sellingPrice.doubleValue();
+    }
 }
@@ -0,0 +1,37 @@
+package com.khata.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class StockMovementDTO {
+    private Long id;
+
+    private Integer productId;
+
+    @NotNull(message = "Quantity change cannot be null")
+    @Min(value = -1_000_000, message = "Quantity change must be between -1000000 and 1000000")
+    @Max(value = 1_000_000, message = "Quantity change must be between -1000000 and 1000000")
+    private Integer quantityChange;
+
+    // Only read from requests: lets a movement take the quantity below 0, e.g. to record a sale before the stock arrives
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private boolean allowNegative;
+
+    @Size(max = 100, message = "Reference must be less than 100 characters")
+    private String reference;
+
+    private Integer quantityAfter;
+
+    private LocalDateTime createdAt;
+}
@@ -4,12 +4,14 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @NoArgsConstructor
 @Entity
+@BatchSize(size = 50)
 @Getter
 @Setter
 public class Category {
@@ -20,7 +22,8 @@ public class Category {
     @Column(nullable = false, length = 100)
     private String title;
 
-    @OneToMany(mappedBy = "category", cascade = CascadeType.ALL)
+    // Not cascaded: deleting a category removes its products with one bulk statement, see CategoryServiceImpl
+    @OneToMany(mappedBy = "category")
     private List<Product> products = new ArrayList<>();
 
 }
@@ -25,13 +25,15 @@ public class Product {
     @Column(nullable = false, length = 100)
     private String name;
 
-    @Column(nullable = false)
+    // Hibernate's default for BigDecimal, spelled out because the CSV import validates prices against it
+    @Column(nullable = false, precision = 38, scale = 2)
     private BigDecimal purchasePrice;
 
-    @Column(nullable = false)
+    @Column(nullable = false, precision = 38, scale = 2)
     private BigDecimal sellingPrice;
 
-    @ManyToOne
+    // Lazy so that reading products never selects their category; the category id is read from the proxy
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     private Category category;
 }
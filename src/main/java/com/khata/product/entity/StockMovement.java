@@ -0,0 +1,42 @@
+package com.khata.product.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * One change to a product's stock. Movements are never updated; a mistake is corrected by an opposite movement.
+ */
+@NoArgsConstructor
+@Entity
+@Immutable
+@Getter
+@Setter
+@Table(name = "stock_movement", indexes = {@Index(columnList = "product_id, id")})
+public class StockMovement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // A plain column rather than a relation, so recording a movement never loads the product
+    @Column(name = "product_id", nullable = false)
+    private Integer productId;
+
+    // Positive for stock received, negative for stock sold or written off
+    @Column(nullable = false)
+    private Integer quantityChange;
+
+    // The product's quantity right after this movement, in the order movements were applied
+    @Column(nullable = false)
+    private Integer quantityAfter;
+
+    @Column(length = 100)
+    private String reference;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
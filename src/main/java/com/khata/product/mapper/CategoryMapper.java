@@ -0,0 +1,17 @@
+package com.khata.product.mapper;
+
+import com.khata.config.MapperConfiguration;
+import com.khata.product.dto.CategoryDTO;
+import com.khata.product.entity.Category;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(config = MapperConfiguration.class)
+public interface CategoryMapper {
+
+    CategoryDTO toDTO(Category category);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "products", ignore = true)
+    Category toEntity(CategoryDTO categoryDTO);
+}
@@ -0,0 +1,33 @@
+package com.khata.product.mapper;
+
+import com.khata.config.MapperConfiguration;
+import com.khata.product.dto.ProductDTO;
+import com.khata.product.entity.Product;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.math.BigDecimal;
+
+@Mapper(config = MapperConfiguration.class)
+public interface ProductMapper {
+
+    ProductDTO toDTO(Product product);
+
+    // The product id is generated by the service and the category is resolved from the database
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "productId", ignore = true)
+    @Mapping(target = "category", ignore = true)
+    Product toEntity(ProductDTO productDTO);
+
+    /**
+     * Prices are stored as {@link BigDecimal} but exposed as {@link Double}. The decimal string form of the
+     * double is used, so 19.99 is stored as 19.99 rather than its binary approximation.
+     */
+    default BigDecimal toBigDecimal(Double value) {
+        return value == null ? null : BigDecimal.valueOf(value);
+    }
+
+    default Double toDouble(BigDecimal value) {
+        return value == null ? null : value.doubleValue();
+    }
+}
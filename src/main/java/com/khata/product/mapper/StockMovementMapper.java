@@ -0,0 +1,14 @@
+package com.khata.product.mapper;
+
+import com.khata.config.MapperConfiguration;
+import com.khata.product.dto.StockMovementDTO;
+import com.khata.product.entity.StockMovement;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(config = MapperConfiguration.class)
+public interface StockMovementMapper {
+
+    @Mapping(target = "allowNegative", ignore = true)
+    StockMovementDTO toDTO(StockMovement movement);
+}
@@ -0,0 +1,12 @@
+package com.khata.product.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@AllArgsConstructor
+@Data
+public class CategoryFacet {
+    private Integer categoryId;
+    private String title;
+    private int count;
+}
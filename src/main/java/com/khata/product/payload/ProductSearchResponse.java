@@ -0,0 +1,21 @@
+package com.khata.product.payload;
+
+import com.khata.payload.PaginationResponse;
+import com.khata.product.dto.ProductDTO;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@NoArgsConstructor
+@Getter
+@Setter
+public class ProductSearchResponse extends PaginationResponse<ProductDTO> {
+    private List<CategoryFacet> facets;
+
+    public ProductSearchResponse(List<ProductDTO> items, int pageNumber, int pageSize, long totalElements, int totalPages, List<CategoryFacet> facets) {
+        super(items, pageNumber, pageSize, totalElements, totalPages);
+        this.facets = facets;
+    }
+}
@@ -1,7 +1,21 @@
 package com.khata.product.repositories;
 
+import com.khata.product.dto.CategoryDTO;
 import com.khata.product.entity.Category;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
-public interface CategoryRepo extends JpaRepository<Category, Integer> {
+public interface CategoryRepo extends JpaRepository<Category, Integer>, JpaSpecificationExecutor<Category> {
+
+    @Query(value = "select new com.khata.product.dto.CategoryDTO(c.id, c.title) from Category c",
+            countQuery = "select count(c) from Category c")
+    Page<CategoryDTO> findCategoryList(Pageable pageable);
+
+    @Modifying
+    @Query("delete from Category c where c.id = :categoryId")
+    int deleteCategoryById(Integer categoryId);
 }
@@ -1,12 +1,29 @@
 package com.khata.product.repositories;
 
+import com.khata.product.dto.ProductDTO;
 import com.khata.product.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
-public interface ProductRepo extends JpaRepository<Product, Integer> {
+import java.util.List;
+
+public interface ProductRepo extends JpaRepository<Product, Integer>, JpaSpecificationExecutor<Product> {
 
     // search product base on name
     Page<Product> findByNameContainingIgnoreCase(String name, Pageable pageable);
+
+    @Query("select new com.khata.product.dto.ProductDTO(p.id, p.productId, p.quantity, p.name, p.purchasePrice, p.sellingPrice) " +
+            "from Product p")
+    Slice<ProductDTO> findProductList(Pageable pageable);
+
+    List<Product> findTop5000ByIdGreaterThanOrderByIdAsc(Integer id);
+
+    @Modifying
+    @Query("delete from Product p where p.category.id = :categoryId")
+    int deleteByCategoryId(Integer categoryId);
 }
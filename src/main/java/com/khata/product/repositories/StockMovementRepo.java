@@ -0,0 +1,36 @@
+package com.khata.product.repositories;
+
+import com.khata.product.entity.StockMovement;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface StockMovementRepo extends JpaRepository<StockMovement, Long> {
+
+    // Changes the product's quantity and records the movement in one statement, without reading the product first.
+    // Returns nothing when the product does not exist or the movement would take its quantity below 0. Concurrent
+    // movements of a product queue on its row lock, which is held only from this statement to the commit, and each
+    // is checked against the quantity left by the one before
+    @Query(value = "WITH moved AS (UPDATE product SET quantity = quantity + :change " +
+            "WHERE id = :productId AND (:allowNegative OR quantity + :change >= 0) RETURNING quantity) " +
+            "INSERT INTO stock_movement (product_id, quantity_change, quantity_after, reference, created_at) " +
+            "SELECT :productId, :change, quantity, CAST(:reference AS varchar), :now FROM moved " +
+            "RETURNING *", nativeQuery = true)
+    Optional<StockMovement> record(Integer productId, int change, boolean allowNegative, String reference, LocalDateTime now);
+
+    // Newest first, read through the (product_id, id) index
+    Page<StockMovement> findByProductIdOrderByIdDesc(Integer productId, Pageable pageable);
+
+    @Modifying
+    @Query("delete from StockMovement m where m.productId = :productId")
+    int deleteByProductId(Integer productId);
+
+    @Modifying
+    @Query("delete from StockMovement m where m.productId in (select p.id from Product p where p.category.id = :categoryId)")
+    int deleteByCategoryId(Integer categoryId);
+}
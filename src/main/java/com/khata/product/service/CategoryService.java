@@ -1,5 +1,6 @@
 package com.khata.product.service;
 
+import com.khata.payload.CursorPaginationResponse;
 import com.khata.product.dto.CategoryDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -9,5 +10,6 @@ public interface CategoryService {
     CategoryDTO updateCategory(CategoryDTO categoryDTO, Integer categoryId);
     CategoryDTO getCategoryById(Integer categoryId);
     Page<CategoryDTO> getCategories(Pageable pageable);
+    CursorPaginationResponse<CategoryDTO> getCategories(String cursor, Pageable pageable);
     void deleteCategory(Integer categoryId);
 }
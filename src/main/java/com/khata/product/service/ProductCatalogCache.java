@@ -0,0 +1,79 @@
+package com.khata.product.service;
+
+import com.khata.product.dto.CategoryDTO;
+import com.khata.product.dto.ProductDTO;
+import com.khata.utils.CacheMetrics;
+import com.khata.utils.ExpiringCache;
+import com.khata.utils.TransactionUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL based read-through caches of categories and products by id, in front of the lookups
+ * that dominate catalog traffic.
+ * <p>
+ * Writes evict the entry right away and again after commit, so neither a concurrent read of the old row
+ * nor a rolled back write leaves a stale value behind. Categories change rarely and are kept longer than products.
+ */
+@Component
+@Slf4j
+public class ProductCatalogCache implements MeterBinder {
+
+    private static final int MAX_CATEGORIES = 1_000;
+    private static final long CATEGORY_TTL_MILLIS = 30 * 60 * 1000;
+    private static final int MAX_PRODUCTS = 10_000;
+    private static final long PRODUCT_TTL_MILLIS = 5 * 60 * 1000;
+
+    private final ExpiringCache<Integer, CategoryDTO> categories = new ExpiringCache<>(MAX_CATEGORIES, CATEGORY_TTL_MILLIS);
+    private final ExpiringCache<Integer, ProductDTO> products = new ExpiringCache<>(MAX_PRODUCTS, PRODUCT_TTL_MILLIS);
+
+    /**
+     * Returns the cached category, loading it on a miss.
+     *
+     * @param categoryId The id of the category.
+     * @param loader     The function that loads the category from the database.
+     * @return The cached or freshly loaded category.
+     */
+    public CategoryDTO getCategory(Integer categoryId, Function<Integer, CategoryDTO> loader) {
+        return categories.get(categoryId, loader);
+    }
+
+    /**
+     * Returns the cached product, loading it on a miss.
+     *
+     * @param productId The id of the product.
+     * @param loader    The function that loads the product from the database.
+     * @return The cached or freshly loaded product.
+     */
+    public ProductDTO getProduct(Integer productId, Function<Integer, ProductDTO> loader) {
+        return products.get(productId, loader);
+    }
+
+    public void invalidateCategory(Integer categoryId) {
+        TransactionUtil.nowAndAfterCommit(() -> categories.invalidate(categoryId));
+        log.debug("Category cache entry invalidated for {}", categoryId);
+    }
+
+    public void invalidateProduct(Integer productId) {
+        TransactionUtil.nowAndAfterCommit(() -> products.invalidate(productId));
+        log.debug("Product cache entry invalidated for {}", productId);
+    }
+
+    /**
+     * Evicts every product, for bulk changes whose rows are not known one by one, e.g. deleting a category.
+     */
+    public void invalidateAllProducts() {
+        TransactionUtil.nowAndAfterCommit(products::invalidateAll);
+        log.debug("Product cache cleared");
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CacheMetrics.bind(registry, "categories", categories);
+        CacheMetrics.bind(registry, "products", products);
+    }
+}
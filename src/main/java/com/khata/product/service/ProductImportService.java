@@ -0,0 +1,9 @@
+package com.khata.product.service;
+
+import com.khata.payload.ImportReport;
+
+import java.io.InputStream;
+
+public interface ProductImportService {
+    ImportReport importProducts(InputStream csv);
+}
@@ -0,0 +1,216 @@
+package com.khata.product.service;
+
+import com.khata.product.dto.ProductDTO;
+import com.khata.product.entity.Category;
+import com.khata.product.entity.Product;
+import com.khata.product.mapper.ProductMapper;
+import com.khata.product.payload.CategoryFacet;
+import com.khata.product.payload.ProductSearchResponse;
+import com.khata.product.repositories.CategoryRepo;
+import com.khata.product.repositories.ProductRepo;
+import com.khata.utils.NgramIndex;
+import com.khata.utils.TransactionUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory trigram index over product name, product id (SKU) and category title, used for ranked catalog search
+ * with category facet counts.
+ * <p>
+ * The index is loaded at startup and kept current by {@link ProductService} and {@link CategoryService}.
+ * Renaming a category re-indexes its products, deleting one removes them. Changes made inside a transaction
+ * are applied only after it commits.
+ * <p>
+ * The index is local to this node and is never resynchronized with the database. Changes made through another
+ * node or directly in the database are not seen until restart, so ranked search is only suitable for
+ * single-node deployments.
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final int LOAD_BATCH_SIZE = 5_000;
+    private static final int UNCATEGORIZED = 0;
+    private static final String UNCATEGORIZED_TITLE = "Uncategorized";
+
+    private final ProductRepo productRepo;
+    private final CategoryRepo categoryRepo;
+    private final ProductMapper productMapper;
+    private final NgramIndex<IndexedProduct> index = new NgramIndex<>();
+    private final Map<Integer, IndexedProduct> products = new ConcurrentHashMap<>();
+    private final Map<Integer, String> categoryTitles = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public ProductSearchIndex(ProductRepo productRepo, CategoryRepo categoryRepo, ProductMapper productMapper) {
+        this.productRepo = productRepo;
+        this.categoryRepo = categoryRepo;
+        this.productMapper = productMapper;
+    }
+
+    @PostConstruct
+    public void load() {
+        long start = System.currentTimeMillis();
+        for (Category category : categoryRepo.findAll()) {
+            categoryTitles.put(category.getId(), category.getTitle());
+        }
+        int lastId = 0;
+        List<Product> batch;
+        do {
+            batch = productRepo.findTop5000ByIdGreaterThanOrderByIdAsc(lastId);
+            for (Product product : batch) {
+                put(productMapper.toDTO(product), categoryIdOf(product));
+                lastId = product.getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        log.info("Product search index loaded with {} products in {} ms", index.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Returns one page of the products matching the keyword, best match first, with the number of matches
+     * in each category.
+     *
+     * @param keyword    The text to search for in the product name, product id and category title.
+     * @param categoryId Restricts the results to one category when not null. Facet counts are not restricted.
+     * @param pageable   The page to return. Its sort is ignored since results are ordered by relevance.
+     */
+    public ProductSearchResponse search(String keyword, Integer categoryId, Pageable pageable) {
+        NgramIndex.Result<IndexedProduct> result = index.search(
+                keyword,
+                (int) pageable.getOffset(),
+                pageable.getPageSize(),
+                categoryId == null ? product -> true : product -> product.categoryId() == categoryId,
+                IndexedProduct::categoryId);
+
+        List<ProductDTO> items = result.matches().stream().map(match -> match.value().product()).toList();
+        List<CategoryFacet> facets = result.facets().entrySet().stream()
+                .map(facet -> facet.getKey() == UNCATEGORIZED
+                        ? new CategoryFacet(null, UNCATEGORIZED_TITLE, facet.getValue())
+                        : new CategoryFacet(facet.getKey(), categoryTitles.get(facet.getKey()), facet.getValue()))
+                .sorted(Comparator.comparingInt(CategoryFacet::getCount).reversed())
+                .toList();
+        int totalPages = (int) Math.ceil((double) result.total() / pageable.getPageSize());
+        return new ProductSearchResponse(items, pageable.getPageNumber(), pageable.getPageSize(), result.total(), totalPages, facets);
+    }
+
+    public void index(ProductDTO product, Category category) {
+        index(product, category == null ? null : category.getId());
+    }
+
+    public void index(ProductDTO product, Integer categoryId) {
+        TransactionUtil.afterCommit(() -> put(product, categoryId));
+    }
+
+    /**
+     * Records a product's new quantity. Only the stored product changes, nothing searchable does. The stored
+     * product is replaced by a copy rather than modified, since searches may be reading it.
+     */
+    public void updateQuantity(Integer productId, int quantity) {
+        TransactionUtil.afterCommit(() -> {
+            lock.lock();
+            try {
+                IndexedProduct indexed = products.get(productId);
+                if (indexed != null) {
+                    IndexedProduct updated = new IndexedProduct(withQuantity(indexed.product(), quantity), indexed.categoryId());
+                    products.put(productId, updated);
+                    index.replaceValue(productId, updated);
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    public void remove(Integer productId) {
+        TransactionUtil.afterCommit(() -> {
+            lock.lock();
+            try {
+                products.remove(productId);
+                index.remove(productId);
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Records a created or renamed category and re-indexes its products under the new title.
+     */
+    public void updateCategory(Integer categoryId, String title) {
+        TransactionUtil.afterCommit(() -> {
+            lock.lock();
+            try {
+                categoryTitles.put(categoryId, title);
+                for (IndexedProduct product : products.values()) {
+                    if (product.categoryId() == categoryId) {
+                        putLocked(product.product(), categoryId);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Forgets a deleted category and the products deleted with it.
+     */
+    public void removeCategory(Integer categoryId) {
+        TransactionUtil.afterCommit(() -> {
+            lock.lock();
+            try {
+                categoryTitles.remove(categoryId);
+                products.values().removeIf(product -> {
+                    if (product.categoryId() != categoryId) {
+                        return false;
+                    }
+                    index.remove(product.product().getId());
+                    return true;
+                });
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    private void put(ProductDTO product, Integer categoryId) {
+        lock.lock();
+        try {
+            putLocked(product, categoryId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void putLocked(ProductDTO product, Integer categoryId) {
+        IndexedProduct indexed = new IndexedProduct(product, categoryId == null ? UNCATEGORIZED : categoryId);
+        products.put(product.getId(), indexed);
+        String categoryTitle = categoryId == null ? null : categoryTitles.get(categoryId);
+        index.put(product.getId(), indexed, product.getName(), product.getProductId(), categoryTitle);
+    }
+
+    private static ProductDTO withQuantity(ProductDTO product, int quantity) {
+        ProductDTO copy = new ProductDTO();
+        copy.setId(product.getId());
+        copy.setProductId(product.getProductId());
+        copy.setName(product.getName());
+        copy.setPurchasePrice(product.getPurchasePrice());
+        copy.setSellingPrice(product.getSellingPrice());
+        copy.setQuantity(quantity);
+        return copy;
+    }
+
+    private static Integer categoryIdOf(Product product) {
+        return product.getCategory() == null ? null : product.getCategory().getId();
+    }
+
+    private record IndexedProduct(ProductDTO product, int categoryId) {
+    }
+}
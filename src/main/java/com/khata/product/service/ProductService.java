@@ -1,6 +1,9 @@
 package com.khata.product.service;
 
+import com.khata.payload.CursorPaginationResponse;
 import com.khata.product.dto.ProductDTO;
+import com.khata.product.dto.StockMovementDTO;
+import com.khata.product.payload.ProductSearchResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -9,5 +12,9 @@ public interface ProductService {
     ProductDTO updateProduct(ProductDTO productDTO, Integer productId);
     ProductDTO getProductById(Integer productId);
     Page<ProductDTO> getProducts(Pageable pageable);
+    CursorPaginationResponse<ProductDTO> getProducts(String cursor, Pageable pageable);
+    ProductSearchResponse searchProducts(String keyword, Integer categoryId, Pageable pageable);
     void deleteProduct(Integer productId);
+    StockMovementDTO adjustStock(Integer productId, StockMovementDTO movementDTO);
+    Page<StockMovementDTO> getStockMovements(Integer productId, Pageable pageable);
 }
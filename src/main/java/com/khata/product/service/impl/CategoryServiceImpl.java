@@ -1,36 +1,60 @@
 package com.khata.product.service.impl;
 
 import com.khata.exceptions.ResourceNotFoundException;
+import com.khata.payload.CursorPaginationResponse;
 import com.khata.product.dto.CategoryDTO;
 import com.khata.product.entity.Category;
+import com.khata.product.mapper.CategoryMapper;
 import com.khata.product.repositories.CategoryRepo;
+import com.khata.product.repositories.ProductRepo;
+import com.khata.product.repositories.StockMovementRepo;
 import com.khata.product.service.CategoryService;
+import com.khata.product.service.ProductCatalogCache;
+import com.khata.product.service.ProductSearchIndex;
+import com.khata.utils.CursorPaginator;
+import com.khata.utils.RowCounters;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Set;
+
 @Service
 @Slf4j
 public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepo categoryRepo;
-    private final ModelMapper modelMapper;
+    private final ProductRepo productRepo;
+    private final StockMovementRepo stockMovementRepo;
+    private final CategoryMapper categoryMapper;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductCatalogCache productCatalogCache;
+    private final CursorPaginator cursorPaginator;
+    private final RowCounters rowCounters;
 
-    public CategoryServiceImpl(CategoryRepo categoryRepo, ModelMapper modelMapper) {
+    public CategoryServiceImpl(CategoryRepo categoryRepo, ProductRepo productRepo, StockMovementRepo stockMovementRepo,
+                               CategoryMapper categoryMapper, ProductSearchIndex productSearchIndex, ProductCatalogCache productCatalogCache,
+                               CursorPaginator cursorPaginator, RowCounters rowCounters) {
         this.categoryRepo = categoryRepo;
-        this.modelMapper = modelMapper;
+        this.productRepo = productRepo;
+        this.stockMovementRepo = stockMovementRepo;
+        this.categoryMapper = categoryMapper;
+        this.productSearchIndex = productSearchIndex;
+        this.productCatalogCache = productCatalogCache;
+        this.cursorPaginator = cursorPaginator;
+        this.rowCounters = rowCounters;
     }
 
     @Override
     @Transactional
     public CategoryDTO createCategory(CategoryDTO categoryDTO) {
-        Category category = this.modelMapper.map(categoryDTO, Category.class);
+        Category category = this.categoryMapper.toEntity(categoryDTO);
         Category savedCategory = this.categoryRepo.save(category);
+        this.productSearchIndex.updateCategory(savedCategory.getId(), savedCategory.getTitle());
         log.info("Category created with title: {}", category.getTitle());
-        return this.modelMapper.map(savedCategory, CategoryDTO.class);
+        return this.categoryMapper.toDTO(savedCategory);
     }
 
     @Override
@@ -39,28 +63,44 @@ public class CategoryServiceImpl implements CategoryService {
         Category category = getCategoryEntityById(categoryId);
         category.setTitle(categoryDTO.getTitle());
         Category updatedCategory = this.categoryRepo.save(category);
+        this.productSearchIndex.updateCategory(categoryId, updatedCategory.getTitle());
+        this.productCatalogCache.invalidateCategory(categoryId);
         log.info("Category updated with ID: {}", categoryId);
-        return this.modelMapper.map(updatedCategory, CategoryDTO.class);
+        return this.categoryMapper.toDTO(updatedCategory);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public CategoryDTO getCategoryById(Integer categoryId) {
-        Category category = getCategoryEntityById(categoryId);
-        return this.modelMapper.map(category, CategoryDTO.class);
+        return this.productCatalogCache.getCategory(categoryId, id -> this.categoryMapper.toDTO(getCategoryEntityById(id)));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<CategoryDTO> getCategories(Pageable pageable) {
-        Page<Category> categories = this.categoryRepo.findAll(pageable);
-        return categories.map(category -> this.modelMapper.map(category, CategoryDTO.class));
+        return this.categoryRepo.findCategoryList(pageable);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public CursorPaginationResponse<CategoryDTO> getCategories(String cursor, Pageable pageable) {
+        return this.cursorPaginator.scroll(this.categoryRepo, Category.class, cursor, pageable, Set.of("title"),
+                category -> this.categoryMapper.toDTO(category));
+    }
+
+    @Override
+    @Transactional
     public void deleteCategory(Integer categoryId) {
-        Category category = getCategoryEntityById(categoryId);
-        this.categoryRepo.delete(category);
+        // Products first, because of the foreign key. Neither the category nor its products are loaded
+        this.stockMovementRepo.deleteByCategoryId(categoryId);
+        int deletedProducts = this.productRepo.deleteByCategoryId(categoryId);
+        if (this.categoryRepo.deleteCategoryById(categoryId) == 0) {
+            throw new ResourceNotFoundException("Category", "id", categoryId);
+        }
+        this.productSearchIndex.removeCategory(categoryId);
+        this.productCatalogCache.invalidateCategory(categoryId);
+        // The ids of the deleted products are not known here
+        this.productCatalogCache.invalidateAllProducts();
+        this.rowCounters.decrement(ProductServiceImpl.ROW_COUNTER, deletedProducts);
         log.info("Category deleted with ID: {}", categoryId);
     }
 
@@ -0,0 +1,242 @@
+package com.khata.product.service.impl;
+
+import com.khata.exceptions.ApiException;
+import com.khata.payload.ImportReport;
+import com.khata.product.dto.CategoryDTO;
+import com.khata.product.dto.ProductDTO;
+import com.khata.product.repositories.CategoryRepo;
+import com.khata.product.service.ProductImportService;
+import com.khata.product.service.ProductSearchIndex;
+import com.khata.utils.CsvReader;
+import com.khata.utils.RowCounters;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Imports products from a CSV upload.
+ * <p>
+ * The file is read one record at a time and written in chunks, each in its own transaction, so memory stays
+ * constant and a bad chunk does not undo the ones before it. Ids for a chunk are taken from the product id
+ * sequence in one round trip, which lets the rows go out as a single JDBC batch; Hibernate cannot batch
+ * inserts into an identity column. Rows that fail validation are skipped and listed in the report by their line
+ * in the file, counting the header as row 1.
+ * <p>
+ * Expected columns, matched case-insensitively and ignoring spaces and underscores: {@code name},
+ * {@code quantity}, {@code purchasePrice}, {@code sellingPrice} and the optional {@code category} title.
+ */
+@Service
+@Slf4j
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final int MAX_NAME_LENGTH = 100;
+    // The price columns are numeric(38, 2)
+    private static final int PRICE_PRECISION = 38;
+    private static final int PRICE_SCALE = 2;
+    private static final String ALLOCATE_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('product', 'id')) FROM generate_series(1, ?)";
+    private static final String INSERT_SQL =
+            "INSERT INTO product (id, product_id, quantity, name, purchase_price, selling_price, category_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryRepo categoryRepo;
+    private final ProductSearchIndex productSearchIndex;
+    private final RowCounters rowCounters;
+
+    public ProductImportServiceImpl(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                    CategoryRepo categoryRepo, ProductSearchIndex productSearchIndex, RowCounters rowCounters) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.categoryRepo = categoryRepo;
+        this.productSearchIndex = productSearchIndex;
+        this.rowCounters = rowCounters;
+    }
+
+    @Override
+    public ImportReport importProducts(InputStream csv) {
+        long start = System.currentTimeMillis();
+        ImportReport report = new ImportReport();
+        Map<String, Integer> categoryIds = loadCategoryIds();
+        List<ProductRow> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        try (CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8)))) {
+            Columns columns = Columns.of(reader.readHeader());
+            String[] record;
+            try {
+                while ((record = reader.next()) != null) {
+                    if (CsvReader.isBlank(record)) {
+                        continue;
+                    }
+                    try {
+                        chunk.add(parse(reader.getRecordNumber(), record, columns, categoryIds));
+                    } catch (IllegalArgumentException ex) {
+                        report.addError(reader.getRecordNumber(), ex.getMessage());
+                        continue;
+                    }
+                    if (chunk.size() == CHUNK_SIZE) {
+                        insertChunk(chunk, report);
+                        chunk.clear();
+                    }
+                }
+            } catch (IOException ex) {
+                // Rows read so far are still imported; the rest of the file cannot be trusted
+                report.addError(reader.getRecordNumber() + 1, "Import stopped, the file could not be read: " + ex.getMessage());
+            }
+        } catch (IOException ex) {
+            throw new ApiException("The uploaded file could not be read");
+        }
+        if (!chunk.isEmpty()) {
+            insertChunk(chunk, report);
+        }
+
+        log.info("Product import finished in {} ms: {} imported, {} failed",
+                System.currentTimeMillis() - start, report.getImported(), report.getFailed());
+        return report;
+    }
+
+    private Map<String, Integer> loadCategoryIds() {
+        Map<String, Integer> categoryIds = new HashMap<>();
+        // Read as DTOs, so the entities are not held and dirty checked by every chunk commit
+        for (CategoryDTO category : categoryRepo.findCategoryList(Pageable.unpaged())) {
+            categoryIds.putIfAbsent(normalize(category.getTitle()), category.getId());
+        }
+        return categoryIds;
+    }
+
+    private void insertChunk(List<ProductRow> chunk, ImportReport report) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Integer> ids = jdbcTemplate.queryForList(ALLOCATE_IDS_SQL, Integer.class, chunk.size());
+                List<Object[]> args = new ArrayList<>(chunk.size());
+                for (int i = 0; i < chunk.size(); i++) {
+                    ProductRow row = chunk.get(i);
+                    args.add(new Object[]{ids.get(i), row.productId(), row.quantity(), row.name(),
+                            row.purchasePrice(), row.sellingPrice(), row.categoryId()});
+                }
+                jdbcTemplate.batchUpdate(INSERT_SQL, args);
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    ProductRow row = chunk.get(i);
+                    ProductDTO product = new ProductDTO(ids.get(i), row.productId(), row.quantity(), row.name(),
+                            row.purchasePrice(), row.sellingPrice());
+                    productSearchIndex.index(product, row.categoryId());
+                }
+                rowCounters.increment(ProductServiceImpl.ROW_COUNTER, chunk.size());
+            });
+            report.addImported(chunk.size());
+        } catch (DataAccessException ex) {
+            log.warn("Product import chunk starting at row {} failed", chunk.get(0).row(), ex);
+            String message = "Could not be saved: " + ex.getMostSpecificCause().getMessage();
+            for (ProductRow row : chunk) {
+                report.addError(row.row(), message);
+            }
+        }
+    }
+
+    private static ProductRow parse(long row, String[] record, Columns columns, Map<String, Integer> categoryIds) {
+        String name = CsvReader.field(record, columns.name);
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Product name cannot be null");
+        }
+        if (name.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Product name must be less than 100 characters");
+        }
+        int quantity = parseQuantity(CsvReader.field(record, columns.quantity));
+        BigDecimal purchasePrice = parsePrice(CsvReader.field(record, columns.purchasePrice), "Purchase price");
+        BigDecimal sellingPrice = parsePrice(CsvReader.field(record, columns.sellingPrice), "Selling price");
+
+        Integer categoryId = null;
+        String category = CsvReader.field(record, columns.category);
+        if (!category.isEmpty()) {
+            categoryId = categoryIds.get(normalize(category));
+            if (categoryId == null) {
+                throw new IllegalArgumentException("Unknown category: " + category);
+            }
+        }
+        return new ProductRow(row, ProductServiceImpl.generateProductId(name), name, quantity, purchasePrice, sellingPrice, categoryId);
+    }
+
+    private static int parseQuantity(String value) {
+        int quantity;
+        try {
+            quantity = Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Quantity must be a whole number: " + value);
+        }
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must be greater than or equal to 0");
+        }
+        return quantity;
+    }
+
+    private static BigDecimal parsePrice(String value, String label) {
+        BigDecimal price;
+        try {
+            price = new BigDecimal(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(label + " must be a number: " + value);
+        }
+        if (price.signum() < 0) {
+            throw new IllegalArgumentException(label + " must be greater than or equal to 0");
+        }
+        // Checked here, since Postgres would round extra decimals and reject the whole chunk for too many digits
+        BigDecimal stripped = price.stripTrailingZeros();
+        if (stripped.scale() > PRICE_SCALE) {
+            throw new IllegalArgumentException(label + " can have at most " + PRICE_SCALE + " decimal places: " + value);
+        }
+        if (stripped.precision() - stripped.scale() > PRICE_PRECISION - PRICE_SCALE) {
+            throw new IllegalArgumentException(label + " is too large: " + value);
+        }
+        return stripped.setScale(PRICE_SCALE);
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record ProductRow(long row, String productId, String name, int quantity,
+                              BigDecimal purchasePrice, BigDecimal sellingPrice, Integer categoryId) {
+    }
+
+    /**
+     * Positions of the known columns in the header, -1 for an absent optional column.
+     */
+    private record Columns(int name, int quantity, int purchasePrice, int sellingPrice, int category) {
+
+        static Columns of(CsvReader.Header header) {
+            if (header == null) {
+                throw new ApiException("The uploaded file is empty");
+            }
+            return new Columns(required(header, "name"), required(header, "quantity"),
+                    required(header, "purchasePrice"), required(header, "sellingPrice"),
+                    header.indexOf("category"));
+        }
+
+        private static int required(CsvReader.Header header, String column) {
+            int position = header.indexOf(column);
+            if (position < 0) {
+                throw new ApiException("The CSV header must contain the columns name, quantity, purchasePrice and sellingPrice");
+            }
+            return position;
+        }
+    }
+}
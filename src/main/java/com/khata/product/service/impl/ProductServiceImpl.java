@@ -1,76 +1,172 @@
 package com.khata.product.service.impl;
 
+import com.khata.exceptions.ApiException;
 import com.khata.exceptions.ResourceNotFoundException;
+import com.khata.payload.CursorPaginationResponse;
 import com.khata.product.dto.ProductDTO;
+import com.khata.product.dto.StockMovementDTO;
 import com.khata.product.entity.Product;
+import com.khata.product.entity.StockMovement;
+import com.khata.product.mapper.ProductMapper;
+import com.khata.product.mapper.StockMovementMapper;
+import com.khata.product.payload.ProductSearchResponse;
 import com.khata.product.repositories.ProductRepo;
+import com.khata.product.repositories.StockMovementRepo;
+import com.khata.product.service.ProductCatalogCache;
+import com.khata.product.service.ProductSearchIndex;
 import com.khata.product.service.ProductService;
+import com.khata.utils.CursorPaginator;
+import com.khata.utils.PaginationUtil;
+import com.khata.utils.RowCounters;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 @Slf4j
 public class ProductServiceImpl implements ProductService {
 
+    static final String ROW_COUNTER = "product";
+    private static final Set<String> CURSOR_SORTS = Set.of("productId", "name", "quantity", "purchasePrice", "sellingPrice");
+
     private final ProductRepo productRepo;
-    private final ModelMapper modelMapper;
+    private final StockMovementRepo stockMovementRepo;
+    private final ProductMapper productMapper;
+    private final StockMovementMapper stockMovementMapper;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductCatalogCache productCatalogCache;
+    private final CursorPaginator cursorPaginator;
+    private final RowCounters rowCounters;
 
-    public ProductServiceImpl(ProductRepo productRepo, ModelMapper modelMapper) {
+    public ProductServiceImpl(ProductRepo productRepo, StockMovementRepo stockMovementRepo, ProductMapper productMapper,
+                              StockMovementMapper stockMovementMapper, ProductSearchIndex productSearchIndex,
+                              ProductCatalogCache productCatalogCache, CursorPaginator cursorPaginator, RowCounters rowCounters) {
         this.productRepo = productRepo;
-        this.modelMapper = modelMapper;
+        this.stockMovementRepo = stockMovementRepo;
+        this.productMapper = productMapper;
+        this.stockMovementMapper = stockMovementMapper;
+        this.productSearchIndex = productSearchIndex;
+        this.productCatalogCache = productCatalogCache;
+        this.cursorPaginator = cursorPaginator;
+        this.rowCounters = rowCounters;
+        rowCounters.register(ROW_COUNTER, productRepo::count);
     }
 
     @Override
     @Transactional
     public ProductDTO createProduct(ProductDTO productDTO) {
         String productId = generateProductId(productDTO.getName());
-        Product product = this.modelMapper.map(productDTO, Product.class);
+        Product product = this.productMapper.toEntity(productDTO);
         product.setProductId(productId);
         Product savedProduct = this.productRepo.save(product);
+        this.rowCounters.increment(ROW_COUNTER);
         log.info("Product created with title: {}", product.getName());
-        return this.modelMapper.map(savedProduct, ProductDTO.class);
+        ProductDTO savedProductDTO = this.productMapper.toDTO(savedProduct);
+        this.productSearchIndex.index(savedProductDTO, savedProduct.getCategory());
+        return savedProductDTO;
     }
 
+    /**
+     * Updates the product's name and prices. The quantity in the request is ignored: stock only changes through
+     * {@link #adjustStock}, so an edit made from a stale read cannot overwrite movements applied in the meantime.
+     */
     @Override
     @Transactional
     public ProductDTO updateProduct(ProductDTO productDTO, Integer productId) {
         Product product = getProductEntityById(productId);
-        product.setName(product.getName());
-        product.setQuantity(product.getQuantity());
-        product.setSellingPrice(product.getSellingPrice());
-        product.setPurchasePrice(product.getPurchasePrice());
+        product.setName(productDTO.getName());
+        product.setSellingPrice(BigDecimal.valueOf(productDTO.getSellingPrice()));
+        product.setPurchasePrice(BigDecimal.valueOf(productDTO.getPurchasePrice()));
         Product updatedProduct = this.productRepo.save(product);
+        this.productCatalogCache.invalidateProduct(productId);
         log.info("Product updated with ID: {}", productId);
-        return this.modelMapper.map(updatedProduct, ProductDTO.class);
+        ProductDTO updatedProductDTO = this.productMapper.toDTO(updatedProduct);
+        this.productSearchIndex.index(updatedProductDTO, updatedProduct.getCategory());
+        return updatedProductDTO;
     }
 
     @Override
-    @Transactional(readOnly = true)
     public ProductDTO getProductById(Integer productId) {
-        Product product = getProductEntityById(productId);
-        return this.modelMapper.map(product, ProductDTO.class);
+        return this.productCatalogCache.getProduct(productId, id -> this.productMapper.toDTO(getProductEntityById(id)));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<ProductDTO> getProducts(Pageable pageable) {
-        Page<Product> products = this.productRepo.findAll(pageable);
-        return products.map(product -> this.modelMapper.map(product, ProductDTO.class));
+        Slice<ProductDTO> products = this.productRepo.findProductList(pageable);
+        return PaginationUtil.withTotal(products, this.rowCounters.get(ROW_COUNTER));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPaginationResponse<ProductDTO> getProducts(String cursor, Pageable pageable) {
+        return this.cursorPaginator.scroll(this.productRepo, Product.class, cursor, pageable, CURSOR_SORTS,
+                product -> this.productMapper.toDTO(product));
+    }
+
+    @Override
+    public ProductSearchResponse searchProducts(String keyword, Integer categoryId, Pageable pageable) {
+        return this.productSearchIndex.search(keyword, categoryId, pageable);
     }
 
     @Override
+    @Transactional
     public void deleteProduct(Integer productId) {
         Product product = getProductEntityById(productId);
+        this.stockMovementRepo.deleteByProductId(productId);
         this.productRepo.delete(product);
+        this.productCatalogCache.invalidateProduct(productId);
+        this.rowCounters.decrement(ROW_COUNTER);
+        this.productSearchIndex.remove(productId);
         log.info("Product deleted with ID: {}", productId);
     }
 
+    /**
+     * Adds a signed quantity to the product's stock and records the movement.
+     * <p>
+     * The change is applied and recorded by a single conditional statement instead of reading, changing and saving
+     * the product, so concurrent movements of the same product are queued by the database row lock and none is lost.
+     * Unless the movement allows it, a movement that would take the quantity below 0 is rejected and changes nothing.
+     *
+     * @param productId   The id of the product.
+     * @param movementDTO The movement to apply.
+     * @return The recorded movement with the product's quantity after it.
+     */
+    @Override
+    @Transactional
+    public StockMovementDTO adjustStock(Integer productId, StockMovementDTO movementDTO) {
+        int change = movementDTO.getQuantityChange();
+        if (change == 0) {
+            throw new ApiException("Quantity change cannot be 0");
+        }
+        StockMovement movement = this.stockMovementRepo.record(productId, change, movementDTO.isAllowNegative(),
+                movementDTO.getReference(), LocalDateTime.now()).orElseThrow(() -> {
+            if (!this.productRepo.existsById(productId)) {
+                return new ResourceNotFoundException("Product", "id", productId);
+            }
+            return new ApiException("Not enough stock to remove " + -change + " units");
+        });
+        int quantity = movement.getQuantityAfter();
+
+        this.productCatalogCache.invalidateProduct(productId);
+        this.productSearchIndex.updateQuantity(productId, quantity);
+        log.info("Stock of product {} changed by {} to {}", productId, change, quantity);
+        return this.stockMovementMapper.toDTO(movement);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<StockMovementDTO> getStockMovements(Integer productId, Pageable pageable) {
+        return this.stockMovementRepo.findByProductIdOrderByIdDesc(productId, pageable).map(this.stockMovementMapper::toDTO);
+    }
 
     private Product getProductEntityById(Integer productId) {
         return productRepo.findById(productId).orElseThrow(
@@ -85,8 +181,8 @@ public class ProductServiceImpl implements ProductService {
      * @param productName The name of the product.
      * @return A unique product ID in the format "<prefix>_<UUID>".
      */
-    private String generateProductId(String productName) {
-        String prefix = productName.substring(0, 2).toUpperCase();
+    static String generateProductId(String productName) {
+        String prefix = productName.substring(0, Math.min(2, productName.length())).toUpperCase();
         String uniqueSuffix = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
         return prefix + "_" + uniqueSuffix;
     }
@@ -0,0 +1,40 @@
+package com.khata.utils;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+public class CacheMetrics {
+
+    /**
+     * Publishes the size, hit, miss and eviction counters and the load timer of an {@link ExpiringCache}
+     * under the standard {@code cache.*} meter names, tagged with the cache name.
+     *
+     * @param registry  the registry to publish to
+     * @param cacheName the value of the {@code cache} tag
+     * @param cache     the cache to observe
+     */
+    public static void bind(MeterRegistry registry, String cacheName, ExpiringCache<?, ?> cache) {
+        Gauge.builder("cache.size", cache, ExpiringCache::size)
+                .tag("cache", cacheName)
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, ExpiringCache::getHitCount)
+                .tag("cache", cacheName)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, ExpiringCache::getMissCount)
+                .tag("cache", cacheName)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", cache, ExpiringCache::getEvictionCount)
+                .tag("cache", cacheName)
+                .register(registry);
+        FunctionTimer.builder("cache.load.duration", cache, ExpiringCache::getLoadCount,
+                        ExpiringCache::getTotalLoadTimeNanos, TimeUnit.NANOSECONDS)
+                .tag("cache", cacheName)
+                .register(registry);
+    }
+}
@@ -0,0 +1,160 @@
+package com.khata.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming reader of comma separated values as described in RFC 4180.
+ * <p>
+ * Records are read one at a time, so memory does not grow with the size of the input. Fields may be quoted
+ * with double quotes, in which case they can contain commas, line breaks and doubled quotes. Records end with
+ * LF, CRLF or CR.
+ */
+public class CsvReader implements Closeable {
+
+    private static final int NONE = -2;
+
+    private final Reader reader;
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    private int pending = NONE;
+    private long recordNumber;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return The fields of the record, or null at the end of the input.
+     * @throws IOException If reading fails or a quoted field is not closed before the end of the input.
+     */
+    public String[] next() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        fields.clear();
+        field.setLength(0);
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field in record " + (recordNumber + 1));
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next != '"') {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                break;
+            } else if (c == '\r') {
+                int next = read();
+                if (next != '\n') {
+                    pending = next;
+                }
+                break;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+        fields.add(field.toString());
+        recordNumber++;
+        return fields.toArray(String[]::new);
+    }
+
+    /**
+     * Reads the next record as a header row.
+     *
+     * @return The header, or null at the end of the input.
+     * @throws IOException If reading fails.
+     */
+    public Header readHeader() throws IOException {
+        String[] record = next();
+        return record == null ? null : new Header(record);
+    }
+
+    /**
+     * Returns the number of records read so far, which is the 1-based number of the last record returned.
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Returns the trimmed value of a column, or an empty string if the record is shorter or the column is absent (-1).
+     */
+    public static String field(String[] record, int column) {
+        return column >= 0 && column < record.length ? record[column].trim() : "";
+    }
+
+    /**
+     * Tells whether every field of the record is blank, as for an empty line.
+     */
+    public static boolean isBlank(String[] record) {
+        for (String value : record) {
+            if (!value.isBlank()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int read() throws IOException {
+        if (pending != NONE) {
+            int c = pending;
+            pending = NONE;
+            return c;
+        }
+        return reader.read();
+    }
+
+    /**
+     * Column positions of a header row. Names are matched case-insensitively and ignoring spaces, underscores
+     * and the UTF-8 byte order mark that spreadsheet tools write in front of the first column.
+     */
+    public static final class Header {
+
+        private final Map<String, Integer> positions = new HashMap<>();
+
+        Header(String[] names) {
+            for (int i = 0; i < names.length; i++) {
+                positions.putIfAbsent(normalize(names[i]), i);
+            }
+        }
+
+        /**
+         * Returns the position of the first column with the name, or -1 if there is none.
+         */
+        public int indexOf(String name) {
+            return positions.getOrDefault(normalize(name), -1);
+        }
+
+        private static String normalize(String name) {
+            return name.replace("\uFEFF", "").replaceAll("[\\s_]", "").toLowerCase(Locale.ROOT);
+        }
+    }
+}
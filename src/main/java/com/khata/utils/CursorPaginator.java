@@ -0,0 +1,189 @@
+package com.khata.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.khata.exceptions.ApiException;
+import com.khata.payload.CursorPaginationResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset (cursor) pagination for list endpoints.
+ * <p>
+ * Each page is read with {@code WHERE (sort keys, id) > (last row)}, so deep pages cost the same as the first one,
+ * and no count query is issued. The position of the last row is handed to the client as an opaque cursor:
+ * the sort key values and the sort they belong to, signed with HMAC-SHA256 so clients cannot forge positions.
+ * Decoded values are converted back to the attribute types declared in the JPA metamodel. Since cursors are
+ * readable, each caller names the properties that may be sorted by, and any other sort is refused, so a sort by
+ * a secret column cannot copy its values into a cursor.
+ * <p>
+ * Set {@code pagination.cursor.secret} to share cursors between nodes and restarts. Without it a random
+ * per-process secret is used.
+ */
+@Component
+@Slf4j
+public class CursorPaginator {
+
+    private static final String ID = "id";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ConversionService conversionService = DefaultConversionService.getSharedInstance();
+    private final SecretKeySpec secret;
+
+    public CursorPaginator(EntityManager entityManager, ObjectMapper objectMapper, @Value("${pagination.cursor.secret:}") String secret) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        byte[] key;
+        if (secret.isBlank()) {
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            log.warn("pagination.cursor.secret is not set, cursors will not survive a restart or work across nodes");
+        } else {
+            key = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.secret = new SecretKeySpec(key, HMAC_ALGORITHM);
+    }
+
+    /**
+     * Reads the page after the cursor, ordered by the sort of the pageable with the id as tie-breaker.
+     *
+     * @param repository The repository of the entity.
+     * @param entityType The entity class, used to validate sort properties and type cursor values.
+     * @param cursor     The cursor from the previous page, or null or blank for the first page.
+     * @param pageable   Supplies the page size and sort. Its page number is ignored.
+     * @param sortable   The properties the page may be sorted by, besides the id.
+     * @param mapper     Maps each entity to the returned item.
+     */
+    public <T, D> CursorPaginationResponse<D> scroll(
+            JpaSpecificationExecutor<T> repository,
+            Class<T> entityType,
+            String cursor,
+            Pageable pageable,
+            Set<String> sortable,
+            Function<T, D> mapper) {
+        EntityType<T> entity = entityManager.getMetamodel().entity(entityType);
+        Sort sort = withIdTieBreaker(pageable.getSort());
+        for (Sort.Order order : sort) {
+            if (!ID.equals(order.getProperty()) && !sortable.contains(order.getProperty())) {
+                throw new ApiException("Cannot sort by " + order.getProperty());
+            }
+            requireAttribute(entity, order.getProperty());
+        }
+
+        ScrollPosition position = cursor == null || cursor.isBlank()
+                ? ScrollPosition.keyset()
+                : decode(entity, sort, cursor);
+        Specification<T> all = (root, query, builder) -> null;
+        Window<T> window = repository.findBy(all, query -> query.sortBy(sort).limit(pageable.getPageSize()).scroll(position));
+
+        String nextCursor = window.hasNext() && !window.isEmpty()
+                ? encode(sort, (KeysetScrollPosition) window.positionAt(window.size() - 1))
+                : null;
+        return new CursorPaginationResponse<>(window.map(mapper).getContent(), pageable.getPageSize(), window.hasNext(), nextCursor);
+    }
+
+    private String encode(Sort sort, KeysetScrollPosition position) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("sort", describe(sort));
+        Map<String, String> keys = new LinkedHashMap<>();
+        position.getKeys().forEach((property, value) -> keys.put(property, value == null ? null : value.toString()));
+        payload.put("keys", keys);
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(payload);
+            return ENCODER.encodeToString(body) + "." + ENCODER.encodeToString(sign(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode cursor", e);
+        }
+    }
+
+    private KeysetScrollPosition decode(EntityType<?> entity, Sort sort, String cursor) {
+        try {
+            int separator = cursor.indexOf('.');
+            if (separator < 0) {
+                throw new ApiException("Invalid cursor");
+            }
+            byte[] body = DECODER.decode(cursor.substring(0, separator));
+            byte[] signature = DECODER.decode(cursor.substring(separator + 1));
+            if (!MessageDigest.isEqual(sign(body), signature)) {
+                throw new ApiException("Invalid cursor");
+            }
+
+            Map<?, ?> payload = objectMapper.readValue(body, Map.class);
+            if (!describe(sort).equals(payload.get("sort"))) {
+                throw new ApiException("The cursor does not match the requested sort");
+            }
+            Map<?, ?> keys = (Map<?, ?>) payload.get("keys");
+            Map<String, Object> typedKeys = new LinkedHashMap<>();
+            for (Sort.Order order : sort) {
+                Object value = keys.get(order.getProperty());
+                Class<?> type = requireAttribute(entity, order.getProperty()).getJavaType();
+                typedKeys.put(order.getProperty(), value == null ? null : conversionService.convert(value, type));
+            }
+            return ScrollPosition.forward(typedKeys);
+        } catch (IllegalArgumentException | ClassCastException | java.io.IOException e) {
+            throw new ApiException("Invalid cursor");
+        }
+    }
+
+    private byte[] sign(byte[] body) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(secret);
+            return mac.doFinal(body);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign cursor", e);
+        }
+    }
+
+    private static Attribute<?, ?> requireAttribute(EntityType<?> entity, String property) {
+        try {
+            Attribute<?, ?> attribute = entity.getAttribute(property);
+            if (attribute.isCollection() || attribute.isAssociation()) {
+                throw new ApiException("Cannot sort by " + property);
+            }
+            return attribute;
+        } catch (IllegalArgumentException e) {
+            throw new ApiException("Unknown sort property: " + property);
+        }
+    }
+
+    private static Sort withIdTieBreaker(Sort sort) {
+        return sort.getOrderFor(ID) != null ? sort : sort.and(Sort.by(ID));
+    }
+
+    private static String describe(Sort sort) {
+        return sort.stream()
+                .map(order -> order.getProperty() + ":" + order.getDirection())
+                .collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,191 @@
+package com.khata.utils;
+
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A small, bounded, thread-safe in-memory cache where every entry carries its own expiry time.
+ * <p>
+ * Expired entries are dropped lazily when they are read and eagerly when the cache is full.
+ * If the cache is still full after purging expired entries, an arbitrary batch of live entries
+ * is evicted so that memory stays bounded no matter how many distinct keys are offered.
+ * <p>
+ * A value loaded by {@link #get(Object, Function)} is not kept if an invalidation happened while it was
+ * loading, so a slow read cannot put back a row that a concurrent write has just invalidated.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class ExpiringCache<K, V> {
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final long defaultTtlMillis;
+    private final Clock clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param maxSize          the maximum number of entries held at any time
+     * @param defaultTtlMillis the time to live used by {@link #put(Object, Object)}
+     */
+    public ExpiringCache(int maxSize, long defaultTtlMillis) {
+        this(maxSize, defaultTtlMillis, Clock.systemUTC());
+    }
+
+    /**
+     * @param maxSize          the maximum number of entries held at any time
+     * @param defaultTtlMillis the time to live used by {@link #put(Object, Object)}
+     * @param clock            the clock that expiry times are compared against
+     */
+    public ExpiringCache(int maxSize, long defaultTtlMillis, Clock clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxSize = maxSize;
+        this.defaultTtlMillis = defaultTtlMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the cached value for the key, or null if it is absent or has expired.
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(clock.millis())) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * Returns the cached value for the key, loading and caching it with the default time to live
+     * when it is absent. Null values returned by the loader are not cached.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        long invalidationsBefore = invalidations.get();
+        long start = System.nanoTime();
+        try {
+            value = loader.apply(key);
+        } finally {
+            loads.increment();
+            loadNanos.add(System.nanoTime() - start);
+        }
+        if (value != null) {
+            put(key, value);
+            // Checked after the put: an invalidation racing with it either removes the entry or is seen here
+            if (invalidations.get() != invalidationsBefore) {
+                entries.remove(key);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Caches the value using the default time to live.
+     */
+    public void put(K key, V value) {
+        put(key, value, clock.millis() + defaultTtlMillis);
+    }
+
+    /**
+     * Caches the value until the given wall-clock time in epoch milliseconds.
+     */
+    public void put(K key, V value, long expiresAtMillis) {
+        if (expiresAtMillis <= clock.millis()) {
+            return;
+        }
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            makeRoom();
+        }
+        entries.put(key, new Entry<>(value, expiresAtMillis));
+    }
+
+    public void invalidate(K key) {
+        invalidations.incrementAndGet();
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    public double getTotalLoadTimeNanos() {
+        return loadNanos.sum();
+    }
+
+    /**
+     * Drops expired entries and, if that is not enough, a batch of live entries.
+     */
+    private void makeRoom() {
+        long now = clock.millis();
+        entries.entrySet().removeIf(e -> {
+            boolean expired = e.getValue().isExpired(now);
+            if (expired) {
+                evictions.increment();
+            }
+            return expired;
+        });
+        if (entries.size() < maxSize) {
+            return;
+        }
+
+        int overflow = entries.size() - maxSize + Math.max(1, maxSize / 16);
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (overflow-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAtMillis) {
+        boolean isExpired(long now) {
+            return expiresAtMillis <= now;
+        }
+    }
+}
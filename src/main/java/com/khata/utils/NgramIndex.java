@@ -0,0 +1,430 @@
+package com.khata.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory trigram index for typeahead search, keyed by integer id.
+ * <p>
+ * Every word of every indexed field is split into trigrams, with the start of the word padded so that
+ * prefixes of a word produce its leading trigrams. A document matches when it shares enough of the query's
+ * trigrams: all of them for queries of up to three characters, at least half of them for longer ones, which
+ * tolerates a typo or two. Matches are ranked by the share of query trigrams they contain, with a bonus for
+ * words that start with or equal a query word.
+ * <p>
+ * Posting lists are sorted {@code int} arrays. Candidates come from merging only the rarest lists a match
+ * must appear in, and the remaining lists are probed with a galloping search from where the previous probe
+ * stopped, since candidates arrive in increasing id order. Common trigrams therefore do not make a query
+ * scan every document, and probes touch the lists front to back rather than at random.
+ * <p>
+ * Once a page worth of matches is held, a candidate's word bonus is first bounded from the lists it appeared
+ * in: a query word can only start a document word if all of its trigrams matched, and only equal one if the
+ * document has a word ending like it, which each word's end trigram records. The document's words are read
+ * only when that bound could still place it on the page.
+ * <p>
+ * Documents are held in an array indexed by id, so ids must not be negative and should be dense, as
+ * database sequence ids are.
+ *
+ * @param <T> the value stored with each document and returned with its matches
+ */
+public class NgramIndex<T> {
+
+    private static final char PAD = '$';
+    private static final int MAX_EXACT_GRAMS = 3;
+    private static final double MIN_SHARED_RATIO = 0.5;
+    private static final double MAX_WORD_BONUS = 1.5;
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private Document<?>[] documents = new Document<?>[16];
+    private int size;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Indexes the fields of a document, replacing any document already stored under the id.
+     *
+     * @param id     The id of the document.
+     * @param value  The value returned with matches of the document.
+     * @param fields The searchable texts of the document. Null fields are skipped.
+     */
+    public void put(int id, T value, String... fields) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Document ids must not be negative: " + id);
+        }
+        String[] words = words(fields);
+        lock.writeLock().lock();
+        try {
+            if (id >= documents.length) {
+                documents = Arrays.copyOf(documents, Math.max(id + 1, documents.length * 2));
+            }
+            Document<?> previous = documents[id];
+            documents[id] = new Document<>(value, " " + String.join(" ", words) + " ");
+            if (previous == null) {
+                size++;
+            } else {
+                for (String gram : indexedGrams(words(previous.text))) {
+                    Postings list = postings.get(gram);
+                    if (list != null && list.remove(id) && list.size == 0) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+            for (String gram : indexedGrams(words)) {
+                postings.computeIfAbsent(gram, g -> new Postings()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the value stored with a document, leaving its indexed fields as they are. Does nothing when no
+     * document is stored under the id.
+     */
+    public void replaceValue(int id, T value) {
+        lock.writeLock().lock();
+        try {
+            Document<?> previous = id >= 0 && id < documents.length ? documents[id] : null;
+            if (previous != null) {
+                documents[id] = new Document<>(value, previous.text);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            Document<?> previous = id >= 0 && id < documents.length ? documents[id] : null;
+            if (previous == null) {
+                return;
+            }
+            documents[id] = null;
+            size--;
+            for (String gram : indexedGrams(words(previous.text))) {
+                Postings list = postings.get(gram);
+                if (list != null && list.remove(id) && list.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents = new Document<?>[16];
+            size = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns one page of the documents matching the query, best match first.
+     *
+     * @param query  The text typed by the user.
+     * @param offset The number of ranked matches to skip.
+     * @param limit  The maximum number of matches to return.
+     * @return The requested matches and the total number of matching documents.
+     */
+    public Result<T> search(String query, int offset, int limit) {
+        return search(query, offset, limit, value -> true, null);
+    }
+
+    /**
+     * Returns one page of the documents matching the query and the filter, best match first, together with
+     * facet counts. Facets are counted over all documents matching the query, before the filter is applied,
+     * so the counts of other facet values stay visible while one of them is selected.
+     *
+     * @param query  The text typed by the user.
+     * @param offset The number of ranked matches to skip.
+     * @param limit  The maximum number of matches to return.
+     * @param filter Selects the documents that may be returned.
+     * @param facet  Maps a document value to its facet key, or null when no facets are needed.
+     * @return The requested matches, the total number of documents passing the filter and the facet counts.
+     */
+    public Result<T> search(String query, int offset, int limit, Predicate<? super T> filter, ToIntFunction<? super T> facet) {
+        String[] queryWords = words(query);
+        String[] queryGrams = grams(queryWords).toArray(String[]::new);
+        if (queryGrams.length == 0 || limit <= 0) {
+            return new Result<>(List.of(), 0, Map.of());
+        }
+        String[] wordStarts = new String[queryWords.length];
+        String[] wholeWords = new String[queryWords.length];
+        for (int i = 0; i < queryWords.length; i++) {
+            wordStarts[i] = " " + queryWords[i];
+            wholeWords[i] = wordStarts[i] + " ";
+        }
+
+        lock.readLock().lock();
+        try {
+            Arrays.sort(queryGrams, Comparator.comparingInt(gram -> postings(gram).size));
+            Postings[] lists = new Postings[queryGrams.length];
+            for (int i = 0; i < queryGrams.length; i++) {
+                lists[i] = postings(queryGrams[i]);
+            }
+            // The lists each query word needs all of to prefix a document word, and the list of documents with a
+            // word ending like it. Past 64 lists the masks stay empty and every word is assumed possible.
+            long[] wordLists = new long[queryWords.length];
+            Postings[] endLists = new Postings[queryWords.length];
+            for (int w = 0; w < queryWords.length; w++) {
+                if (queryGrams.length <= Long.SIZE) {
+                    for (String gram : grams(new String[]{queryWords[w]})) {
+                        wordLists[w] |= 1L << Arrays.asList(queryGrams).indexOf(gram);
+                    }
+                }
+                endLists[w] = postings(endGram(queryWords[w]));
+            }
+
+            int required = requiredShared(lists.length);
+            // A document sharing `required` grams must appear in at least one of the rarest (n - required + 1) lists
+            int seedLists = lists.length - required + 1;
+            int total = 0;
+            Map<Integer, Integer> facets = new HashMap<>();
+            PriorityQueue<Match<T>> top = new PriorityQueue<>(Match.BEST_FIRST.reversed());
+            int keep = offset + limit;
+            int[] positions = new int[lists.length];
+            int[] endPositions = new int[queryWords.length];
+            while (true) {
+                // Merge the sorted seed lists, taking the smallest id not yet visited and counting the lists it occurs in
+                int id = Integer.MAX_VALUE;
+                for (int i = 0; i < seedLists; i++) {
+                    if (positions[i] < lists[i].size) {
+                        id = Math.min(id, lists[i].ids[positions[i]]);
+                    }
+                }
+                if (id == Integer.MAX_VALUE) {
+                    break;
+                }
+                int count = 0;
+                long matched = 0;
+                for (int i = 0; i < seedLists; i++) {
+                    if (positions[i] < lists[i].size && lists[i].ids[positions[i]] == id) {
+                        positions[i]++;
+                        count++;
+                        matched |= 1L << i;
+                    }
+                }
+                for (int i = seedLists; i < lists.length && count + lists.length - i >= required; i++) {
+                    if (advance(lists[i], positions, i, id)) {
+                        count++;
+                        matched |= 1L << i;
+                    }
+                }
+                if (count < required) {
+                    continue;
+                }
+                Document<T> document = document(id);
+                if (facet != null) {
+                    facets.merge(facet.applyAsInt(document.value), 1, Integer::sum);
+                }
+                if (!filter.test(document.value)) {
+                    continue;
+                }
+                total++;
+                double shared = (double) count / lists.length;
+                if (top.size() == keep) {
+                    // Bound the word bonus from the lists alone, and read the document's words only if it could
+                    // rank. Ids arrive in increasing order, so a candidate that can at best tie the worst kept
+                    // match ranks below it.
+                    double bound = 0;
+                    for (int w = 0; w < queryWords.length; w++) {
+                        if ((matched & wordLists[w]) == wordLists[w]) {
+                            bound += advance(endLists[w], endPositions, w, id) ? MAX_WORD_BONUS : 1;
+                        }
+                    }
+                    if (shared + bound / queryWords.length <= top.peek().score()) {
+                        continue;
+                    }
+                }
+                double score = shared + wordBonus(wordStarts, wholeWords, document.text);
+                if (top.size() == keep) {
+                    if (score <= top.peek().score()) {
+                        continue;
+                    }
+                    top.poll();
+                }
+                top.offer(new Match<>(id, document.value, score));
+            }
+
+            List<Match<T>> ranked = new ArrayList<>(top);
+            ranked.sort(Match.BEST_FIRST);
+            List<Match<T>> page = offset >= ranked.size() ? List.of() : ranked.subList(offset, ranked.size());
+            return new Result<>(page, total, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Postings postings(String gram) {
+        return postings.getOrDefault(gram, Postings.EMPTY);
+    }
+
+    // Moves the list's cursor to the id, or past it, and tells whether the list holds the id
+    private static boolean advance(Postings list, int[] positions, int cursor, int id) {
+        positions[cursor] = list.seek(positions[cursor], id);
+        return positions[cursor] < list.size && list.ids[positions[cursor]] == id;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Document<T> document(int id) {
+        return (Document<T>) documents[id];
+    }
+
+    private static int requiredShared(int queryGrams) {
+        if (queryGrams <= MAX_EXACT_GRAMS) {
+            return queryGrams;
+        }
+        return (int) Math.ceil(queryGrams * MIN_SHARED_RATIO);
+    }
+
+    // One point for each query word that prefixes a document word, half a point more if it is the whole word
+    private static double wordBonus(String[] wordStarts, String[] wholeWords, String text) {
+        double bonus = 0;
+        for (int i = 0; i < wordStarts.length; i++) {
+            if (text.contains(wholeWords[i])) {
+                bonus += MAX_WORD_BONUS;
+            } else if (text.contains(wordStarts[i])) {
+                bonus += 1;
+            }
+        }
+        return bonus / wordStarts.length;
+    }
+
+    static String[] words(String... fields) {
+        List<String> words = new ArrayList<>();
+        for (String field : fields) {
+            if (field == null) {
+                continue;
+            }
+            for (String word : WORD_SEPARATOR.split(field.toLowerCase(Locale.ROOT))) {
+                if (!word.isEmpty()) {
+                    words.add(word);
+                }
+            }
+        }
+        return words.toArray(String[]::new);
+    }
+
+    static Set<String> grams(String[] words) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String word : words) {
+            String padded = "" + PAD + PAD + word;
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 3));
+            }
+        }
+        return grams;
+    }
+
+    // The text holds the document's words, each preceded and followed by a space, so one scan finds word starts
+    // The grams of the words plus the end gram of each, which lets ranking rule out a whole word match
+    private static Set<String> indexedGrams(String[] words) {
+        Set<String> grams = grams(words);
+        for (String word : words) {
+            grams.add(endGram(word));
+        }
+        return grams;
+    }
+
+    // The last two letters of the word and an end marker. Queries only look grams up by word start, so they
+    // never match an end gram.
+    static String endGram(String word) {
+        String padded = "" + PAD + PAD + word + PAD;
+        return padded.substring(padded.length() - 3);
+    }
+
+    private record Document<T>(T value, String text) {
+    }
+
+    public record Match<T>(int id, T value, double score) {
+
+        static final Comparator<Match<?>> BEST_FIRST = Comparator
+                .comparingDouble((Match<?> match) -> match.score).reversed()
+                .thenComparingInt(match -> match.id);
+    }
+
+    public record Result<T>(List<Match<T>> matches, int total, Map<Integer, Integer> facets) {
+    }
+
+    /**
+     * A sorted, growable array of ids. Ids are usually assigned in increasing order, so adding is an append.
+     */
+    private static final class Postings {
+
+        static final Postings EMPTY = new Postings();
+
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            int index = size > 0 && ids[size - 1] < id ? -(size + 1) : Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            int insertAt = -(index + 1);
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        /**
+         * Returns the position of the first id at or after {@code from} that is not less than the target, or
+         * the size when there is none. Doubles its stride from {@code from} before searching, so a run of
+         * increasing targets walks the list forwards.
+         */
+        int seek(int from, int target) {
+            if (from == size || ids[from] >= target) {
+                return from;
+            }
+            int low = from;
+            int step = 1;
+            while (low + step < size && ids[low + step] < target) {
+                low += step;
+                step <<= 1;
+            }
+            int index = Arrays.binarySearch(ids, low, Math.min(low + step + 1, size), target);
+            return index >= 0 ? index : -(index + 1);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.khata.utils;
 
 import com.khata.payload.PaginationResponse;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
 
 public class PaginationUtil {
     public static <T> PaginationResponse<T> buildPaginationResponse(Page<T> page) {
@@ -13,4 +15,22 @@ public class PaginationUtil {
                 page.getTotalPages()
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * Turns a slice read without a count query into a page, using a total maintained elsewhere, e.g. by {@link RowCounters}.
+     */
+    public static <T> Page<T> withTotal(Slice<T> slice, long total) {
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), total);
+    }
+
+    /**
+     * Turns a slice read without a count query into a page with an approximate total: the rows seen so far plus one
+     * if there is a next page. The total is a lower bound that grows as the client pages forward.
+     */
+    public static <T> Page<T> withApproximateTotal(Slice<T> slice) {
+        long seen = slice.getPageable().isPaged()
+                ? slice.getPageable().getOffset() + slice.getNumberOfElements()
+                : slice.getNumberOfElements();
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), slice.hasNext() ? seen + 1 : seen);
+    }
+}
@@ -0,0 +1,116 @@
+package com.khata.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory row totals used in place of {@code COUNT(*)} for unfiltered list endpoints.
+ * <p>
+ * A counter is registered under a name, such as an entity name or later an entity and tenant pair, together with
+ * the exact count query. It is loaded on first use, adjusted by the create and delete paths once their transaction
+ * commits, and resynchronised from the database on a schedule to correct drift from changes made elsewhere.
+ * <p>
+ * Adjustments that arrive while a count query runs are added to its result, since the query may not have seen
+ * their rows. One whose row committed before the query's snapshot, but whose after-commit callback had not run
+ * yet, is counted twice. The drift is bounded by the adjustments in flight while the count runs and is gone
+ * after the next resync that does not race one.
+ */
+@Component
+@Slf4j
+public class RowCounters {
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public void register(String name, LongSupplier exactCount) {
+        counters.putIfAbsent(name, new Counter(exactCount));
+    }
+
+    /**
+     * Returns the current total, counting the rows first if the counter was never loaded.
+     */
+    public long get(String name) {
+        Counter counter = counter(name);
+        if (!counter.loaded) {
+            counter.resync();
+        }
+        return counter.value;
+    }
+
+    public void increment(String name) {
+        add(name, 1);
+    }
+
+    public void increment(String name, long count) {
+        add(name, count);
+    }
+
+    public void decrement(String name) {
+        add(name, -1);
+    }
+
+    public void decrement(String name, long count) {
+        add(name, -count);
+    }
+
+    @Scheduled(fixedDelayString = "${row-counters.resync-interval:600000}")
+    public void resyncAll() {
+        counters.forEach((name, counter) -> {
+            long before = counter.value;
+            counter.resync();
+            long after = counter.value;
+            if (before != after) {
+                log.debug("Row counter {} corrected from {} to {}", name, before, after);
+            }
+        });
+    }
+
+    private void add(String name, long delta) {
+        Counter counter = counter(name);
+        TransactionUtil.afterCommit(() -> counter.add(delta));
+    }
+
+    private Counter counter(String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            throw new IllegalStateException("No row counter registered for " + name);
+        }
+        return counter;
+    }
+
+    private static final class Counter {
+
+        final LongSupplier exactCount;
+        volatile long value;
+        // Total of the adjustments ever applied, used to carry over those made while a count query runs
+        long changes;
+        volatile boolean loaded;
+
+        Counter(LongSupplier exactCount) {
+            this.exactCount = exactCount;
+        }
+
+        synchronized void add(long delta) {
+            changes += delta;
+            value += delta;
+        }
+
+        // The query runs outside the lock. Reading the adjustments made meanwhile and storing the total is one
+        // step under it, so an adjustment cannot land in between and be overwritten.
+        void resync() {
+            long changesBefore;
+            synchronized (this) {
+                changesBefore = changes;
+            }
+            long exact = exactCount.getAsLong();
+            synchronized (this) {
+                value = exact + changes - changesBefore;
+                loaded = true;
+            }
+        }
+    }
+}
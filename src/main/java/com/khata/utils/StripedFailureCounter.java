@@ -0,0 +1,131 @@
+package com.khata.utils;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free, fixed-memory failure counter with exponential backoff.
+ * <p>
+ * Keys are hashed with a random per-instance seed into two slots of a fixed array, so memory does not
+ * grow with the number of distinct keys an attacker sends. Each slot packs a saturating 16-bit failure
+ * count and the time of the last failure into one {@code long} updated with CAS. A key's count is the
+ * smaller of its two slots, which keeps false throttling from hash collisions rare. Counts expire on
+ * their own once no failure was recorded for the configured window.
+ */
+public class StripedFailureCounter {
+
+    private static final long COUNT_MASK = 0xFFFF;
+    private static final int MAX_SHIFT = 20;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final long seed;
+    private final int threshold;
+    private final long baseBackoffSeconds;
+    private final long maxBackoffSeconds;
+    private final long windowSeconds;
+    private final LongSupplier clock;
+
+    /**
+     * @param slotsPowerOfTwo    log2 of the number of slots, e.g. 15 for 32768 slots (256 KB)
+     * @param threshold          the number of failures allowed before backoff starts
+     * @param baseBackoffSeconds the first backoff, doubled on every further failure
+     * @param maxBackoffSeconds  the upper bound of the backoff
+     * @param windowSeconds      the time without failures after which a count is forgotten, longer than the
+     *                           maximum backoff so waiting out a backoff does not clear the count
+     */
+    public StripedFailureCounter(int slotsPowerOfTwo, int threshold, long baseBackoffSeconds, long maxBackoffSeconds, long windowSeconds) {
+        this(slotsPowerOfTwo, threshold, baseBackoffSeconds, maxBackoffSeconds, windowSeconds,
+                () -> System.currentTimeMillis() / 1000);
+    }
+
+    StripedFailureCounter(int slotsPowerOfTwo, int threshold, long baseBackoffSeconds, long maxBackoffSeconds, long windowSeconds, LongSupplier clock) {
+        if (windowSeconds <= maxBackoffSeconds) {
+            throw new IllegalArgumentException("Failure window must be longer than the maximum backoff");
+        }
+        this.slots = new AtomicLongArray(1 << slotsPowerOfTwo);
+        this.mask = (1 << slotsPowerOfTwo) - 1;
+        this.seed = new SecureRandom().nextLong();
+        this.threshold = threshold;
+        this.baseBackoffSeconds = baseBackoffSeconds;
+        this.maxBackoffSeconds = maxBackoffSeconds;
+        this.windowSeconds = windowSeconds;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns how many seconds the key still has to wait, or 0 if it may try now.
+     */
+    public long retryAfterSeconds(String key) {
+        long hash = hash(key);
+        long now = clock.getAsLong();
+        long first = slots.get(index1(hash));
+        long second = slots.get(index2(hash));
+        long slot = liveCount(first, now) <= liveCount(second, now) ? first : second;
+
+        int count = liveCount(slot, now);
+        if (count < threshold) {
+            return 0;
+        }
+        int shift = Math.min(count - threshold, MAX_SHIFT);
+        long backoff = Math.min(maxBackoffSeconds, baseBackoffSeconds << shift);
+        return Math.max(0, lastFailure(slot) + backoff - now);
+    }
+
+    public void recordFailure(String key) {
+        long hash = hash(key);
+        long now = clock.getAsLong();
+        increment(index1(hash), now);
+        increment(index2(hash), now);
+    }
+
+    public void reset(String key) {
+        long hash = hash(key);
+        slots.set(index1(hash), 0);
+        slots.set(index2(hash), 0);
+    }
+
+    private void increment(int index, long now) {
+        long current;
+        long next;
+        do {
+            current = slots.get(index);
+            long count = Math.min(liveCount(current, now) + 1L, COUNT_MASK);
+            next = (now << 16) | count;
+        } while (!slots.compareAndSet(index, current, next));
+    }
+
+    private int liveCount(long slot, long now) {
+        if (slot == 0 || now - lastFailure(slot) > windowSeconds) {
+            return 0;
+        }
+        return (int) (slot & COUNT_MASK);
+    }
+
+    private static long lastFailure(long slot) {
+        return slot >>> 16;
+    }
+
+    private int index1(long hash) {
+        return (int) hash & mask;
+    }
+
+    private int index2(long hash) {
+        return (int) (hash >>> 32) & mask;
+    }
+
+    private long hash(String key) {
+        long hash = seed;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,157 @@
+package com.khata.auth;
+
+import com.khata.auth.service.JwtKeyRing;
+import com.khata.auth.service.JwtTokenService;
+import com.khata.support.MutableClock;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtKeyRingTest {
+
+	private static final Duration ROTATION_INTERVAL = Duration.ofDays(7);
+	private static final long RELOAD_INTERVAL_MILLIS = 60_000;
+	// Two reload cycles
+	private static final Duration PUBLISH_DELAY = Duration.ofMillis(2 * RELOAD_INTERVAL_MILLIS);
+
+	@TempDir
+	private Path directory;
+
+	private final MutableClock clock = new MutableClock(Instant.now().truncatedTo(ChronoUnit.SECONDS));
+
+	@Test
+	void rotationPublishesAheadOfActivationAndRetiresAfterTokenValidity() throws IOException {
+		JwtKeyRing keyRing = keyRing(true);
+		JwtTokenService jwtTokenService = new JwtTokenService(keyRing, clock);
+		String first = keyRing.getActiveKey().kid();
+		String signedWithFirst = jwtTokenService.generateToken(user());
+
+		clock.advance(ROTATION_INTERVAL);
+		keyRing.refresh();
+
+		// Published to the file for the other nodes, but not signing yet
+		Set<String> published = storedKids();
+		assertThat(published).hasSize(2).contains(first);
+		assertThat(keyRing.getActiveKey().kid()).isEqualTo(first);
+
+		clock.advance(PUBLISH_DELAY);
+		keyRing.refresh();
+
+		String second = keyRing.getActiveKey().kid();
+		assertThat(published).contains(second);
+		assertThat(second).isNotEqualTo(first);
+		assertThat(storedKids()).isEqualTo(published);
+
+		// Tokens signed with the first key stay verifiable for as long as they can be valid
+		clock.advance(Duration.ofMillis(JwtTokenService.JWT_TOKEN_VALIDITY));
+		keyRing.refresh();
+		assertThat(storedKids()).isEqualTo(published);
+
+		clock.advance(Duration.ofSeconds(1));
+		keyRing.refresh();
+		assertThat(storedKids()).containsExactly(second);
+		assertThatThrownBy(() -> jwtTokenService.verifyToken(signedWithFirst))
+				.isInstanceOf(SignatureException.class)
+				.hasMessageStartingWith("Unknown JWT signing key");
+	}
+
+	@Test
+	void newestKeyAlreadyActiveSigns() throws IOException {
+		writeKeys(Map.of("a", -2, "b", -1, "c", 1));
+
+		JwtKeyRing keyRing = keyRing(false);
+		assertThat(keyRing.getActiveKey().kid()).isEqualTo("b");
+
+		clock.advance(Duration.ofHours(1));
+		keyRing.refresh();
+		assertThat(keyRing.getActiveKey().kid()).isEqualTo("c");
+	}
+
+	@Test
+	void oldestKeySignsWhileNoneIsActive() throws IOException {
+		writeKeys(Map.of("b", 1, "c", 2));
+
+		JwtKeyRing keyRing = keyRing(false);
+		assertThat(keyRing.getActiveKey().kid()).isEqualTo("b");
+
+		clock.advance(Duration.ofHours(2));
+		keyRing.refresh();
+		assertThat(keyRing.getActiveKey().kid()).isEqualTo("c");
+	}
+
+	@Test
+	void fileIsReloadedOnlyWhenItChanged() throws IOException {
+		writeKeys(Map.of("a", -1));
+		JwtKeyRing keyRing = keyRing(false);
+		FileTime loaded = Files.getLastModifiedTime(keyRingPath());
+
+		// Rewritten, but with the modification time of the loaded file
+		writeKeys(Map.of("z", -1));
+		Files.setLastModifiedTime(keyRingPath(), loaded);
+		keyRing.refresh();
+		assertThat(keyRing.getActiveKey().kid()).isEqualTo("a");
+
+		Files.setLastModifiedTime(keyRingPath(), FileTime.fromMillis(loaded.toMillis() + 1_000));
+		keyRing.refresh();
+		assertThat(keyRing.getActiveKey().kid()).isEqualTo("z");
+	}
+
+	private JwtKeyRing keyRing(boolean rotationEnabled) {
+		return new JwtKeyRing(keyRingPath().toString(), ROTATION_INTERVAL, rotationEnabled, RELOAD_INTERVAL_MILLIS, clock);
+	}
+
+	private Path keyRingPath() {
+		return directory.resolve("keyring.properties");
+	}
+
+	// Writes a key ring file with each key activating the given number of hours from now
+	private void writeKeys(Map<String, Integer> activationHours) throws IOException {
+		Properties properties = new Properties();
+		activationHours.forEach((kid, hours) -> {
+			byte[] secret = new byte[32];
+			ThreadLocalRandom.current().nextBytes(secret);
+			properties.setProperty("key." + kid, Base64.getEncoder().encodeToString(secret));
+			properties.setProperty("activates." + kid,
+					String.valueOf(clock.instant().plus(Duration.ofHours(hours)).toEpochMilli()));
+		});
+		try (OutputStream out = Files.newOutputStream(keyRingPath())) {
+			properties.store(out, null);
+		}
+	}
+
+	private Set<String> storedKids() throws IOException {
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(keyRingPath())) {
+			properties.load(in);
+		}
+		return properties.stringPropertyNames().stream()
+				.filter(name -> name.startsWith("key."))
+				.map(name -> name.substring("key.".length()))
+				.collect(Collectors.toSet());
+	}
+
+	private static UserDetails user() {
+		return User.withUsername("asha@khata.test").password("unused").roles("USER").build();
+	}
+}
@@ -0,0 +1,98 @@
+package com.khata.auth;
+
+import com.khata.auth.payload.VerifiedToken;
+import com.khata.auth.service.JwtKeyRing;
+import com.khata.auth.service.JwtTokenService;
+import com.khata.support.MutableClock;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtTokenServiceTest {
+
+	@TempDir
+	private Path directory;
+
+	// Tokens carry whole seconds, so the clock starts on one to make exp exact
+	private final MutableClock clock = new MutableClock(Instant.now().truncatedTo(ChronoUnit.SECONDS));
+
+	private final UserDetails user = User.withUsername("asha@khata.test").password("unused").roles("USER").build();
+
+	private JwtTokenService jwtTokenService;
+
+	@BeforeEach
+	void createKeyRing() {
+		jwtTokenService = new JwtTokenService(keyRing("keyring.properties"), clock);
+	}
+
+	@Test
+	void verifiesOnceAndServesRepeatsFromCache() {
+		String token = jwtTokenService.generateToken(user);
+
+		VerifiedToken first = jwtTokenService.verifyToken(token);
+		VerifiedToken second = jwtTokenService.verifyToken(token);
+
+		assertThat(first.getSubject()).isEqualTo("asha@khata.test");
+		assertThat(first.getRoles()).containsExactly("ROLE_USER");
+		assertThat(second).isSameAs(first);
+		assertThat(jwtTokenService.verifyToken(jwtTokenService.generateToken(user))).isNotSameAs(first);
+	}
+
+	@Test
+	void cachedTokenExpiresAtExp() {
+		String token = jwtTokenService.generateToken(user);
+		VerifiedToken verified = jwtTokenService.verifyToken(token);
+		assertThat(verified.getExpiration().toInstant())
+				.isEqualTo(clock.instant().plusMillis(JwtTokenService.JWT_TOKEN_VALIDITY));
+
+		clock.set(verified.getExpiration().toInstant().minusSeconds(1));
+		assertThat(jwtTokenService.verifyToken(token)).isSameAs(verified);
+		assertThat(jwtTokenService.validateToken(verified, user)).isTrue();
+
+		clock.set(verified.getExpiration().toInstant().plusSeconds(1));
+		assertThatThrownBy(() -> jwtTokenService.verifyToken(token)).isInstanceOf(ExpiredJwtException.class);
+		assertThat(jwtTokenService.validateToken(verified, user)).isFalse();
+	}
+
+	@Test
+	void tamperedTokenIsNotServedFromCache() {
+		String token = jwtTokenService.generateToken(user);
+		jwtTokenService.verifyToken(token);
+
+		// Same header and signature, but a payload claiming another subject
+		String[] parts = token.split("\\.");
+		String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)
+				.replace("asha@khata.test", "admin@khata.test");
+		String tampered = parts[0] + "." + Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + "." + parts[2];
+
+		assertThatThrownBy(() -> jwtTokenService.verifyToken(tampered)).isInstanceOf(SignatureException.class);
+	}
+
+	@Test
+	void tokenSignedWithUnknownKeyIsRejected() {
+		String foreign = new JwtTokenService(keyRing("other-keyring.properties"), clock).generateToken(user);
+
+		assertThatThrownBy(() -> jwtTokenService.verifyToken(foreign))
+				.isInstanceOf(SignatureException.class)
+				.hasMessageStartingWith("Unknown JWT signing key");
+	}
+
+	private JwtKeyRing keyRing(String fileName) {
+		return new JwtKeyRing(directory.resolve(fileName).toString(), Duration.ofDays(7), false, 60_000);
+	}
+}
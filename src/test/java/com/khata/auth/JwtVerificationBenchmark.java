@@ -0,0 +1,71 @@
+package com.khata.auth;
+
+import com.khata.auth.service.JwtKeyRing;
+import com.khata.auth.service.JwtTokenService;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the per-request cost of verifying a bearer token by parsing it every time, as the filter used to,
+ * with the cached verification it does now.
+ * <p>
+ * Not part of {@code mvn test}, since its timings mean little on a shared build machine. Run it with
+ * {@code mvn test -Dtest=JwtVerificationBenchmark}; the results are logged.
+ */
+@Slf4j
+class JwtVerificationBenchmark {
+
+	// Distinct sessions whose tokens are presented round-robin
+	private static final int SESSIONS = 1_000;
+	private static final int REQUESTS = 500_000;
+
+	@TempDir
+	private Path directory;
+
+	@Test
+	void parsingEveryRequestAgainstCachedVerification() {
+		JwtTokenService jwtTokenService = new JwtTokenService(
+				new JwtKeyRing(directory.resolve("keyring.properties").toString(), Duration.ofDays(7), false, 60_000));
+		List<String> tokens = new ArrayList<>();
+		for (int i = 0; i < SESSIONS; i++) {
+			UserDetails user = User.withUsername("user-" + i + "@khata.test").password("unused").roles("USER").build();
+			tokens.add(jwtTokenService.generateToken(user));
+		}
+		// Parses every time, like the filter did before verified tokens were cached
+		Consumer<String> parse = token -> jwtTokenService.getClaimFromToken(token, Claims::getSubject);
+		Consumer<String> verify = jwtTokenService::verifyToken;
+
+		// Warm both paths up first, so neither is measured while still being compiled
+		run(tokens, parse);
+		run(tokens, verify);
+
+		double parseNanos = run(tokens, parse);
+		double verifyNanos = run(tokens, verify);
+
+		log.info("{} requests over {} sessions", REQUESTS, SESSIONS);
+		log.info("parse every request: {} us/request", String.format("%.2f", parseNanos / 1_000));
+		log.info("cached verification: {} us/request", String.format("%.2f", verifyNanos / 1_000));
+		assertThat(verifyNanos).isLessThan(parseNanos);
+	}
+
+	// Returns the mean time per request in nanoseconds
+	private static double run(List<String> tokens, Consumer<String> verify) {
+		long begin = System.nanoTime();
+		for (int i = 0; i < REQUESTS; i++) {
+			verify.accept(tokens.get(i % tokens.size()));
+		}
+		return (System.nanoTime() - begin) / (double) REQUESTS;
+	}
+}
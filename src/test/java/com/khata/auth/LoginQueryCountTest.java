@@ -0,0 +1,91 @@
+package com.khata.auth;
+
+import com.khata.auth.controller.AuthController;
+import com.khata.auth.entity.User;
+import com.khata.auth.payload.JwtAuthRequest;
+import com.khata.auth.repositories.RefreshTokenRepo;
+import com.khata.auth.repositories.UserRepo;
+import com.khata.exceptions.ApiException;
+import com.khata.payload.ApiResponse;
+import com.khata.support.EmbeddedPostgresTest;
+import com.khata.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginQueryCountTest extends EmbeddedPostgresTest {
+
+	private static final String EMAIL = "login-query-count@khata.test";
+	private static final String PASSWORD = "correct-password";
+
+	@Autowired
+	private AuthController authController;
+
+	@Autowired
+	private UserRepo userRepo;
+
+	@Autowired
+	private RefreshTokenRepo refreshTokenRepo;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@BeforeEach
+	void createUser() {
+		User user = new User();
+		user.setFullName("Login Query Count");
+		user.setEmail(EMAIL);
+		user.setPassword(passwordEncoder.encode(PASSWORD));
+		user.setVerified(true);
+		userRepo.save(user);
+	}
+
+	@AfterEach
+	void deleteUser() {
+		refreshTokenRepo.deleteAll(refreshTokenRepo.findAll().stream()
+				.filter(token -> EMAIL.equals(token.getEmail()))
+				.toList());
+		userRepo.findByEmail(EMAIL).ifPresent(userRepo::delete);
+	}
+
+	@Test
+	void loginSelectsTheUserExactlyOnce() {
+		SqlStatementCounter.Recorded<ResponseEntity<ApiResponse<?>>> login =
+				SqlStatementCounter.record(() -> authController.loginUser(credentials(PASSWORD), new MockHttpServletRequest()));
+
+		assertThat(login.result().getBody().getStatusCode()).isEqualTo(200);
+		assertThat(selects(login.statements())).hasSize(1);
+		assertThat(SqlStatementCounter.selectsFrom(login.statements(), "users")).isEqualTo(1);
+	}
+
+	@Test
+	void failedLoginSelectsTheUserExactlyOnce() {
+		List<String> statements = SqlStatementCounter.statementsOf(() ->
+				assertThatThrownBy(() -> authController.loginUser(credentials("wrong-password"), new MockHttpServletRequest()))
+						.isInstanceOf(ApiException.class));
+
+		// A wrong password must not fall back to loading the user again
+		assertThat(statements).hasSize(1);
+		assertThat(SqlStatementCounter.selectsFrom(statements, "users")).isEqualTo(1);
+	}
+
+	private static JwtAuthRequest credentials(String password) {
+		JwtAuthRequest request = new JwtAuthRequest();
+		request.setUsername(EMAIL);
+		request.setPassword(password);
+		return request;
+	}
+
+	private static List<String> selects(List<String> statements) {
+		return statements.stream().filter(sql -> sql.stripLeading().toLowerCase().startsWith("select")).toList();
+	}
+}
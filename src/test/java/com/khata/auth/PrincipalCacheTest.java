@@ -0,0 +1,101 @@
+package com.khata.auth;
+
+import com.khata.auth.dto.UserDTO;
+import com.khata.auth.entity.User;
+import com.khata.auth.repositories.UserRepo;
+import com.khata.auth.service.PrincipalCache;
+import com.khata.auth.service.UserService;
+import com.khata.exceptions.ResourceNotFoundException;
+import com.khata.support.EmbeddedPostgresTest;
+import com.khata.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PrincipalCacheTest extends EmbeddedPostgresTest {
+
+	private static final String EMAIL = "principal-cache@khata.test";
+
+	@Autowired
+	private UserDetailsService userDetailsService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private PrincipalCache principalCache;
+
+	@Autowired
+	private UserRepo userRepo;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	private Integer userId;
+
+	@BeforeEach
+	void createUser() {
+		User user = new User();
+		user.setFullName("Principal Cache");
+		user.setEmail(EMAIL);
+		user.setPhoneNumber("9800000301");
+		user.setPassword(passwordEncoder.encode("first-password"));
+		user.setVerified(true);
+		userId = userRepo.save(user).getId();
+	}
+
+	@AfterEach
+	void deleteUser() {
+		userRepo.findByEmail(EMAIL).ifPresent(userRepo::delete);
+		// The next test creates the user again, so nothing of this one may stay cached
+		principalCache.invalidate(EMAIL);
+	}
+
+	@Test
+	void repeatedLoadIsServedFromCacheAsImmutableSnapshot() {
+		UserDetails first = userDetailsService.loadUserByUsername(EMAIL);
+
+		List<String> statements = SqlStatementCounter.statementsOf(() -> userDetailsService.loadUserByUsername(EMAIL));
+
+		assertThat(statements).isEmpty();
+		assertThat(userDetailsService.loadUserByUsername(EMAIL)).isSameAs(first);
+		assertThat(first).isNotInstanceOf(User.class).isNotInstanceOf(CredentialsContainer.class);
+		assertThat(first.getUsername()).isEqualTo(EMAIL);
+		assertThat(passwordEncoder.matches("first-password", first.getPassword())).isTrue();
+		assertThat(first.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_USER");
+	}
+
+	@Test
+	void updateInvalidatesTheCachedPrincipal() {
+		userDetailsService.loadUserByUsername(EMAIL);
+
+		UserDTO update = new UserDTO();
+		update.setFullName("Principal Cache");
+		update.setEmail(EMAIL);
+		update.setPhoneNumber("9800000301");
+		update.setPassword("second-password");
+		userService.updateUser(update, userId);
+
+		UserDetails reloaded = userDetailsService.loadUserByUsername(EMAIL);
+		assertThat(passwordEncoder.matches("second-password", reloaded.getPassword())).isTrue();
+	}
+
+	@Test
+	void deleteInvalidatesTheCachedPrincipal() {
+		userDetailsService.loadUserByUsername(EMAIL);
+
+		userService.deleteUser(userId);
+
+		assertThatThrownBy(() -> userDetailsService.loadUserByUsername(EMAIL)).isInstanceOf(ResourceNotFoundException.class);
+	}
+}
@@ -0,0 +1,117 @@
+package com.khata.auth;
+
+import com.khata.auth.entity.User;
+import com.khata.auth.payload.JwtAuthResponse;
+import com.khata.auth.repositories.UserRepo;
+import com.khata.auth.service.AuthService;
+import com.khata.auth.service.RefreshTokenService;
+import com.khata.exceptions.JwtTokenException;
+import com.khata.support.EmbeddedPostgresTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RefreshTokenServiceTest extends EmbeddedPostgresTest {
+
+	private static final String EMAIL = "refresh-token@khata.test";
+	private static final int THREADS = 8;
+
+	@Autowired
+	private RefreshTokenService refreshTokenService;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private UserRepo userRepo;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void createUser() {
+		User user = new User();
+		user.setFullName("Refresh Token");
+		user.setEmail(EMAIL);
+		user.setPassword("unused");
+		user.setVerified(true);
+		userRepo.save(user);
+	}
+
+	@AfterEach
+	void deleteUserAndTokens() {
+		jdbcTemplate.update("DELETE FROM refresh_tokens WHERE email = ?", EMAIL);
+		jdbcTemplate.update("DELETE FROM revoked_tokens WHERE token_key = ?", "user:" + EMAIL);
+		userRepo.findByEmail(EMAIL).ifPresent(userRepo::delete);
+	}
+
+	@Test
+	void refreshRotatesTheToken() {
+		String first = refreshTokenService.issue(EMAIL);
+
+		JwtAuthResponse refreshed = authService.refreshAccessToken(first);
+
+		assertThat(refreshed.getToken()).isNotBlank();
+		assertThat(refreshed.getRefreshToken()).isNotEqualTo(first);
+		assertThat(authService.refreshAccessToken(refreshed.getRefreshToken()).getRefreshToken()).isNotBlank();
+	}
+
+	@Test
+	void reusedTokenRevokesEveryTokenOfTheUser() {
+		String stolen = refreshTokenService.issue(EMAIL);
+		String otherSession = refreshTokenService.issue(EMAIL);
+		assertThat(refreshTokenService.consume(stolen)).isEqualTo(EMAIL);
+
+		assertThatThrownBy(() -> refreshTokenService.consume(stolen))
+				.isInstanceOf(JwtTokenException.class)
+				.hasMessage("Refresh token has been revoked");
+		assertThatThrownBy(() -> refreshTokenService.consume(otherSession))
+				.isInstanceOf(JwtTokenException.class)
+				.hasMessage("Refresh token has been revoked");
+	}
+
+	@Test
+	void concurrentRefreshesWithOneTokenHaveOneWinner() throws Exception {
+		String token = refreshTokenService.issue(EMAIL);
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<String>> futures = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					return refreshTokenService.consume(token);
+				}));
+			}
+			start.countDown();
+
+			int consumed = 0;
+			for (Future<String> future : futures) {
+				try {
+					assertThat(future.get(1, TimeUnit.MINUTES)).isEqualTo(EMAIL);
+					consumed++;
+				} catch (ExecutionException e) {
+					assertThat(e.getCause()).isInstanceOf(JwtTokenException.class);
+				}
+			}
+			assertThat(consumed).isEqualTo(1);
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.khata.auth;
+
+import com.khata.auth.entity.RevokedToken;
+import com.khata.auth.payload.VerifiedToken;
+import com.khata.auth.repositories.RevokedTokenRepo;
+import com.khata.auth.service.TokenRevocationService;
+import com.khata.support.EmbeddedPostgresTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenRevocationServiceTest extends EmbeddedPostgresTest {
+
+	private static final String EMAIL = "token-revocation@khata.test";
+	private static final String OTHER_EMAIL = "token-revocation-other@khata.test";
+
+	@Autowired
+	private TokenRevocationService tokenRevocationService;
+
+	@Autowired
+	private RevokedTokenRepo revokedTokenRepo;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	void deleteRevocations() {
+		jdbcTemplate.update("DELETE FROM revoked_tokens WHERE token_key LIKE ?", "%token-revocation%");
+	}
+
+	@Test
+	void singleTokenRevocationLeavesOtherTokensAlone() {
+		VerifiedToken revoked = token(EMAIL, "token-revocation-" + UUID.randomUUID(), new Date());
+		VerifiedToken other = token(EMAIL, "token-revocation-" + UUID.randomUUID(), new Date());
+
+		tokenRevocationService.revokeToken(revoked);
+
+		assertThat(tokenRevocationService.isRevoked(revoked)).isTrue();
+		assertThat(tokenRevocationService.isRevoked(other)).isFalse();
+	}
+
+	@Test
+	void userWideRevocationCoversTokensIssuedUpToItsSecond() {
+		tokenRevocationService.revokeAllForUser(EMAIL);
+		Date revokedAt = toDate(revokedTokenRepo.findByTokenKey("user:" + EMAIL).orElseThrow().getRevokedAt());
+
+		// iat has second precision, so a token from the revocation second may have been issued before it
+		assertThat(tokenRevocationService.isRevoked(token(EMAIL, null, plusSeconds(revokedAt, -1)))).isTrue();
+		assertThat(tokenRevocationService.isRevoked(token(EMAIL, null, revokedAt))).isTrue();
+		assertThat(tokenRevocationService.isRevoked(token(EMAIL, null, plusSeconds(revokedAt, 1)))).isFalse();
+		assertThat(tokenRevocationService.isRevoked(token(OTHER_EMAIL, null, plusSeconds(revokedAt, -1)))).isFalse();
+	}
+
+	@Test
+	void revocationStoredByAnotherNodeIsEnforcedAfterRefresh() {
+		VerifiedToken token = token(OTHER_EMAIL, "token-revocation-" + UUID.randomUUID(), new Date());
+		RevokedToken revokedToken = new RevokedToken();
+		revokedToken.setTokenKey(token.getTokenId());
+		revokedToken.setRevokedAt(LocalDateTime.now());
+		revokedToken.setExpiresAt(LocalDateTime.now().plusMinutes(15));
+		revokedTokenRepo.save(revokedToken);
+		assertThat(tokenRevocationService.isRevoked(token)).isFalse();
+
+		tokenRevocationService.refresh();
+
+		assertThat(tokenRevocationService.isRevoked(token)).isTrue();
+	}
+
+	private static VerifiedToken token(String subject, String tokenId, Date issuedAt) {
+		return new VerifiedToken(tokenId, subject, List.of("ROLE_USER"), List.of(), issuedAt,
+				plusSeconds(issuedAt, 15 * 60));
+	}
+
+	private static Date plusSeconds(Date date, int seconds) {
+		return new Date(date.getTime() + seconds * 1000L);
+	}
+
+	private static Date toDate(LocalDateTime dateTime) {
+		return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+	}
+}
@@ -0,0 +1,73 @@
+package com.khata.auth;
+
+import com.khata.auth.dto.UserDTO;
+import com.khata.auth.entity.User;
+import com.khata.auth.repositories.UserRepo;
+import com.khata.auth.service.UserService;
+import com.khata.exceptions.ApiException;
+import com.khata.payload.CursorPaginationResponse;
+import com.khata.support.EmbeddedPostgresTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserCursorPaginationTest extends EmbeddedPostgresTest {
+
+	private static final List<String> EMAILS = List.of("cursor-page-1@khata.test", "cursor-page-2@khata.test");
+	private static final String RESET_TOKEN = "secret-reset-token";
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepo userRepo;
+
+	@BeforeEach
+	void createUsers() {
+		for (String email : EMAILS) {
+			User user = new User();
+			user.setFullName("Cursor Page");
+			user.setEmail(email);
+			user.setPassword("unused");
+			user.setResetToken(RESET_TOKEN);
+			user.setProviderToken("secret-provider-token");
+			userRepo.save(user);
+		}
+	}
+
+	@AfterEach
+	void deleteUsers() {
+		EMAILS.forEach(email -> userRepo.findByEmail(email).ifPresent(userRepo::delete));
+	}
+
+	@Test
+	void columnsOutsideTheAllowlistCannotBeSortedBy() {
+		for (String property : List.of("password", "resetToken", "providerToken", "role")) {
+			assertThatThrownBy(() -> userService.getUsers(null, PageRequest.of(0, 1, Sort.by(property))))
+					.isInstanceOf(ApiException.class)
+					.hasMessage("Cannot sort by " + property);
+		}
+	}
+
+	@Test
+	void cursorOfAnAllowedSortCarriesOnlyItsKeys() {
+		CursorPaginationResponse<UserDTO> first = userService.getUsers(null, PageRequest.of(0, 1, Sort.by("email")));
+		String body = new String(Base64.getUrlDecoder().decode(first.getNextCursor().split("\\.")[0]), StandardCharsets.UTF_8);
+
+		assertThat(body).contains("email").doesNotContain(RESET_TOKEN);
+
+		CursorPaginationResponse<UserDTO> second = userService.getUsers(first.getNextCursor(), PageRequest.of(0, 1, Sort.by("email")));
+		assertThat(second.getItems()).singleElement()
+				.satisfies(user -> assertThat(user.getEmail()).isGreaterThan(first.getItems().get(0).getEmail()));
+	}
+}
@@ -0,0 +1,58 @@
+package com.khata.auth;
+
+import com.khata.auth.entity.User;
+import com.khata.auth.repositories.UserRepo;
+import com.khata.auth.service.UserService;
+import com.khata.support.EmbeddedPostgresTest;
+import com.khata.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserListQueryCountTest extends EmbeddedPostgresTest {
+
+	private static final List<String> EMAILS = List.of("user-list-1@khata.test", "user-list-2@khata.test");
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepo userRepo;
+
+	@BeforeEach
+	void createUsers() {
+		for (String email : EMAILS) {
+			User user = new User();
+			user.setFullName("User List");
+			user.setEmail(email);
+			user.setPassword("unused");
+			user.setResetToken("unused-reset-token");
+			userRepo.save(user);
+		}
+		// Loads the row counter, which a running server has done long before
+		userService.getUsers(PageRequest.of(0, 1));
+	}
+
+	@AfterEach
+	void deleteUsers() {
+		EMAILS.forEach(email -> userRepo.findByEmail(email).ifPresent(userRepo::delete));
+	}
+
+	@Test
+	void userPageIsOneSelectOfPublicColumnsAndLoadsNoEntities() {
+		List<String> statements = SqlStatementCounter.statementsOf(() -> userService.getUsers(PageRequest.of(0, EMAILS.size())));
+
+		assertThat(statements).singleElement().satisfies(sql ->
+				assertThat(sql.toLowerCase(Locale.ROOT)).doesNotContain("password", "reset_token", "provider_token"));
+		assertThat(entitiesLoadedBy(() -> userService.getUsers(PageRequest.of(0, EMAILS.size())))).isZero();
+		// Cursor pages still read entities through the specification executor
+		assertThat(entitiesLoadedBy(() -> userService.getUsers(null, PageRequest.of(0, EMAILS.size())))).isEqualTo(EMAILS.size());
+	}
+}
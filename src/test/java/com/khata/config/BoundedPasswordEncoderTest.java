@@ -0,0 +1,101 @@
+package com.khata.config;
+
+import com.khata.exceptions.GlobalExceptionHandler;
+import com.khata.exceptions.ServiceBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordEncoderTest {
+
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+
+	// A target below any real hash time calibrates to the minimum strength, keeping the test fast
+	private final BoundedPasswordEncoder encoder =
+			new BoundedPasswordEncoder(Duration.ofNanos(1), 1, 1, Duration.ofSeconds(10), registry);
+
+	@AfterEach
+	void shutdown() {
+		encoder.shutdown();
+	}
+
+	@Test
+	void strengthIsClampedBetweenTenAndFourteen() {
+		long tenMillis = TimeUnit.MILLISECONDS.toNanos(10);
+
+		assertThat(BoundedPasswordEncoder.strengthFor(tenMillis, 0)).isEqualTo(10);
+		assertThat(BoundedPasswordEncoder.strengthFor(tenMillis, tenMillis)).isEqualTo(10);
+		// 20, 40 and 80 ms fit, 160 ms does not
+		assertThat(BoundedPasswordEncoder.strengthFor(tenMillis, TimeUnit.MILLISECONDS.toNanos(100))).isEqualTo(13);
+		assertThat(BoundedPasswordEncoder.strengthFor(tenMillis, TimeUnit.HOURS.toNanos(1))).isEqualTo(14);
+		assertThat(encoder.encode("calibrated")).startsWith("$2a$10$");
+	}
+
+	@Test
+	void fullQueueIsRejectedAsServiceUnavailable() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		// One call holds the only thread, the next one fills the queue
+		CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode(new BlockingPassword(release)));
+		awaitGauge("password.hash.active", 1);
+		CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("queued"));
+		awaitGauge("password.hash.queue.depth", 1);
+
+		assertThatThrownBy(() -> encoder.matches("rejected", "$2a$10$unused"))
+				.isInstanceOf(ServiceBusyException.class)
+				.satisfies(ex -> assertThat(new GlobalExceptionHandler()
+						.handleServiceBusyException((ServiceBusyException) ex).getStatusCode())
+						.isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+		assertThat(registry.counter("password.hash.rejected").count()).isEqualTo(1);
+
+		release.countDown();
+		assertThat(running.get(10, TimeUnit.SECONDS)).startsWith("$2a$10$");
+		assertThat(queued.get(10, TimeUnit.SECONDS)).startsWith("$2a$10$");
+	}
+
+	private void awaitGauge(String name, double value) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (registry.get(name).gauge().value() != value) {
+			assertThat(System.nanoTime()).as("waiting for %s to reach %s", name, value).isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	// A password that holds the hashing thread until released
+	private record BlockingPassword(CountDownLatch release) implements CharSequence {
+
+		@Override
+		public String toString() {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return "blocking";
+		}
+
+		@Override
+		public int length() {
+			return toString().length();
+		}
+
+		@Override
+		public char charAt(int index) {
+			return toString().charAt(index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return toString().subSequence(start, end);
+		}
+	}
+}
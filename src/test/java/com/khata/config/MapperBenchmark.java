@@ -0,0 +1,119 @@
+package com.khata.config;
+
+import com.khata.party.dto.PartyDTO;
+import com.khata.party.entity.Party;
+import com.khata.party.entity.enums.PartyType;
+import com.khata.party.mapper.PartyMapper;
+import com.khata.party.mapper.PartyMapperImpl;
+import com.khata.product.dto.ProductDTO;
+import com.khata.product.entity.Product;
+import com.khata.product.mapper.ProductMapper;
+import com.khata.product.mapper.ProductMapperImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares mapping a page of 1,000 entities with the generated mappers against the reflective ModelMapper the
+ * services used before, in time and allocation per page.
+ * <p>
+ * Not part of {@code mvn test}, since its timings mean little on a shared build machine. Run it with
+ * {@code mvn test -Dtest=MapperBenchmark}; the results are logged.
+ */
+@Slf4j
+class MapperBenchmark {
+
+	private static final int PAGE_SIZE = 1_000;
+	private static final int WARMUP_PAGES = 2_000;
+	private static final int PAGES = 5_000;
+
+	private final ModelMapper modelMapper = new ModelMapper();
+	private final ProductMapper productMapper = new ProductMapperImpl();
+	private final PartyMapper partyMapper = new PartyMapperImpl();
+
+	@Test
+	void generatedMappersAgainstModelMapper() {
+		List<Product> products = new ArrayList<>();
+		List<Party> parties = new ArrayList<>();
+		for (int i = 1; i <= PAGE_SIZE; i++) {
+			products.add(product(i));
+			parties.add(party(i));
+		}
+		// Both sides must produce the same DTOs for the comparison to mean anything
+		ProductDTO reflective = modelMapper.map(products.get(0), ProductDTO.class);
+		ProductDTO generated = productMapper.toDTO(products.get(0));
+		assertThat(generated).usingRecursiveComparison().isEqualTo(reflective);
+		assertThat(partyMapper.toDTO(parties.get(0))).usingRecursiveComparison().isEqualTo(modelMapper.map(parties.get(0), PartyDTO.class));
+
+		log.info("{} pages of {} entities", PAGES, PAGE_SIZE);
+		log.info("product, ModelMapper: {}", run(products, product -> modelMapper.map(product, ProductDTO.class)));
+		log.info("product, MapStruct:   {}", run(products, productMapper::toDTO));
+		log.info("party, ModelMapper:   {}", run(parties, party -> modelMapper.map(party, PartyDTO.class)));
+		log.info("party, MapStruct:     {}", run(parties, partyMapper::toDTO));
+	}
+
+	private static <E, D> Result run(List<E> page, Function<E, D> mapper) {
+		for (int i = 0; i < WARMUP_PAGES; i++) {
+			mapPage(page, mapper);
+		}
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+		long begin = System.nanoTime();
+		int mapped = 0;
+		for (int i = 0; i < PAGES; i++) {
+			mapped += mapPage(page, mapper).size();
+		}
+		long elapsed = System.nanoTime() - begin;
+		long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+		assertThat(mapped).isEqualTo(PAGES * PAGE_SIZE);
+		return new Result(elapsed / 1e3 / PAGES, bytes / 1024.0 / PAGES);
+	}
+
+	// Maps the page the way the services do for a list response
+	private static <E, D> List<D> mapPage(List<E> page, Function<E, D> mapper) {
+		List<D> dtos = new ArrayList<>(page.size());
+		for (E entity : page) {
+			dtos.add(mapper.apply(entity));
+		}
+		return dtos;
+	}
+
+	private static Product product(int i) {
+		Product product = new Product();
+		product.setId(i);
+		product.setProductId("SKU-" + i);
+		product.setName("Basmati Rice " + i + "kg");
+		product.setQuantity(i % 50);
+		product.setPurchasePrice(new BigDecimal("120.50"));
+		product.setSellingPrice(new BigDecimal("149.99"));
+		return product;
+	}
+
+	private static Party party(int i) {
+		Party party = new Party();
+		party.setId(i);
+		party.setName("Party " + i);
+		party.setEmail("party-" + i + "@khata.test");
+		party.setPhoneNumber(String.valueOf(9_800_000_000L + i));
+		party.setAddress("Ward " + i);
+		party.setPartyBusinessName("Traders " + i);
+		party.setPartyType(i % 2 == 0 ? PartyType.CUSTOMER : PartyType.VENDOR);
+		return party;
+	}
+
+	private record Result(double microsPerPage, double kilobytesPerPage) {
+
+		@Override
+		public String toString() {
+			return String.format("%.1f us/page, %.1f KB allocated/page", microsPerPage, kilobytesPerPage);
+		}
+	}
+}
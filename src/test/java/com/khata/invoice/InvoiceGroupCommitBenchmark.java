@@ -0,0 +1,188 @@
+package com.khata.invoice;
+
+import com.khata.invoice.dto.InvoiceDTO;
+import com.khata.invoice.dto.InvoiceLineDTO;
+import com.khata.invoice.entity.enums.InvoiceType;
+import com.khata.invoice.service.InvoiceGroupCommitter;
+import com.khata.invoice.service.InvoiceService;
+import com.khata.party.dto.PartyDTO;
+import com.khata.party.entity.enums.PartyType;
+import com.khata.party.service.PartyService;
+import com.khata.product.dto.ProductDTO;
+import com.khata.product.service.ProductService;
+import com.khata.support.EmbeddedPostgresTest;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the throughput and latency of per-request commits with group commits, on embedded Postgres.
+ * <p>
+ * Not part of {@code mvn test}, since its timings mean little on a shared build machine. Run it with
+ * {@code mvn test -Dtest=InvoiceGroupCommitBenchmark}; the results are logged.
+ */
+@TestPropertySource(properties = "invoice.group-commit.enabled=true")
+@Slf4j
+class InvoiceGroupCommitBenchmark extends EmbeddedPostgresTest {
+
+	private static final int PRODUCTS = 200;
+	private static final int TILLS = 32;
+	private static final int SALES_PER_TILL = 100;
+	private static final int LINES_PER_SALE = 3;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private InvoiceGroupCommitter invoiceGroupCommitter;
+
+	@Autowired
+	private PartyService partyService;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Integer partyId;
+	private final List<Integer> productIds = new ArrayList<>();
+
+	@BeforeEach
+	void createPartyAndProducts() {
+		PartyDTO party = new PartyDTO();
+		party.setName("Walk-in customer");
+		party.setEmail("walk-in@khata.test");
+		party.setPhoneNumber("9800000250");
+		party.setAddress("Counter sales");
+		party.setPartyBusinessName("Counter sales");
+		party.setPartyType(PartyType.CUSTOMER);
+		partyId = partyService.createParty(party).getId();
+
+		for (int i = 0; i < PRODUCTS; i++) {
+			ProductDTO product = new ProductDTO();
+			product.setName("Group commit " + i);
+			product.setQuantity(1_000_000);
+			product.setPurchasePrice(8.0);
+			product.setSellingPrice(10.0);
+			productIds.add(productService.createProduct(product).getId());
+		}
+	}
+
+	@AfterEach
+	void deleteInvoicesProductsAndParty() {
+		// Invoices and the ledger are append-only through the application, so their rows are removed directly
+		jdbcTemplate.update("DELETE FROM invoice_line WHERE invoice_id IN (SELECT id FROM invoice WHERE party_id = ?)", partyId);
+		for (String table : List.of("invoice", "party_aging", "ledger_open_item", "ledger_entry", "party_balance")) {
+			jdbcTemplate.update("DELETE FROM " + table + " WHERE party_id = ?", partyId);
+		}
+		productIds.forEach(productService::deleteProduct);
+		productIds.clear();
+		partyService.deleteParty(partyId);
+	}
+
+	@Test
+	void perRequestCommitsAgainstGroupCommits() throws Exception {
+		// Warm both paths up first, so neither is measured while still being compiled
+		runTills(invoiceService::createInvoice);
+		runTills(invoiceGroupCommitter::createInvoice);
+
+		Result perRequest = runTills(invoiceService::createInvoice);
+		Result groupCommit = runTills(invoiceGroupCommitter::createInvoice);
+
+		log.info("{} tills x {} sales of {} lines", TILLS, SALES_PER_TILL, LINES_PER_SALE);
+		log.info("per-request commit: {}", perRequest);
+		log.info("group commit:       {}", groupCommit);
+		assertThat(perRequest.errors()).isZero();
+		assertThat(groupCommit.errors()).isZero();
+	}
+
+	private Result runTills(Function<InvoiceDTO, InvoiceDTO> record) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(TILLS);
+		long[] latencies = new long[TILLS * SALES_PER_TILL];
+		int[] errors = new int[TILLS];
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<CompletableFuture<Void>> tills = new ArrayList<>();
+			for (int till = 0; till < TILLS; till++) {
+				int offset = till * SALES_PER_TILL;
+				int tillIndex = till;
+				tills.add(CompletableFuture.runAsync(() -> {
+					awaitQuietly(start);
+					for (int i = 0; i < SALES_PER_TILL; i++) {
+						long begin = System.nanoTime();
+						try {
+							record.apply(sale());
+						} catch (RuntimeException ex) {
+							errors[tillIndex]++;
+						}
+						latencies[offset + i] = System.nanoTime() - begin;
+					}
+				}, executor));
+			}
+			long begin = System.nanoTime();
+			start.countDown();
+			CompletableFuture.allOf(tills.toArray(CompletableFuture[]::new)).get();
+			long elapsed = System.nanoTime() - begin;
+			Arrays.sort(latencies);
+			return new Result(latencies.length * 1e9 / elapsed, millis(latencies[latencies.length / 2]),
+					millis(latencies[latencies.length * 99 / 100]), Arrays.stream(errors).sum());
+		} finally {
+			executor.shutdown();
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		}
+	}
+
+	private InvoiceDTO sale() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		List<InvoiceLineDTO> lines = new ArrayList<>();
+		for (int i = 0; i < LINES_PER_SALE; i++) {
+			InvoiceLineDTO line = new InvoiceLineDTO();
+			line.setProductId(productIds.get(random.nextInt(PRODUCTS)));
+			line.setQuantity(1);
+			lines.add(line);
+		}
+		InvoiceDTO invoice = new InvoiceDTO();
+		invoice.setPartyId(partyId);
+		invoice.setInvoiceType(InvoiceType.SALE);
+		invoice.setLines(lines);
+		return invoice;
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1e6;
+	}
+
+	private record Result(double invoicesPerSecond, double p50Millis, double p99Millis, int errors) {
+
+		@Override
+		public String toString() {
+			return String.format("%.0f invoices/s, p50 %.1f ms, p99 %.1f ms, %d errors", invoicesPerSecond, p50Millis, p99Millis, errors);
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package com.khata.invoice;
+
+import com.khata.exceptions.ResourceNotFoundException;
+import com.khata.exceptions.ServiceBusyException;
+import com.khata.invoice.dto.InvoiceDTO;
+import com.khata.invoice.dto.InvoiceLineDTO;
+import com.khata.invoice.entity.enums.InvoiceType;
+import com.khata.invoice.repositories.InvoiceRepo;
+import com.khata.invoice.service.InvoiceGroupCommitter;
+import com.khata.invoice.service.InvoiceService;
+import com.khata.ledger.dto.LedgerEntryDTO;
+import com.khata.ledger.entity.enums.LedgerEntryType;
+import com.khata.ledger.service.LedgerService;
+import com.khata.party.dto.PartyDTO;
+import com.khata.party.entity.enums.PartyType;
+import com.khata.party.service.PartyService;
+import com.khata.product.dto.ProductDTO;
+import com.khata.product.entity.Product;
+import com.khata.product.repositories.ProductRepo;
+import com.khata.product.service.ProductService;
+import com.khata.support.EmbeddedPostgresTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// A long wait gathers the invoices each test submits together into one batch
+@TestPropertySource(properties = {"invoice.group-commit.enabled=true", "invoice.group-commit.max-wait-ms=500"})
+class InvoiceGroupCommitTest extends EmbeddedPostgresTest {
+
+	private static final int PRODUCTS = 5;
+	private static final int TILLS = 8;
+
+	@Autowired
+	private InvoiceGroupCommitter invoiceGroupCommitter;
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private InvoiceRepo invoiceRepo;
+
+	@Autowired
+	private LedgerService ledgerService;
+
+	@Autowired
+	private PartyService partyService;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private ProductRepo productRepo;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final List<Integer> partyIds = new ArrayList<>();
+	private final List<Integer> productIds = new ArrayList<>();
+
+	@BeforeEach
+	void createPartyAndProducts() {
+		partyIds.add(createParty(1));
+		for (int i = 0; i < PRODUCTS; i++) {
+			ProductDTO product = new ProductDTO();
+			product.setName("Group commit " + i);
+			product.setQuantity(1_000);
+			product.setPurchasePrice(8.0);
+			product.setSellingPrice(10.0);
+			productIds.add(productService.createProduct(product).getId());
+		}
+	}
+
+	@AfterEach
+	void deleteInvoicesProductsAndParties() {
+		for (Integer partyId : partyIds) {
+			// Invoices and the ledger are append-only through the application, so their rows are removed directly
+			jdbcTemplate.update("DELETE FROM invoice_line WHERE invoice_id IN (SELECT id FROM invoice WHERE party_id = ?)", partyId);
+			for (String table : List.of("invoice", "party_aging", "ledger_open_item", "ledger_entry", "party_balance")) {
+				jdbcTemplate.update("DELETE FROM " + table + " WHERE party_id = ?", partyId);
+			}
+			partyService.deleteParty(partyId);
+		}
+		productIds.forEach(productService::deleteProduct);
+		partyIds.clear();
+		productIds.clear();
+	}
+
+	@Test
+	void failedInvoiceDoesNotUndoItsBatch() throws Exception {
+		InvoiceDTO unknownProduct = sale(partyIds.get(0), BigDecimal.TEN);
+		unknownProduct.getLines().get(0).setProductId(Integer.MAX_VALUE);
+
+		List<Future<InvoiceDTO>> sales = submitTogether(unknownProduct);
+
+		assertThatThrownBy(() -> sales.get(0).get()).hasCauseInstanceOf(ResourceNotFoundException.class);
+		for (Future<InvoiceDTO> sale : sales.subList(1, sales.size())) {
+			assertThat(invoiceRepo.existsById(sale.get().getId())).isTrue();
+		}
+	}
+
+	@Test
+	void failureAfterTheFirstWriteDoesNotUndoItsBatch() throws Exception {
+		// The party's balance is one sale away from overflowing, so its ledger posting fails after the invoice,
+		// stock and movement writes, inside a transactional call
+		Integer nearlyFullParty = createParty(2);
+		partyIds.add(nearlyFullParty);
+		LedgerEntryDTO opening = new LedgerEntryDTO();
+		opening.setEntryType(LedgerEntryType.DEBIT);
+		opening.setAmount(new BigDecimal("90000000000000000.00"));
+		ledgerService.postEntry(nearlyFullParty, opening);
+		int stockBefore = quantityOf(productIds.get(0));
+
+		List<Future<InvoiceDTO>> sales = submitTogether(sale(nearlyFullParty, new BigDecimal("20000000000000000.00")));
+
+		assertThatThrownBy(() -> sales.get(0).get()).hasCauseInstanceOf(DataAccessException.class);
+		for (Future<InvoiceDTO> sale : sales.subList(1, sales.size())) {
+			assertThat(invoiceRepo.existsById(sale.get().getId())).isTrue();
+		}
+		assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM invoice WHERE party_id = ?", Long.class, nearlyFullParty))
+				.isZero();
+		assertThat(ledgerService.getBalance(nearlyFullParty).getBalance()).isEqualByComparingTo(opening.getAmount());
+		// Each recorded sale took one unit, the failed one none
+		assertThat(quantityOf(productIds.get(0))).isEqualTo(stockBefore - TILLS);
+	}
+
+	@Test
+	void invoiceOfferedAfterStopIsRejected() throws Exception {
+		InvoiceGroupCommitter committer = new InvoiceGroupCommitter(invoiceService, entityManager, dataSource,
+				transactionManager, new SimpleMeterRegistry(), 16, 8, 5, 1_000);
+		committer.start();
+		committer.stop();
+
+		assertThatThrownBy(() -> committer.createInvoice(sale(partyIds.get(0), BigDecimal.TEN)))
+				.isInstanceOf(ServiceBusyException.class);
+	}
+
+	// Submits the invoice along with a sale from each till, all at once, and returns its future first
+	private List<Future<InvoiceDTO>> submitTogether(InvoiceDTO invoice) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(TILLS + 1);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<InvoiceDTO>> futures = new ArrayList<>();
+			futures.add(executor.submit(record(start, invoice)));
+			for (int i = 0; i < TILLS; i++) {
+				futures.add(executor.submit(record(start, sale(partyIds.get(0), null))));
+			}
+			start.countDown();
+			for (Future<InvoiceDTO> future : futures) {
+				try {
+					future.get(1, TimeUnit.MINUTES);
+				} catch (ExecutionException ignored) {
+					// Asserted by the caller
+				}
+			}
+			return futures;
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private Callable<InvoiceDTO> record(CountDownLatch start, InvoiceDTO invoice) {
+		return () -> {
+			start.await();
+			return invoiceGroupCommitter.createInvoice(invoice);
+		};
+	}
+
+	private InvoiceDTO sale(Integer partyId, BigDecimal unitPrice) {
+		List<InvoiceLineDTO> lines = new ArrayList<>();
+		for (Integer productId : productIds) {
+			InvoiceLineDTO line = new InvoiceLineDTO();
+			line.setProductId(productId);
+			line.setQuantity(1);
+			line.setUnitPrice(unitPrice);
+			lines.add(line);
+		}
+		InvoiceDTO invoice = new InvoiceDTO();
+		invoice.setPartyId(partyId);
+		invoice.setInvoiceType(InvoiceType.SALE);
+		invoice.setLines(lines);
+		return invoice;
+	}
+
+	private int quantityOf(Integer productId) {
+		return productRepo.findById(productId).map(Product::getQuantity).orElseThrow();
+	}
+
+	private Integer createParty(int number) {
+		PartyDTO party = new PartyDTO();
+		party.setName("Group Commit Party " + number);
+		party.setEmail("group-commit-" + number + "@khata.test");
+		party.setPhoneNumber("980000025" + number);
+		party.setAddress("Counter sales " + number);
+		party.setPartyBusinessName("Counter sales " + number);
+		party.setPartyType(PartyType.CUSTOMER);
+		return partyService.createParty(party).getId();
+	}
+}
@@ -0,0 +1,180 @@
+package com.khata.invoice;
+
+import com.khata.exceptions.ApiException;
+import com.khata.invoice.dto.InvoiceDTO;
+import com.khata.invoice.dto.InvoiceLineDTO;
+import com.khata.invoice.entity.enums.InvoiceType;
+import com.khata.invoice.service.InvoiceService;
+import com.khata.ledger.dto.LedgerEntryDTO;
+import com.khata.ledger.entity.enums.LedgerEntryType;
+import com.khata.ledger.service.LedgerService;
+import com.khata.party.dto.PartyDTO;
+import com.khata.party.entity.enums.PartyType;
+import com.khata.party.service.PartyService;
+import com.khata.product.dto.ProductDTO;
+import com.khata.product.entity.Product;
+import com.khata.product.repositories.ProductRepo;
+import com.khata.product.service.ProductService;
+import com.khata.support.EmbeddedPostgresTest;
+import com.khata.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InvoiceServiceTest extends EmbeddedPostgresTest {
+
+	@Autowired
+	private InvoiceService invoiceService;
+
+	@Autowired
+	private LedgerService ledgerService;
+
+	@Autowired
+	private PartyService partyService;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private ProductRepo productRepo;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Integer partyId;
+	private final List<Integer> productIds = new ArrayList<>();
+
+	@BeforeEach
+	void createParty() {
+		PartyDTO party = new PartyDTO();
+		party.setName("Invoice Customer");
+		party.setEmail("invoice-customer@khata.test");
+		party.setPhoneNumber("9800000024");
+		party.setAddress("Invoice Street 1");
+		party.setPartyBusinessName("Invoice Traders");
+		party.setPartyType(PartyType.CUSTOMER);
+		partyId = partyService.createParty(party).getId();
+	}
+
+	@AfterEach
+	void deleteInvoicesProductsAndParty() {
+		// Invoices and the ledger are append-only through the application, so their rows are removed directly
+		jdbcTemplate.update("DELETE FROM invoice_line WHERE invoice_id IN (SELECT id FROM invoice WHERE party_id = ?)", partyId);
+		for (String table : List.of("invoice", "party_aging", "ledger_open_item", "ledger_entry", "party_balance")) {
+			jdbcTemplate.update("DELETE FROM " + table + " WHERE party_id = ?", partyId);
+		}
+		productIds.forEach(productService::deleteProduct);
+		productIds.clear();
+		partyService.deleteParty(partyId);
+	}
+
+	@Test
+	void saleMovesStockAndPostsTheLedgerEntry() {
+		Integer productId = createProduct(10);
+
+		InvoiceDTO invoice = invoiceService.createInvoice(sale(line(productId, 2), line(productId, 1)));
+
+		assertThat(invoice.getLines()).hasSize(2);
+		assertThat(invoice.getTotal()).isEqualByComparingTo("36.00");
+		assertThat(quantityOf(productId)).isEqualTo(7);
+		List<LedgerEntryDTO> entries = ledgerService.getEntries(partyId, PageRequest.of(0, 10)).getContent();
+		assertThat(entries).singleElement().satisfies(entry -> {
+			assertThat(entry.getEntryType()).isEqualTo(LedgerEntryType.DEBIT);
+			assertThat(entry.getAmount()).isEqualByComparingTo("36.00");
+			assertThat(entry.getReference()).isEqualTo("INV-" + invoice.getId());
+		});
+		assertThat(ledgerService.getBalance(partyId).getBalance()).isEqualByComparingTo("36.00");
+	}
+
+	@Test
+	void stockIsCheckedAgainstTheTotalOfDuplicateLines() {
+		Integer productId = createProduct(5);
+
+		// Each line alone fits the stock, together they do not
+		assertThatThrownBy(() -> invoiceService.createInvoice(sale(line(productId, 3), line(productId, 3))))
+				.isInstanceOf(ApiException.class)
+				.hasMessageContaining("5 left, 6 needed");
+
+		assertNothingRecorded(productId, 5);
+	}
+
+	@Test
+	void insufficientStockRollsBackTheWholeInvoice() {
+		Integer inStock = createProduct(10);
+		Integer shortOfStock = createProduct(1);
+
+		assertThatThrownBy(() -> invoiceService.createInvoice(sale(line(inStock, 4), line(shortOfStock, 2))))
+				.isInstanceOf(ApiException.class);
+
+		assertNothingRecorded(inStock, 10);
+		assertNothingRecorded(shortOfStock, 1);
+	}
+
+	@Test
+	void roundTripsDoNotGrowWithTheNumberOfLines() {
+		List<InvoiceLineDTO> lines = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			lines.add(line(createProduct(10), 1));
+		}
+		invoiceService.createInvoice(sale(line(productIds.get(0), 1)));
+
+		List<String> oneLine = SqlStatementCounter.statementsOf(
+				() -> invoiceService.createInvoice(sale(line(productIds.get(0), 1))));
+		List<String> fiftyLines = SqlStatementCounter.statementsOf(
+				() -> invoiceService.createInvoice(sale(lines.toArray(InvoiceLineDTO[]::new))));
+
+		assertThat(fiftyLines).hasSameSizeAs(oneLine);
+		// Party check, product lock, invoice, three batches, ledger posting with aging, and the lines read back
+		assertThat(fiftyLines).hasSizeLessThanOrEqualTo(14);
+		assertThat(SqlStatementCounter.selectsFrom(fiftyLines, "product")).isEqualTo(1);
+	}
+
+	private void assertNothingRecorded(Integer productId, int quantity) {
+		assertThat(quantityOf(productId)).isEqualTo(quantity);
+		assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM stock_movement WHERE product_id = ?", Long.class, productId))
+				.isZero();
+		assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM invoice WHERE party_id = ?", Long.class, partyId))
+				.isZero();
+		assertThat(ledgerService.getEntries(partyId, PageRequest.of(0, 10))).isEmpty();
+	}
+
+	private Integer createProduct(int quantity) {
+		ProductDTO product = new ProductDTO();
+		product.setName("Invoice product " + productIds.size());
+		product.setQuantity(quantity);
+		product.setPurchasePrice(8.0);
+		product.setSellingPrice(12.0);
+		Integer productId = productService.createProduct(product).getId();
+		productIds.add(productId);
+		return productId;
+	}
+
+	private Integer quantityOf(Integer productId) {
+		return productRepo.findById(productId).map(Product::getQuantity).orElseThrow();
+	}
+
+	private InvoiceDTO sale(InvoiceLineDTO... lines) {
+		InvoiceDTO invoice = new InvoiceDTO();
+		invoice.setPartyId(partyId);
+		invoice.setInvoiceType(InvoiceType.SALE);
+		invoice.setLines(List.of(lines));
+		return invoice;
+	}
+
+	private static InvoiceLineDTO line(Integer productId, int quantity) {
+		InvoiceLineDTO line = new InvoiceLineDTO();
+		line.setProductId(productId);
+		line.setQuantity(quantity);
+		return line;
+	}
+}
@@ -0,0 +1,147 @@
+package com.khata.ledger;
+
+import com.khata.ledger.dto.LedgerEntryDTO;
+import com.khata.ledger.entity.PartyAging;
+import com.khata.ledger.entity.enums.LedgerEntryType;
+import com.khata.ledger.repositories.PartyAgingRepo;
+import com.khata.ledger.service.AgingEngine;
+import com.khata.ledger.service.LedgerService;
+import com.khata.party.dto.PartyDTO;
+import com.khata.party.entity.enums.PartyType;
+import com.khata.party.service.PartyService;
+import com.khata.support.EmbeddedPostgresTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AgingEngineTest extends EmbeddedPostgresTest {
+
+	@Autowired
+	private LedgerService ledgerService;
+
+	@Autowired
+	private AgingEngine agingEngine;
+
+	@Autowired
+	private PartyAgingRepo partyAgingRepo;
+
+	@Autowired
+	private PartyService partyService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final LocalDate today = LocalDate.now();
+	private final List<Integer> partyIds = new ArrayList<>();
+
+	@BeforeEach
+	void createParties() {
+		partyIds.add(createParty(1));
+		partyIds.add(createParty(2));
+	}
+
+	@AfterEach
+	void deleteParties() {
+		for (Integer partyId : partyIds) {
+			// The ledger is append-only through the application, so its rows are removed directly
+			for (String table : List.of("party_aging", "ledger_open_item", "ledger_entry", "party_balance")) {
+				jdbcTemplate.update("DELETE FROM " + table + " WHERE party_id = ?", partyId);
+			}
+			partyService.deleteParty(partyId);
+		}
+		partyIds.clear();
+	}
+
+	@Test
+	void itemsLandInTheBucketOfTheirAge() {
+		Integer partyId = partyIds.get(0);
+		post(partyId, LedgerEntryType.DEBIT, "1", 30);
+		post(partyId, LedgerEntryType.DEBIT, "2", 31);
+		post(partyId, LedgerEntryType.DEBIT, "4", 60);
+		post(partyId, LedgerEntryType.DEBIT, "8", 61);
+		post(partyId, LedgerEntryType.DEBIT, "16", 90);
+		post(partyId, LedgerEntryType.DEBIT, "32", 91);
+
+		assertBuckets(partyId, "1", "6", "24", "32");
+	}
+
+	@Test
+	void postingSettlesTheOldestItemsFirst() {
+		Integer partyId = partyIds.get(0);
+		post(partyId, LedgerEntryType.DEBIT, "100", 40);
+		post(partyId, LedgerEntryType.DEBIT, "50", 5);
+
+		// Pays off the 40 day old item and 20 of the newer one
+		post(partyId, LedgerEntryType.CREDIT, "120", 0);
+		assertBuckets(partyId, "30", "0", "0", "0");
+
+		post(partyId, LedgerEntryType.CREDIT, "30", 0);
+		assertThat(partyAgingRepo.findById(partyId)).isEmpty();
+
+		// An advance payment is an open item of its own
+		post(partyId, LedgerEntryType.CREDIT, "10", 0);
+		assertBuckets(partyId, "-10", "0", "0", "0");
+	}
+
+	@Test
+	void rolloverRecomputesOnlyPartiesWhoseItemsCrossedABoundary() {
+		Integer crossing = partyIds.get(0);
+		Integer notCrossing = partyIds.get(1);
+		post(crossing, LedgerEntryType.DEBIT, "100", 30);
+		post(crossing, LedgerEntryType.DEBIT, "200", 60);
+		post(crossing, LedgerEntryType.DEBIT, "300", 90);
+		post(notCrossing, LedgerEntryType.DEBIT, "5", 29);
+		// Brings the engine up to today, whatever ran before in this context
+		agingEngine.rollover(today);
+		assertBuckets(crossing, "100", "200", "300", "0");
+
+		agingEngine.rollover(today.plusDays(1));
+
+		assertBuckets(crossing, "0", "100", "200", "300");
+		assertThat(partyAgingRepo.findById(crossing).orElseThrow().getAsOf()).isEqualTo(today.plusDays(1));
+		// Its item is 30 days old tomorrow, still within the first bucket, so it is left alone
+		PartyAging untouched = partyAgingRepo.findById(notCrossing).orElseThrow();
+		assertThat(untouched.getAsOf()).isEqualTo(today);
+		assertThat(untouched.getDays0To30()).isEqualByComparingTo("5");
+
+		// A second run for the same day does nothing
+		agingEngine.rollover(today.plusDays(1));
+		assertThat(partyAgingRepo.findById(notCrossing).orElseThrow().getAsOf()).isEqualTo(today);
+	}
+
+	private void assertBuckets(Integer partyId, String days0To30, String days31To60, String days61To90, String over90Days) {
+		PartyAging aging = partyAgingRepo.findById(partyId).orElseThrow();
+		assertThat(aging.getDays0To30()).isEqualByComparingTo(days0To30);
+		assertThat(aging.getDays31To60()).isEqualByComparingTo(days31To60);
+		assertThat(aging.getDays61To90()).isEqualByComparingTo(days61To90);
+		assertThat(aging.getOver90Days()).isEqualByComparingTo(over90Days);
+	}
+
+	private void post(Integer partyId, LedgerEntryType entryType, String amount, int daysAgo) {
+		LedgerEntryDTO entry = new LedgerEntryDTO();
+		entry.setEntryType(entryType);
+		entry.setAmount(new BigDecimal(amount));
+		entry.setEntryDate(today.minusDays(daysAgo));
+		ledgerService.postEntry(partyId, entry);
+	}
+
+	private Integer createParty(int number) {
+		PartyDTO party = new PartyDTO();
+		party.setName("Aging Party " + number);
+		party.setEmail("aging-" + number + "@khata.test");
+		party.setPhoneNumber("980000022" + number);
+		party.setAddress("Aging Street " + number);
+		party.setPartyBusinessName("Aging Traders " + number);
+		party.setPartyType(PartyType.CUSTOMER);
+		return partyService.createParty(party).getId();
+	}
+}
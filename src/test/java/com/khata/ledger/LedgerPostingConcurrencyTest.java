@@ -0,0 +1,133 @@
+package com.khata.ledger;
+
+import com.khata.ledger.dto.LedgerEntryDTO;
+import com.khata.ledger.dto.PartyBalanceDTO;
+import com.khata.ledger.entity.LedgerEntry;
+import com.khata.ledger.entity.enums.LedgerEntryType;
+import com.khata.ledger.repositories.LedgerEntryRepo;
+import com.khata.ledger.service.LedgerService;
+import com.khata.party.dto.PartyDTO;
+import com.khata.party.entity.enums.PartyType;
+import com.khata.party.service.PartyService;
+import com.khata.support.EmbeddedPostgresTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LedgerPostingConcurrencyTest extends EmbeddedPostgresTest {
+
+	private static final int THREADS = 8;
+	private static final int ENTRIES_PER_THREAD = 50;
+
+	@Autowired
+	private LedgerService ledgerService;
+
+	@Autowired
+	private LedgerEntryRepo ledgerEntryRepo;
+
+	@Autowired
+	private PartyService partyService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Integer partyId;
+
+	@BeforeEach
+	void createParty() {
+		PartyDTO party = new PartyDTO();
+		party.setName("Ledger Concurrency");
+		party.setEmail("ledger-concurrency@khata.test");
+		party.setPhoneNumber("9800000021");
+		party.setAddress("Ledger Street 1");
+		party.setPartyBusinessName("Ledger Traders");
+		party.setPartyType(PartyType.CUSTOMER);
+		partyId = partyService.createParty(party).getId();
+	}
+
+	@AfterEach
+	void deleteParty() {
+		// The ledger is append-only through the application, so its rows are removed directly
+		for (String table : List.of("party_aging", "ledger_open_item", "ledger_entry", "party_balance")) {
+			jdbcTemplate.update("DELETE FROM " + table + " WHERE party_id = ?", partyId);
+		}
+		partyService.deleteParty(partyId);
+	}
+
+	@Test
+	void concurrentPostingsLoseNoUpdates() throws Exception {
+		// Each thread posts a debit of 3 and a credit of 1, ENTRIES_PER_THREAD / 2 times
+		runConcurrently(j -> post(j % 2 == 0 ? LedgerEntryType.DEBIT : LedgerEntryType.CREDIT, j % 2 == 0 ? "3.00" : "1.00"));
+
+		int entries = THREADS * ENTRIES_PER_THREAD;
+		PartyBalanceDTO balance = ledgerService.getBalance(partyId);
+		assertThat(balance.getEntryCount()).isEqualTo(entries);
+		assertThat(balance.getTotalDebit()).isEqualByComparingTo(BigDecimal.valueOf(3L * entries / 2));
+		assertThat(balance.getTotalCredit()).isEqualByComparingTo(BigDecimal.valueOf(entries / 2));
+		assertThat(balance.getBalance()).isEqualByComparingTo(BigDecimal.valueOf(entries));
+	}
+
+	@Test
+	void balanceAfterFollowsPostingOrder() throws Exception {
+		runConcurrently(j -> post(j % 3 == 0 ? LedgerEntryType.CREDIT : LedgerEntryType.DEBIT, "1.00"));
+
+		List<LedgerEntry> entries = new ArrayList<>(
+				ledgerEntryRepo.findByPartyIdOrderByIdDesc(partyId, PageRequest.of(0, THREADS * ENTRIES_PER_THREAD)).getContent());
+		assertThat(entries).hasSize(THREADS * ENTRIES_PER_THREAD);
+		// Oldest first: every entry's running balance is the previous one plus its own amount
+		entries.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+		BigDecimal balance = BigDecimal.ZERO;
+		for (LedgerEntry entry : entries) {
+			BigDecimal amount = entry.getEntryType() == LedgerEntryType.DEBIT ? entry.getAmount() : entry.getAmount().negate();
+			balance = balance.add(amount);
+			assertThat(entry.getBalanceAfter()).as("balance after entry %d", entry.getId()).isEqualByComparingTo(balance);
+		}
+		assertThat(ledgerService.getBalance(partyId).getBalance()).isEqualByComparingTo(balance);
+	}
+
+	private void post(LedgerEntryType entryType, String amount) {
+		LedgerEntryDTO entry = new LedgerEntryDTO();
+		entry.setEntryType(entryType);
+		entry.setAmount(new BigDecimal(amount));
+		ledgerService.postEntry(partyId, entry);
+	}
+
+	// Runs the task ENTRIES_PER_THREAD times on each of THREADS threads, all starting together
+	private static void runConcurrently(IntConsumer task) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int j = 0; j < ENTRIES_PER_THREAD; j++) {
+						task.accept(j);
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(1, TimeUnit.MINUTES);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
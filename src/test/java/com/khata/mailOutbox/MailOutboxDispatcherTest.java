@@ -0,0 +1,199 @@
+package com.khata.mailOutbox;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import com.khata.auth.dto.UserDTO;
+import com.khata.auth.repositories.UserRepo;
+import com.khata.auth.service.UserService;
+import com.khata.mailOutbox.entity.MailOutbox;
+import com.khata.mailOutbox.entity.enums.MailOutboxStatus;
+import com.khata.mailOutbox.repositories.MailOutboxRepo;
+import com.khata.mailOutbox.service.MailOutboxDispatcher;
+import com.khata.mailOutbox.service.MailOutboxService;
+import com.khata.mailVerification.repositories.MailVerificationRepo;
+import com.khata.support.EmbeddedPostgresTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MailOutboxDispatcherTest extends EmbeddedPostgresTest {
+
+	private static final String EMAIL = "outbox-dispatcher@khata.test";
+	private static final int SMTP_PORT = freePort();
+	private static final GreenMail SMTP = new GreenMail(new ServerSetup(SMTP_PORT, "127.0.0.1", ServerSetup.PROTOCOL_SMTP))
+			.withConfiguration(GreenMailConfiguration.aConfig().withUser("khata", "smtp-password"));
+
+	@Autowired
+	private MailOutboxDispatcher dispatcher;
+
+	@Autowired
+	private MailOutboxService mailOutboxService;
+
+	@Autowired
+	private MailOutboxRepo mailOutboxRepo;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepo userRepo;
+
+	@Autowired
+	private MailVerificationRepo mailVerificationRepo;
+
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	void setTransactionManager(PlatformTransactionManager transactionManager) {
+		transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	@DynamicPropertySource
+	static void mailProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.mail.host", () -> "127.0.0.1");
+		registry.add("spring.mail.port", () -> SMTP_PORT);
+		registry.add("spring.mail.username", () -> "khata");
+		registry.add("spring.mail.password", () -> "smtp-password");
+		registry.add("spring.mail.properties.mail.smtp.starttls.enable", () -> "false");
+		registry.add("spring.mail.properties.mail.smtp.starttls.required", () -> "false");
+		// Only the test triggers dispatch, so every assertion sees the outbox the way the test left it
+		registry.add("mail.outbox.poll-interval", () -> "3600000");
+	}
+
+	@BeforeEach
+	void startSmtp() {
+		if (!SMTP.isRunning()) {
+			SMTP.start();
+		}
+		SMTP.reset();
+	}
+
+	@AfterEach
+	void deleteMessages() {
+		mailOutboxRepo.deleteAll(outboxFor(EMAIL));
+		mailVerificationRepo.findByEmail(EMAIL).ifPresent(mailVerificationRepo::delete);
+		userRepo.findByEmail(EMAIL).ifPresent(userRepo::delete);
+	}
+
+	@AfterAll
+	static void stopSmtp() {
+		SMTP.stop();
+	}
+
+	@Test
+	void registrationQueuesTheMailAndTheDispatcherSendsIt() throws Exception {
+		userService.createUser(user());
+
+		// Registration commits without talking to the mail server
+		assertThat(SMTP.getReceivedMessages()).isEmpty();
+		assertThat(outboxFor(EMAIL)).singleElement()
+				.extracting(MailOutbox::getStatus).isEqualTo(MailOutboxStatus.PENDING);
+
+		dispatcher.dispatch();
+
+		MimeMessage[] received = SMTP.getReceivedMessages();
+		assertThat(received).hasSize(1);
+		assertThat(received[0].getAllRecipients()[0].toString()).isEqualTo(EMAIL);
+		MailOutbox sent = outboxFor(EMAIL).get(0);
+		assertThat(sent.getStatus()).isEqualTo(MailOutboxStatus.SENT);
+		assertThat(sent.getSentAt()).isNotNull();
+		assertThat(sent.getAttempts()).isEqualTo(1);
+	}
+
+	@Test
+	void failedSendIsRetriedWithBackoff() {
+		mailOutboxService.enqueue(EMAIL, "Subject", "<p>Body</p>");
+		SMTP.stop();
+
+		dispatcher.dispatch();
+
+		MailOutbox failed = outboxFor(EMAIL).get(0);
+		assertThat(failed.getStatus()).isEqualTo(MailOutboxStatus.PENDING);
+		assertThat(failed.getAttempts()).isEqualTo(1);
+		assertThat(failed.getLastError()).isNotBlank();
+		assertThat(failed.getNextAttemptAt()).isAfter(LocalDateTime.now());
+	}
+
+	@Test
+	void lateReportDoesNotOverwriteANewerClaim() {
+		mailOutboxService.enqueue(EMAIL, "Subject", "<p>Body</p>");
+		List<Long> ids = List.of(outboxFor(EMAIL).get(0).getId());
+		LocalDateTime firstClaim = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+		LocalDateTime secondClaim = firstClaim.plusMinutes(10);
+		// Claimed, released as stale and claimed again by another dispatcher
+		transactionTemplate.executeWithoutResult(status ->
+				mailOutboxRepo.markClaimed(ids, MailOutboxStatus.SENDING, firstClaim));
+		transactionTemplate.executeWithoutResult(status ->
+				mailOutboxRepo.markClaimed(ids, MailOutboxStatus.SENDING, secondClaim));
+
+		Integer lateSent = transactionTemplate.execute(status ->
+				mailOutboxRepo.markSent(ids, LocalDateTime.now(), firstClaim));
+		Integer lateFailure = transactionTemplate.execute(status -> mailOutboxRepo.markFailed(
+				ids.get(0), MailOutboxStatus.PENDING, 1, LocalDateTime.now(), "timeout", firstClaim));
+
+		assertThat(lateSent).isZero();
+		assertThat(lateFailure).isZero();
+		assertThat(outboxFor(EMAIL).get(0).getStatus()).isEqualTo(MailOutboxStatus.SENDING);
+		Integer currentSent = transactionTemplate.execute(status ->
+				mailOutboxRepo.markSent(ids, LocalDateTime.now(), secondClaim));
+		assertThat(currentSent).isEqualTo(1);
+		assertThat(outboxFor(EMAIL).get(0).getStatus()).isEqualTo(MailOutboxStatus.SENT);
+	}
+
+	@Test
+	void purgeDeletesOnlySentMessagesPastTheRetention() {
+		mailOutboxService.enqueue(EMAIL, "Old", "<p>123456</p>");
+		mailOutboxService.enqueue(EMAIL, "Recent", "<p>654321</p>");
+		dispatcher.dispatch();
+		assertThat(outboxFor(EMAIL)).extracting(MailOutbox::getStatus).containsOnly(MailOutboxStatus.SENT);
+		mailOutboxService.enqueue(EMAIL, "Pending", "<p>111111</p>");
+
+		MailOutbox old = outboxFor(EMAIL).stream().filter(message -> message.getSubject().equals("Old")).findFirst().orElseThrow();
+		old.setSentAt(LocalDateTime.now().minusDays(2));
+		mailOutboxRepo.save(old);
+
+		dispatcher.purgeSent();
+
+		assertThat(outboxFor(EMAIL)).extracting(MailOutbox::getSubject).containsExactlyInAnyOrder("Recent", "Pending");
+	}
+
+	private List<MailOutbox> outboxFor(String recipient) {
+		return mailOutboxRepo.findAll().stream()
+				.filter(message -> message.getRecipient().equals(recipient))
+				.toList();
+	}
+
+	private static UserDTO user() {
+		UserDTO user = new UserDTO();
+		user.setFullName("Outbox Dispatcher");
+		user.setEmail(EMAIL);
+		user.setPassword("registration-password");
+		user.setPhoneNumber("9800000001");
+		return user;
+	}
+
+	private static int freePort() {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package com.khata.mailVerification;
+
+import com.khata.mailVerification.entity.MailVerification;
+import com.khata.mailVerification.repositories.MailVerificationRepo;
+import com.khata.mailVerification.service.impl.JpaOtpStore;
+import com.khata.support.EmbeddedPostgresTest;
+import com.khata.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JpaOtpStoreTest extends EmbeddedPostgresTest {
+
+	private static final int THREADS = 8;
+
+	@Autowired
+	private JpaOtpStore otpStore;
+
+	@Autowired
+	private MailVerificationRepo mailVerificationRepo;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final LocalDateTime expiry = LocalDateTime.now().plusMinutes(10).truncatedTo(ChronoUnit.MICROS);
+
+	@AfterEach
+	void deleteCodes() {
+		jdbcTemplate.update("DELETE FROM mail_verification WHERE email LIKE 'otp-store-%'");
+	}
+
+	@Test
+	void newCodeReplacesTheEmailsPreviousOne() {
+		otpStore.save("otp-store-1@khata.test", "111111", expiry);
+		MailVerification used = otpStore.find("otp-store-1@khata.test").orElseThrow();
+		used.setUsed(true);
+		mailVerificationRepo.save(used);
+
+		otpStore.save("otp-store-1@khata.test", "222222", expiry.plusMinutes(1));
+
+		assertThat(rowsFor("otp-store-1@khata.test")).isEqualTo(1);
+		MailVerification current = otpStore.find("otp-store-1@khata.test").orElseThrow();
+		assertThat(current.getOtp()).isEqualTo("222222");
+		assertThat(current.getExpiryTime()).isEqualTo(expiry.plusMinutes(1));
+		assertThat(current.isUsed()).isFalse();
+	}
+
+	@Test
+	void concurrentCodesForOneEmailKeepOneRow() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				String otp = String.valueOf(100000 + i);
+				futures.add(executor.submit(() -> {
+					start.await();
+					otpStore.save("otp-store-2@khata.test", otp, expiry);
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(1, TimeUnit.MINUTES);
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		assertThat(rowsFor("otp-store-2@khata.test")).isEqualTo(1);
+	}
+
+	@Test
+	void purgeDeletesExpiredAndUsedCodesInChunks() {
+		LocalDateTime expired = LocalDateTime.now().minusMinutes(1);
+		for (int i = 0; i < 5; i++) {
+			otpStore.save("otp-store-expired-" + i + "@khata.test", "123456", expired);
+		}
+		otpStore.save("otp-store-used@khata.test", "123456", expiry);
+		MailVerification used = otpStore.find("otp-store-used@khata.test").orElseThrow();
+		used.setUsed(true);
+		mailVerificationRepo.save(used);
+		otpStore.save("otp-store-live@khata.test", "123456", expiry);
+		JpaOtpStore chunked = new JpaOtpStore(mailVerificationRepo, transactionManager, 2);
+
+		List<String> statements = SqlStatementCounter.statementsOf(chunked::purgeExpired);
+
+		// Six rows in chunks of two: three full chunks and the empty one that ends the loop
+		assertThat(statements).filteredOn(sql -> sql.startsWith("DELETE")).hasSizeGreaterThanOrEqualTo(4);
+		assertThat(jdbcTemplate.queryForList("SELECT email FROM mail_verification WHERE email LIKE 'otp-store-%'", String.class))
+				.containsExactly("otp-store-live@khata.test");
+	}
+
+	private long rowsFor(String email) {
+		return jdbcTemplate.queryForObject("SELECT count(*) FROM mail_verification WHERE email = ?", Long.class, email);
+	}
+}
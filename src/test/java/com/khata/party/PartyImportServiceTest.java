@@ -0,0 +1,142 @@
+package com.khata.party;
+
+import com.khata.party.dto.PartyDTO;
+import com.khata.party.entity.enums.PartyType;
+import com.khata.party.service.PartyImportService;
+import com.khata.party.service.PartyService;
+import com.khata.payload.ImportReport;
+import com.khata.payload.ImportReport.RowError;
+import com.khata.support.EmbeddedPostgresTest;
+import com.khata.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class PartyImportServiceTest extends EmbeddedPostgresTest {
+
+	private static final String EXISTING_EMAIL = "import-existing@khata.test";
+	private static final String EXISTING_PHONE_NUMBER = "9800000400";
+
+	@Autowired
+	private PartyImportService partyImportService;
+
+	@Autowired
+	private PartyService partyService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void createExistingParty() {
+		partyService.createParty(party("Existing Party", EXISTING_EMAIL, EXISTING_PHONE_NUMBER));
+	}
+
+	@AfterEach
+	void deleteParties() {
+		jdbcTemplate.queryForList("SELECT id FROM party WHERE email LIKE 'import-%@khata.test'", Integer.class)
+				.forEach(partyService::deleteParty);
+	}
+
+	@Test
+	void rowRepeatingAnEarlierEmailOrPhoneNumberIsRejected() {
+		ImportReport report = partyImportService.createParties(List.of(
+				party("First Party", "import-first@khata.test", "9800000401"),
+				party("Same Email", "import-first@khata.test", "9800000402"),
+				party("Same Phone", "import-second@khata.test", "9800000401"),
+				// Its email was only seen on the rejected row above, so it is still free
+				party("Second Party", "import-second@khata.test", "9800000403")));
+
+		assertThat(report.getImported()).isEqualTo(2);
+		assertThat(report.getErrors()).extracting(RowError::getRow, RowError::getMessage).containsExactly(
+				tuple(1L, "Email appears more than once in the import: import-first@khata.test"),
+				tuple(2L, "Phone number appears more than once in the import: 9800000401"));
+		assertThat(namesOfImportedParties()).containsExactly("Existing Party", "First Party", "Second Party");
+	}
+
+	@Test
+	void partiesAlreadyInTheDatabaseAreFoundWithOneLookupPerChunk() {
+		SqlStatementCounter.Recorded<ImportReport> recorded = SqlStatementCounter.record(() -> partyImportService.createParties(List.of(
+				party("Taken Email", EXISTING_EMAIL, "9800000411"),
+				party("Taken Phone", "import-taken-phone@khata.test", EXISTING_PHONE_NUMBER),
+				party("Fresh Party", "import-fresh@khata.test", "9800000412"))));
+
+		assertThat(recorded.result().getImported()).isEqualTo(1);
+		assertThat(recorded.result().getErrors()).extracting(RowError::getRow, RowError::getMessage).containsExactly(
+				tuple(0L, "Email already exists: " + EXISTING_EMAIL),
+				tuple(1L, "Phone number already exists: " + EXISTING_PHONE_NUMBER));
+		assertThat(recorded.statements())
+				.filteredOn(sql -> sql.toLowerCase(Locale.ROOT).contains("= any(?)"))
+				.hasSize(1);
+		assertThat(partyService.searchPartiesRanked("Fresh Party", PageRequest.of(0, 1)).getContent())
+				.extracting(PartyDTO::getEmail)
+				.containsExactly("import-fresh@khata.test");
+	}
+
+	@Test
+	void invalidRowsAreRejectedWithTheReasonAndTheRestImported() {
+		PartyDTO shortName = party("Ana", "import-short-name@khata.test", "9800000421");
+		PartyDTO badPhoneNumber = party("Bad Phone", "import-bad-phone@khata.test", "98-0000-0422");
+		PartyDTO noType = party("No Type", "import-no-type@khata.test", "9800000423");
+		noType.setPartyType(null);
+
+		ImportReport report = partyImportService.createParties(Arrays.asList(
+				shortName, null, badPhoneNumber, noType, party("Valid Party", "import-valid@khata.test", "9800000424")));
+
+		assertThat(report.getImported()).isEqualTo(1);
+		assertThat(report.getFailed()).isEqualTo(4);
+		// A JSON list is numbered from 0
+		assertThat(report.getErrors()).extracting(RowError::getRow, RowError::getMessage).containsExactly(
+				tuple(0L, "Name must be between 4 and 100 characters."),
+				tuple(1L, "Party cannot be null"),
+				tuple(2L, "Invalid phone number format"),
+				tuple(3L, "Party type cannot be null"));
+		assertThat(namesOfImportedParties()).containsExactly("Existing Party", "Valid Party");
+	}
+
+	@Test
+	void csvRowsAreNumberedFromTheHeader() {
+		String csv = """
+				Name,Email,Phone Number,Address,Party_Business_Name,party type
+				Csv Customer,import-csv-1@khata.test,9800000431,Import Street 1,Import Traders,customer
+				Csv Supplier,import-csv-2@khata.test,9800000432,Import Street 2,Import Traders,supplier
+				Csv Vendor,import-csv-1@khata.test,9800000433,Import Street 3,Import Traders,VENDOR
+				Csv Vendor,import-csv-3@khata.test,9800000433,Import Street 3,Import Traders,VENDOR
+				""";
+
+		ImportReport report = partyImportService.importParties(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+		assertThat(report.getImported()).isEqualTo(2);
+		assertThat(report.getErrors()).extracting(RowError::getRow, RowError::getMessage).containsExactly(
+				tuple(3L, "Party type cannot be null"),
+				tuple(4L, "Email appears more than once in the import: import-csv-1@khata.test"));
+		assertThat(jdbcTemplate.queryForList("SELECT party_type FROM party WHERE email LIKE 'import-csv-%' ORDER BY email", String.class))
+				.containsExactly(PartyType.CUSTOMER.name(), PartyType.VENDOR.name());
+	}
+
+	private List<String> namesOfImportedParties() {
+		return jdbcTemplate.queryForList("SELECT name FROM party WHERE email LIKE 'import-%@khata.test' ORDER BY id", String.class);
+	}
+
+	private static PartyDTO party(String name, String email, String phoneNumber) {
+		PartyDTO party = new PartyDTO();
+		party.setName(name);
+		party.setEmail(email);
+		party.setPhoneNumber(phoneNumber);
+		party.setAddress("Import Street");
+		party.setPartyBusinessName("Import Traders");
+		party.setPartyType(PartyType.CUSTOMER);
+		return party;
+	}
+}
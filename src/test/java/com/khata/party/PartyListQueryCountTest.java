@@ -0,0 +1,59 @@
+package com.khata.party;
+
+import com.khata.party.dto.PartyDTO;
+import com.khata.party.entity.enums.PartyType;
+import com.khata.party.service.PartyService;
+import com.khata.support.EmbeddedPostgresTest;
+import com.khata.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartyListQueryCountTest extends EmbeddedPostgresTest {
+
+	private static final int PARTIES = 3;
+
+	@Autowired
+	private PartyService partyService;
+
+	private final List<Integer> partyIds = new ArrayList<>();
+
+	@BeforeEach
+	void createParties() {
+		for (int i = 1; i <= PARTIES; i++) {
+			PartyDTO party = new PartyDTO();
+			party.setName("List Party " + i);
+			party.setEmail("list-party-" + i + "@khata.test");
+			party.setPhoneNumber("980000031" + i);
+			party.setAddress("List Street " + i);
+			party.setPartyBusinessName("List Traders " + i);
+			party.setPartyType(PartyType.CUSTOMER);
+			partyIds.add(partyService.createParty(party).getId());
+		}
+		// Loads the row counter, which a running server has done long before
+		partyService.getParties(PageRequest.of(0, 1));
+	}
+
+	@AfterEach
+	void deleteParties() {
+		partyIds.forEach(partyService::deleteParty);
+		partyIds.clear();
+	}
+
+	@Test
+	void partyPageIsOneSelectAndLoadsNoEntities() {
+		List<String> statements = SqlStatementCounter.statementsOf(() -> partyService.getParties(PageRequest.of(0, PARTIES)));
+
+		assertThat(statements).hasSize(1);
+		assertThat(entitiesLoadedBy(() -> partyService.getParties(PageRequest.of(0, PARTIES)))).isZero();
+		// Cursor pages still read entities through the specification executor
+		assertThat(entitiesLoadedBy(() -> partyService.getParties(null, PageRequest.of(0, PARTIES)))).isEqualTo(PARTIES);
+	}
+}
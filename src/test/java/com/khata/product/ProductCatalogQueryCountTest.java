@@ -0,0 +1,125 @@
+package com.khata.product;
+
+import com.khata.product.dto.CategoryDTO;
+import com.khata.product.entity.Product;
+import com.khata.product.repositories.CategoryRepo;
+import com.khata.product.repositories.ProductRepo;
+import com.khata.product.service.CategoryService;
+import com.khata.product.service.ProductCatalogCache;
+import com.khata.product.service.ProductService;
+import com.khata.support.EmbeddedPostgresTest;
+import com.khata.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pins the number of statements each catalog endpoint sends to the database, so an N+1 regression fails the build.
+ */
+class ProductCatalogQueryCountTest extends EmbeddedPostgresTest {
+
+	private static final int PRODUCTS = 5;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private CategoryService categoryService;
+
+	@Autowired
+	private ProductCatalogCache productCatalogCache;
+
+	@Autowired
+	private ProductRepo productRepo;
+
+	@Autowired
+	private CategoryRepo categoryRepo;
+
+	private Integer categoryId;
+	private final List<Integer> productIds = new ArrayList<>();
+
+	@BeforeEach
+	void createCatalog() {
+		CategoryDTO category = new CategoryDTO();
+		category.setTitle("Query count");
+		categoryId = categoryService.createCategory(category).getId();
+		for (int i = 0; i < PRODUCTS; i++) {
+			Product product = new Product();
+			product.setProductId("QC-" + i);
+			product.setName("Query count " + i);
+			product.setQuantity(1);
+			product.setPurchasePrice(BigDecimal.ONE);
+			product.setSellingPrice(BigDecimal.TEN);
+			product.setCategory(categoryRepo.getReferenceById(categoryId));
+			productIds.add(productRepo.save(product).getId());
+		}
+		// Loads the row counter, which a running server has done long before
+		productService.getProducts(PageRequest.of(0, 1));
+	}
+
+	@AfterEach
+	void deleteCatalog() {
+		if (categoryRepo.existsById(categoryId)) {
+			categoryService.deleteCategory(categoryId);
+		}
+		productIds.clear();
+	}
+
+	@Test
+	void productPageIsOneSelect() {
+		List<String> statements = SqlStatementCounter.statementsOf(() -> productService.getProducts(PageRequest.of(0, 20)));
+
+		assertThat(statements).hasSize(1);
+		assertThat(SqlStatementCounter.selectsFrom(statements, "category")).isZero();
+	}
+
+	@Test
+	void productCursorPageIsOneSelect() {
+		List<String> statements = SqlStatementCounter.statementsOf(
+				() -> productService.getProducts(null, PageRequest.of(0, 20, Sort.by("name"))));
+
+		assertThat(statements).hasSize(1);
+		assertThat(SqlStatementCounter.selectsFrom(statements, "category")).isZero();
+	}
+
+	@Test
+	void listPagesLoadNoEntities() {
+		assertThat(entitiesLoadedBy(() -> productService.getProducts(PageRequest.of(0, PRODUCTS)))).isZero();
+		assertThat(entitiesLoadedBy(() -> categoryService.getCategories(PageRequest.of(0, 20)))).isZero();
+		// Cursor pages still read entities through the specification executor
+		assertThat(entitiesLoadedBy(() -> productService.getProducts(null, PageRequest.of(0, PRODUCTS)))).isEqualTo(PRODUCTS);
+	}
+
+	@Test
+	void productDetailIsOneSelectAndThenCached() {
+		Integer productId = productIds.get(0);
+		productCatalogCache.invalidateProduct(productId);
+
+		List<String> miss = SqlStatementCounter.statementsOf(() -> productService.getProductById(productId));
+		List<String> hit = SqlStatementCounter.statementsOf(() -> productService.getProductById(productId));
+
+		assertThat(miss).hasSize(1);
+		assertThat(SqlStatementCounter.selectsFrom(miss, "category")).isZero();
+		assertThat(hit).isEmpty();
+	}
+
+	@Test
+	void categoryDeleteIsThreeBulkDeletes() {
+		List<String> statements = SqlStatementCounter.statementsOf(() -> categoryService.deleteCategory(categoryId));
+
+		// Stock movements, products and the category, whatever the number of products
+		assertThat(statements).hasSize(3)
+				.allSatisfy(sql -> assertThat(sql.stripLeading().toLowerCase(Locale.ROOT)).startsWith("delete"));
+		assertThat(productRepo.findAllById(productIds)).isEmpty();
+	}
+}
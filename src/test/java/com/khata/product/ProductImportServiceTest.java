@@ -0,0 +1,196 @@
+package com.khata.product;
+
+import com.khata.payload.ImportReport;
+import com.khata.payload.ImportReport.RowError;
+import com.khata.product.dto.CategoryDTO;
+import com.khata.product.dto.ProductDTO;
+import com.khata.product.entity.Product;
+import com.khata.product.repositories.CategoryRepo;
+import com.khata.product.repositories.ProductRepo;
+import com.khata.product.service.CategoryService;
+import com.khata.product.service.ProductImportService;
+import com.khata.product.service.ProductService;
+import com.khata.support.EmbeddedPostgresTest;
+import com.khata.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ProductImportServiceTest extends EmbeddedPostgresTest {
+
+	private static final int CHUNK_SIZE = 1000;
+	private static final String HEADER = "Name,Quantity,Purchase Price,Selling_Price,Category\n";
+	private static final String CATEGORY = "Import Staples";
+
+	@Autowired
+	private ProductImportService productImportService;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private CategoryService categoryService;
+
+	@Autowired
+	private CategoryRepo categoryRepo;
+
+	@Autowired
+	private ProductRepo productRepo;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final List<Integer> categoryIds = new ArrayList<>();
+
+	@BeforeEach
+	void createCategory() {
+		createCategory(CATEGORY);
+	}
+
+	@AfterEach
+	void deleteCategories() {
+		// Deletes the imported products with them
+		for (Integer categoryId : categoryIds) {
+			if (categoryRepo.existsById(categoryId)) {
+				categoryService.deleteCategory(categoryId);
+			}
+		}
+		categoryIds.clear();
+	}
+
+	@Test
+	void chunksAreBatchedWithIdsFromTheProductSequence() {
+		StringBuilder csv = new StringBuilder(HEADER);
+		for (int i = 1; i <= CHUNK_SIZE + 1; i++) {
+			csv.append("Chunked Rice ").append(i).append(",").append(i).append(",100,120.50,").append(CATEGORY).append('\n');
+		}
+
+		SqlStatementCounter.Recorded<ImportReport> recorded = SqlStatementCounter.record(() -> productImportService.importProducts(stream(csv)));
+
+		assertThat(recorded.result().getImported()).isEqualTo(CHUNK_SIZE + 1);
+		assertThat(recorded.result().getFailed()).isZero();
+		// One id allocation and one insert batch per chunk, however many rows it holds
+		assertThat(recorded.statements()).filteredOn(sql -> sql.toLowerCase(Locale.ROOT).contains("nextval")).hasSize(2);
+		assertThat(recorded.statements()).filteredOn(sql -> sql.toLowerCase(Locale.ROOT).startsWith("insert into product")).hasSize(2);
+
+		List<Integer> ids = importedIds();
+		assertThat(ids).hasSize(CHUNK_SIZE + 1).doesNotHaveDuplicates();
+		// The ids came from the sequence the identity column draws from, so later products cannot collide with them
+		Product later = new Product();
+		later.setProductId("IMPORT-LATER");
+		later.setName("Later Rice");
+		later.setQuantity(1);
+		later.setPurchasePrice(BigDecimal.ONE);
+		later.setSellingPrice(BigDecimal.TEN);
+		later.setCategory(categoryRepo.getReferenceById(categoryIds.get(0)));
+		assertThat(productRepo.save(later).getId()).isGreaterThan(ids.get(ids.size() - 1));
+
+		assertThat(productService.searchProducts("Chunked Rice 1001", null, PageRequest.of(0, 1)).getItems())
+				.singleElement()
+				.satisfies(product -> {
+					assertThat(product.getName()).isEqualTo("Chunked Rice 1001");
+					assertThat(product.getQuantity()).isEqualTo(CHUNK_SIZE + 1);
+					assertThat(product.getSellingPrice()).isEqualTo(120.5);
+				});
+	}
+
+	@Test
+	void badRowsAreReportedByTheirLineAndTheRestImported() {
+		String csv = HEADER
+				+ "Good Lentils,5,10.5,12," + CATEGORY + "\n"
+				+ ",1,1,1," + CATEGORY + "\n"
+				+ "Negative Quantity,-1,1,1," + CATEGORY + "\n"
+				+ "Wordy Price,1,ten,1," + CATEGORY + "\n"
+				+ "Fractional Paisa,1,1.005,1," + CATEGORY + "\n"
+				+ "Overflowing Price,1,1" + "0".repeat(36) + ",1," + CATEGORY + "\n"
+				+ "Unknown Category,1,1,1,Import Nowhere\n"
+				+ "Largest Price,1," + "9".repeat(36) + ".99,1.500," + CATEGORY + "\n";
+
+		ImportReport report = productImportService.importProducts(stream(csv));
+
+		assertThat(report.getImported()).isEqualTo(2);
+		assertThat(report.getFailed()).isEqualTo(6);
+		// The header is row 1
+		assertThat(report.getErrors()).extracting(RowError::getRow, RowError::getMessage).containsExactly(
+				tuple(3L, "Product name cannot be null"),
+				tuple(4L, "Quantity must be greater than or equal to 0"),
+				tuple(5L, "Purchase price must be a number: ten"),
+				tuple(6L, "Purchase price can have at most 2 decimal places: 1.005"),
+				tuple(7L, "Purchase price is too large: 1" + "0".repeat(36)),
+				tuple(8L, "Unknown category: Import Nowhere"));
+		assertThat(jdbcTemplate.queryForList(
+				"SELECT name FROM product WHERE category_id = ? ORDER BY id", String.class, categoryIds.get(0)))
+				.containsExactly("Good Lentils", "Largest Price");
+		assertThat(jdbcTemplate.queryForObject(
+				"SELECT selling_price FROM product WHERE name = 'Largest Price'", BigDecimal.class))
+				.isEqualTo(new BigDecimal("1.50"));
+	}
+
+	@Test
+	void failedChunkIsReportedWithoutUndoingTheOthers() {
+		Integer doomedCategoryId = createCategory("Import Doomed");
+		StringBuilder csv = new StringBuilder(HEADER);
+		for (int i = 1; i <= CHUNK_SIZE; i++) {
+			csv.append("Doomed Oil ").append(i).append(",1,100,120,Import Doomed\n");
+		}
+		csv.append("Surviving Oil,1,100,120,").append(CATEGORY).append('\n');
+		// The category is known when the import starts and gone by the time its chunk is inserted
+		AtomicBoolean deleted = new AtomicBoolean();
+		InputStream upload = new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)) {
+			@Override
+			public synchronized int read(byte[] buffer, int offset, int length) {
+				if (!deleted.getAndSet(true)) {
+					categoryService.deleteCategory(doomedCategoryId);
+				}
+				return super.read(buffer, offset, length);
+			}
+		};
+
+		ImportReport report = productImportService.importProducts(upload);
+
+		assertThat(report.getImported()).isEqualTo(1);
+		assertThat(report.getFailed()).isEqualTo(CHUNK_SIZE);
+		assertThat(report.getErrors()).hasSize(CHUNK_SIZE)
+				.allSatisfy(error -> assertThat(error.getMessage()).startsWith("Could not be saved: "))
+				.extracting(RowError::getRow)
+				.startsWith(2L)
+				.endsWith((long) CHUNK_SIZE + 1);
+		assertThat(importedIds()).hasSize(1);
+		// The rolled back chunk never reaches the search index
+		assertThat(productService.searchProducts("Doomed Oil", null, PageRequest.of(0, 1)).getItems()).isEmpty();
+		assertThat(productService.searchProducts("Surviving Oil", null, PageRequest.of(0, 1)).getItems())
+				.extracting(ProductDTO::getName)
+				.containsExactly("Surviving Oil");
+	}
+
+	private Integer createCategory(String title) {
+		CategoryDTO category = new CategoryDTO();
+		category.setTitle(title);
+		Integer categoryId = categoryService.createCategory(category).getId();
+		categoryIds.add(categoryId);
+		return categoryId;
+	}
+
+	private List<Integer> importedIds() {
+		return jdbcTemplate.queryForList("SELECT id FROM product WHERE category_id = ? ORDER BY id", Integer.class, categoryIds.get(0));
+	}
+
+	private static InputStream stream(CharSequence csv) {
+		return new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,161 @@
+package com.khata.product;
+
+import com.khata.product.dto.ProductDTO;
+import com.khata.product.dto.StockMovementDTO;
+import com.khata.product.entity.Product;
+import com.khata.product.entity.StockMovement;
+import com.khata.product.repositories.ProductRepo;
+import com.khata.product.repositories.StockMovementRepo;
+import com.khata.product.service.ProductService;
+import com.khata.support.EmbeddedPostgresTest;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the throughput and latency of the conditional stock update with a locked read-modify-write, on
+ * embedded Postgres, with every till adjusting the same product.
+ * <p>
+ * Not part of {@code mvn test}, since its timings mean little on a shared build machine. Run it with
+ * {@code mvn test -Dtest=StockAdjustmentBenchmark}; the results are logged.
+ */
+@Slf4j
+class StockAdjustmentBenchmark extends EmbeddedPostgresTest {
+
+	private static final int TILLS = 16;
+	private static final int MOVEMENTS_PER_TILL = 200;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private ProductRepo productRepo;
+
+	@Autowired
+	private StockMovementRepo stockMovementRepo;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final List<Integer> productIds = new ArrayList<>();
+
+	@AfterEach
+	void deleteProducts() {
+		productIds.forEach(productService::deleteProduct);
+		productIds.clear();
+	}
+
+	@Test
+	void conditionalUpdateAgainstLockedReadModifyWrite() throws Exception {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		IntConsumer conditional = productId -> productService.adjustStock(productId, movement(1));
+		// What updateProduct would need to stop losing units: lock the row, change it and record the movement
+		IntConsumer locked = productId -> transactionTemplate.executeWithoutResult(status -> {
+			Product product = entityManager.find(Product.class, productId, LockModeType.PESSIMISTIC_WRITE);
+			product.setQuantity(product.getQuantity() + 1);
+			StockMovement movement = new StockMovement();
+			movement.setProductId(productId);
+			movement.setQuantityChange(1);
+			movement.setQuantityAfter(product.getQuantity());
+			movement.setCreatedAt(LocalDateTime.now());
+			stockMovementRepo.save(movement);
+		});
+
+		// Warm both paths up first, so neither is measured while still being compiled
+		runTills(conditional);
+		runTills(locked);
+
+		Result conditionalUpdate = runTills(conditional);
+		Result lockedUpdate = runTills(locked);
+
+		log.info("{} tills x {} movements of one product", TILLS, MOVEMENTS_PER_TILL);
+		log.info("conditional update:       {}", conditionalUpdate);
+		log.info("locked read-modify-write: {}", lockedUpdate);
+	}
+
+	// Runs the movements on a fresh product and checks that none of them was lost
+	private Result runTills(IntConsumer adjust) throws Exception {
+		int productId = createProduct();
+		ExecutorService executor = Executors.newFixedThreadPool(TILLS);
+		long[] latencies = new long[TILLS * MOVEMENTS_PER_TILL];
+		long elapsed;
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<?>> tills = new ArrayList<>();
+			for (int till = 0; till < TILLS; till++) {
+				int offset = till * MOVEMENTS_PER_TILL;
+				tills.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < MOVEMENTS_PER_TILL; i++) {
+						long begin = System.nanoTime();
+						adjust.accept(productId);
+						latencies[offset + i] = System.nanoTime() - begin;
+					}
+					return null;
+				}));
+			}
+			long begin = System.nanoTime();
+			start.countDown();
+			for (Future<?> till : tills) {
+				till.get(5, TimeUnit.MINUTES);
+			}
+			elapsed = System.nanoTime() - begin;
+		} finally {
+			executor.shutdown();
+		}
+		assertThat(productRepo.findById(productId).map(Product::getQuantity)).contains(latencies.length);
+		Arrays.sort(latencies);
+		return new Result(latencies.length * 1e9 / elapsed, millis(latencies[latencies.length / 2]),
+				millis(latencies[latencies.length * 99 / 100]));
+	}
+
+	private int createProduct() {
+		ProductDTO product = new ProductDTO();
+		product.setName("Stock benchmark");
+		product.setQuantity(0);
+		product.setPurchasePrice(10.0);
+		product.setSellingPrice(12.0);
+		Integer productId = productService.createProduct(product).getId();
+		productIds.add(productId);
+		return productId;
+	}
+
+	private static StockMovementDTO movement(int quantityChange) {
+		StockMovementDTO movement = new StockMovementDTO();
+		movement.setQuantityChange(quantityChange);
+		return movement;
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1e6;
+	}
+
+	private record Result(double movementsPerSecond, double p50Millis, double p99Millis) {
+
+		@Override
+		public String toString() {
+			return String.format("%.0f movements/s, p50 %.1f ms, p99 %.1f ms", movementsPerSecond, p50Millis, p99Millis);
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package com.khata.product;
+
+import com.khata.exceptions.ApiException;
+import com.khata.product.dto.ProductDTO;
+import com.khata.product.dto.StockMovementDTO;
+import com.khata.product.entity.Product;
+import com.khata.product.entity.StockMovement;
+import com.khata.product.repositories.ProductRepo;
+import com.khata.product.repositories.StockMovementRepo;
+import com.khata.product.service.ProductService;
+import com.khata.support.EmbeddedPostgresTest;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StockAdjustmentConcurrencyTest extends EmbeddedPostgresTest {
+
+	private static final int THREADS = 16;
+	private static final int MOVEMENTS_PER_THREAD = 200;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private ProductRepo productRepo;
+
+	@Autowired
+	private StockMovementRepo stockMovementRepo;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final List<Integer> productIds = new ArrayList<>();
+
+	@AfterEach
+	void deleteProducts() {
+		productIds.forEach(productService::deleteProduct);
+	}
+
+	@Test
+	void concurrentMovementsLoseNoUnits() throws Exception {
+		Integer productId = createProduct(0);
+
+		// Each thread receives 2 units and sells 1, MOVEMENTS_PER_THREAD times
+		runConcurrently(() -> {
+			productService.adjustStock(productId, movement(2));
+			productService.adjustStock(productId, movement(-1));
+		});
+
+		assertThat(quantityOf(productId)).isEqualTo(THREADS * MOVEMENTS_PER_THREAD);
+		assertThat(movementCount(productId)).isEqualTo(2L * THREADS * MOVEMENTS_PER_THREAD);
+	}
+
+	@Test
+	void neverSellsMoreThanTheStock() throws Exception {
+		int stock = THREADS * MOVEMENTS_PER_THREAD / 4;
+		Integer productId = createProduct(stock);
+		AtomicInteger sold = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+
+		runConcurrently(() -> {
+			try {
+				productService.adjustStock(productId, movement(-1));
+				sold.incrementAndGet();
+			} catch (ApiException ex) {
+				rejected.incrementAndGet();
+			}
+		});
+
+		assertThat(sold.get()).isEqualTo(stock);
+		assertThat(rejected.get()).isEqualTo(THREADS * MOVEMENTS_PER_THREAD - stock);
+		assertThat(quantityOf(productId)).isEqualTo(0);
+		assertThat(movementCount(productId)).isEqualTo(stock);
+	}
+
+	@Test
+	void conditionalUpdateCountsLikeLockedReadModifyWrite() throws Exception {
+		Integer conditionalProductId = createProduct(0);
+		Integer lockedProductId = createProduct(0);
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+		Runnable conditional = () -> productService.adjustStock(conditionalProductId, movement(1));
+		// What updateProduct would need to stop losing units: lock the row, change it and record the movement
+		Runnable locked = () -> transactionTemplate.executeWithoutResult(status -> {
+			Product product = entityManager.find(Product.class, lockedProductId, LockModeType.PESSIMISTIC_WRITE);
+			product.setQuantity(product.getQuantity() + 1);
+			StockMovement movement = new StockMovement();
+			movement.setProductId(lockedProductId);
+			movement.setQuantityChange(1);
+			movement.setQuantityAfter(product.getQuantity());
+			movement.setCreatedAt(LocalDateTime.now());
+			stockMovementRepo.save(movement);
+		});
+		runConcurrently(conditional);
+		runConcurrently(locked);
+
+		int movements = THREADS * MOVEMENTS_PER_THREAD;
+		assertThat(quantityOf(conditionalProductId)).isEqualTo(movements);
+		assertThat(quantityOf(lockedProductId)).isEqualTo(movements);
+		assertThat(movementCount(conditionalProductId)).isEqualTo(movementCount(lockedProductId));
+	}
+
+	private Integer createProduct(int quantity) {
+		ProductDTO product = new ProductDTO();
+		product.setName("Stock test");
+		product.setQuantity(quantity);
+		product.setPurchasePrice(10.0);
+		product.setSellingPrice(12.0);
+		Integer productId = productService.createProduct(product).getId();
+		productIds.add(productId);
+		return productId;
+	}
+
+	private Integer quantityOf(Integer productId) {
+		return productRepo.findById(productId).map(Product::getQuantity).orElseThrow();
+	}
+
+	private long movementCount(Integer productId) {
+		return stockMovementRepo.findByProductIdOrderByIdDesc(productId, PageRequest.of(0, 1)).getTotalElements();
+	}
+
+	private static StockMovementDTO movement(int quantityChange) {
+		StockMovementDTO movement = new StockMovementDTO();
+		movement.setQuantityChange(quantityChange);
+		return movement;
+	}
+
+	// Runs the task MOVEMENTS_PER_THREAD times on each of THREADS threads, all starting together
+	private static void runConcurrently(Runnable task) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int j = 0; j < MOVEMENTS_PER_THREAD; j++) {
+						task.run();
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(1, TimeUnit.MINUTES);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,157 @@
+package com.khata.serving;
+
+import com.khata.auth.entity.User;
+import com.khata.auth.repositories.UserRepo;
+import com.khata.auth.service.JwtTokenService;
+import com.khata.party.dto.PartyDTO;
+import com.khata.party.entity.enums.PartyType;
+import com.khata.party.service.PartyService;
+import com.khata.support.EmbeddedPostgresTest;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures throughput and latency of authenticated, database-backed reads over HTTP in one serving mode.
+ * The subclasses run it with platform and with virtual request threads.
+ * <p>
+ * Not part of {@code mvn test}, since its timings mean little on a shared build machine. Run both modes with
+ * {@code mvn test -Dtest='*ThreadServingBenchmark'}; the results are logged.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+// Per-request debug logging would dominate the timings
+@TestPropertySource(properties = {"logging.level.org.springframework.security=INFO", "logging.level.com.khata=INFO"})
+@Slf4j
+abstract class ServingModeBenchmark extends EmbeddedPostgresTest {
+
+	// Below and well above Tomcat's default of 200 platform request threads
+	private static final int[] CLIENTS = {50, 400};
+	private static final int REQUESTS_PER_CLIENT = 100;
+	private static final String EMAIL = "serving-mode@khata.test";
+
+	@LocalServerPort
+	private int port;
+
+	@Value("${spring.threads.virtual.enabled}")
+	private boolean virtualThreads;
+
+	@Autowired
+	private PartyService partyService;
+
+	@Autowired
+	private UserRepo userRepo;
+
+	@Autowired
+	private JwtTokenService jwtTokenService;
+
+	private final HttpClient httpClient = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+
+	private Integer partyId;
+	private String token;
+
+	@BeforeEach
+	void createParty() {
+		PartyDTO party = new PartyDTO();
+		party.setName("Serving Mode");
+		party.setEmail(EMAIL);
+		party.setPhoneNumber("9800000302");
+		party.setAddress("Serving Street 1");
+		party.setPartyBusinessName("Serving Traders");
+		party.setPartyType(PartyType.CUSTOMER);
+		partyId = partyService.createParty(party).getId();
+
+		User user = new User();
+		user.setFullName("Serving Mode");
+		user.setEmail(EMAIL);
+		user.setPassword("unused");
+		user.setVerified(true);
+		token = jwtTokenService.generateToken(userRepo.save(user));
+	}
+
+	@AfterEach
+	void deletePartyAndUser() {
+		partyService.deleteParty(partyId);
+		userRepo.findByEmail(EMAIL).ifPresent(userRepo::delete);
+	}
+
+	@Test
+	void partyReads() throws Exception {
+		// Warms the server up first, so neither load is measured while still being compiled
+		run(CLIENTS[CLIENTS.length - 1]);
+
+		for (int clients : CLIENTS) {
+			log.info("{} threads, {} clients: {}", virtualThreads ? "virtual" : "platform", clients, run(clients));
+		}
+	}
+
+	private Result run(int clients) throws Exception {
+		long[] latencies = new long[clients * REQUESTS_PER_CLIENT];
+		AtomicInteger errors = new AtomicInteger();
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/party/" + partyId))
+				.header("Authorization", "Bearer " + token)
+				.build();
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<?>> futures = new ArrayList<>();
+			for (int client = 0; client < clients; client++) {
+				int offset = client * REQUESTS_PER_CLIENT;
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+						long begin = System.nanoTime();
+						HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+						latencies[offset + i] = System.nanoTime() - begin;
+						if (response.statusCode() != 200) {
+							errors.incrementAndGet();
+						}
+					}
+					return null;
+				}));
+			}
+			long begin = System.nanoTime();
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get();
+			}
+			long elapsed = System.nanoTime() - begin;
+			Arrays.sort(latencies);
+			Result result = new Result(latencies.length * 1e9 / elapsed, millis(latencies[latencies.length / 2]),
+					millis(latencies[latencies.length * 99 / 100]), errors.get());
+			assertThat(result.errors()).isZero();
+			return result;
+		}
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1e6;
+	}
+
+	private record Result(double requestsPerSecond, double p50Millis, double p99Millis, int errors) {
+
+		@Override
+		public String toString() {
+			return String.format("%.0f requests/s, p50 %.1f ms, p99 %.1f ms, %d errors", requestsPerSecond, p50Millis, p99Millis, errors);
+		}
+	}
+}
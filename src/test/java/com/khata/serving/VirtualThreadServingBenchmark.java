@@ -0,0 +1,7 @@
+package com.khata.serving;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadServingBenchmark extends ServingModeBenchmark {
+}
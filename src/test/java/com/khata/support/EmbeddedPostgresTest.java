@@ -0,0 +1,84 @@
+package com.khata.support;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Base class for tests that need the real database.
+ * <p>
+ * Starts one throwaway Postgres server per test JVM and points the application at it, so these tests
+ * never touch the database configured in {@code application.properties}. The schema is created by
+ * Hibernate on startup. Tests still delete what they create, since the server and the Spring context are
+ * shared by every test class. Postgres refuses to run as root, so run these tests as a regular user.
+ */
+@SpringBootTest
+@Import(SqlStatementCounter.class)
+public abstract class EmbeddedPostgresTest {
+
+	private static final EmbeddedPostgres POSTGRES = start();
+	private static final Path KEY_RING = temporaryKeyRing();
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@DynamicPropertySource
+	static void databaseProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+		registry.add("spring.datasource.username", () -> "postgres");
+		registry.add("spring.datasource.password", () -> "postgres");
+		registry.add("spring.jpa.show-sql", () -> "false");
+		registry.add("jwt.keyring.path", KEY_RING::toString);
+	}
+
+	/**
+	 * Runs the action in a transaction and returns the number of entities it left in the persistence context,
+	 * i.e. how many managed entities it loaded or created.
+	 */
+	protected int entitiesLoadedBy(Runnable action) {
+		Integer loaded = new TransactionTemplate(transactionManager).execute(status -> {
+			action.run();
+			return entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+		});
+		return loaded;
+	}
+
+	private static EmbeddedPostgres start() {
+		try {
+			EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					postgres.close();
+				} catch (IOException ignored) {
+					// The data directory is temporary and removed by the library either way
+				}
+			}));
+			return postgres;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to start embedded Postgres", e);
+		}
+	}
+
+	private static Path temporaryKeyRing() {
+		try {
+			return Files.createTempDirectory("khata-test").resolve("jwt-keyring.properties");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package com.khata.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Records every statement the application sends to the database from the current thread.
+ * <p>
+ * Wraps the application's {@link DataSource}, so statements issued through Hibernate and through
+ * {@code JdbcTemplate} are both seen. Each execute call, including a whole JDBC batch, is recorded once,
+ * which makes the recorded list the number of round trips. Only the thread that called
+ * {@link #statementsOf(Runnable)} or {@link #record(Supplier)} is recorded, so background jobs polling the database do not skew the counts.
+ */
+public class SqlStatementCounter implements BeanPostProcessor {
+
+	private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+	/**
+	 * Runs the action and returns the SQL of every statement it executed on this thread, in order.
+	 */
+	public static List<String> statementsOf(Runnable action) {
+		return record(() -> {
+			action.run();
+			return null;
+		}).statements();
+	}
+
+	/**
+	 * Runs the action and returns its result together with the statements it executed on this thread.
+	 */
+	public static <T> Recorded<T> record(Supplier<T> action) {
+		List<String> statements = new ArrayList<>();
+		RECORDED.set(statements);
+		try {
+			T result = action.get();
+			return new Recorded<>(result, List.copyOf(statements));
+		} finally {
+			RECORDED.remove();
+		}
+	}
+
+	/**
+	 * Counts the statements that read from the given table.
+	 */
+	public static long selectsFrom(List<String> statements, String table) {
+		String from = " from " + table.toLowerCase(Locale.ROOT) + " ";
+		return statements.stream()
+				.map(sql -> sql.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ") + " ")
+				.filter(sql -> sql.startsWith("select") && sql.contains(from))
+				.count();
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (bean instanceof DataSource dataSource && !(bean instanceof RecordingDataSource)) {
+			return new RecordingDataSource(dataSource);
+		}
+		return bean;
+	}
+
+	public record Recorded<T>(T result, List<String> statements) {
+	}
+
+	private static void recordStatement(String sql) {
+		List<String> statements = RECORDED.get();
+		if (statements != null) {
+			statements.add(sql);
+		}
+	}
+
+	private static final class RecordingDataSource extends DelegatingDataSource {
+
+		RecordingDataSource(DataSource target) {
+			super(target);
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			Connection connection = super.getConnection();
+			return wrap(Connection.class, new ConnectionHandler(connection));
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) throws SQLException {
+			Connection connection = super.getConnection(username, password);
+			return wrap(Connection.class, new ConnectionHandler(connection));
+		}
+	}
+
+	private record ConnectionHandler(Connection target) implements InvocationHandler {
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object result = invokeTarget(target, method, args);
+			if (result instanceof Statement statement && method.getReturnType().isInterface()) {
+				String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+				return wrap(method.getReturnType(), new StatementHandler(statement, sql));
+			}
+			return result;
+		}
+	}
+
+	private record StatementHandler(Statement target, String preparedSql) implements InvocationHandler {
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (method.getName().startsWith("execute")) {
+				boolean hasSql = args != null && args.length > 0 && args[0] instanceof String;
+				// A plain statement's batch has no single SQL text, so it is recorded by method name
+				recordStatement(hasSql ? (String) args[0] : Objects.requireNonNullElse(preparedSql, method.getName()));
+			}
+			return invokeTarget(target, method, args);
+		}
+	}
+
+	private static <T> T wrap(Class<?> type, InvocationHandler handler) {
+		@SuppressWarnings("unchecked")
+		T proxy = (T) Proxy.newProxyInstance(SqlStatementCounter.class.getClassLoader(), new Class<?>[]{type}, handler);
+		return proxy;
+	}
+
+	private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package com.khata.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+	private static final int KEYS = 10_000;
+
+	private final BloomFilter filter = new BloomFilter(KEYS, 0.01);
+
+	@Test
+	void addedKeysAreAlwaysFound() {
+		for (int i = 0; i < KEYS; i++) {
+			filter.put("user:" + i + "@khata.test");
+		}
+
+		for (int i = 0; i < KEYS; i++) {
+			assertThat(filter.mightContain("user:" + i + "@khata.test")).isTrue();
+		}
+	}
+
+	@Test
+	void falsePositiveRateStaysNearTheConfiguredRate() {
+		for (int i = 0; i < KEYS; i++) {
+			filter.put("revoked-" + i);
+		}
+
+		int falsePositives = 0;
+		for (int i = 0; i < KEYS; i++) {
+			if (filter.mightContain("active-" + i)) {
+				falsePositives++;
+			}
+		}
+		// 1% expected, with room for the spread of a 10,000 key sample
+		assertThat(falsePositives).isLessThan(KEYS * 2 / 100);
+	}
+
+	@Test
+	void emptyFilterContainsNothing() {
+		assertThat(filter.mightContain("user:anyone@khata.test")).isFalse();
+	}
+}
@@ -0,0 +1,75 @@
+package com.khata.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvReaderTest {
+
+	@Test
+	void readsRecordsEndingWithAnyLineBreak() throws IOException {
+		CsvReader reader = new CsvReader(new StringReader("name,quantity\nRice,5\r\nDal,3\rSugar,1"));
+
+		assertThat(reader.next()).containsExactly("name", "quantity");
+		assertThat(reader.next()).containsExactly("Rice", "5");
+		assertThat(reader.next()).containsExactly("Dal", "3");
+		assertThat(reader.next()).containsExactly("Sugar", "1");
+		assertThat(reader.next()).isNull();
+		assertThat(reader.getRecordNumber()).isEqualTo(4);
+	}
+
+	@Test
+	void quotedFieldsKeepCommasLineBreaksAndQuotes() throws IOException {
+		CsvReader reader = new CsvReader(new StringReader("\"Rice, basmati\",\"5 kg\nbag\",\"the \"\"best\"\"\"\n"));
+
+		assertThat(reader.next()).containsExactly("Rice, basmati", "5 kg\nbag", "the \"best\"");
+		assertThat(reader.next()).isNull();
+	}
+
+	@Test
+	void keepsEmptyFields() throws IOException {
+		CsvReader reader = new CsvReader(new StringReader(",Rice,,\n\n"));
+
+		assertThat(reader.next()).containsExactly("", "Rice", "", "");
+		assertThat(reader.next()).containsExactly("");
+		assertThat(reader.next()).isNull();
+	}
+
+	@Test
+	void rejectsUnterminatedQuotedField() throws IOException {
+		CsvReader reader = new CsvReader(new StringReader("Rice,5\n\"Dal,3\n"));
+
+		reader.next();
+		assertThatThrownBy(reader::next)
+				.isInstanceOf(IOException.class)
+				.hasMessageContaining("record 2");
+	}
+
+	@Test
+	void headerMatchesColumnsIgnoringCaseSpacesUnderscoresAndByteOrderMark() throws IOException {
+		CsvReader reader = new CsvReader(new StringReader("\uFEFFName, Purchase Price,selling_price,name\n"));
+
+		CsvReader.Header header = reader.readHeader();
+
+		assertThat(header.indexOf("name")).isEqualTo(0);
+		assertThat(header.indexOf("purchasePrice")).isEqualTo(1);
+		assertThat(header.indexOf("sellingPrice")).isEqualTo(2);
+		assertThat(header.indexOf("category")).isEqualTo(-1);
+		assertThat(reader.readHeader()).isNull();
+	}
+
+	@Test
+	void fieldIsTrimmedAndEmptyWhenMissing() {
+		String[] record = {" Rice ", "5"};
+
+		assertThat(CsvReader.field(record, 0)).isEqualTo("Rice");
+		assertThat(CsvReader.field(record, 2)).isEmpty();
+		assertThat(CsvReader.field(record, -1)).isEmpty();
+		assertThat(CsvReader.isBlank(new String[]{"", "  "})).isTrue();
+		assertThat(CsvReader.isBlank(record)).isFalse();
+	}
+}
@@ -0,0 +1,76 @@
+package com.khata.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExpiringCacheTest {
+
+	private final ExpiringCache<Integer, String> cache = new ExpiringCache<>(100, 60_000);
+
+	@Test
+	void loadsOnMissAndServesHitsFromCache() {
+		AtomicInteger loads = new AtomicInteger();
+
+		assertThat(cache.get(1, id -> "rice-" + loads.incrementAndGet())).isEqualTo("rice-1");
+		assertThat(cache.get(1, id -> "rice-" + loads.incrementAndGet())).isEqualTo("rice-1");
+
+		assertThat(loads).hasValue(1);
+		assertThat(cache.getHitCount()).isEqualTo(1);
+		assertThat(cache.getMissCount()).isEqualTo(1);
+		assertThat(cache.getLoadCount()).isEqualTo(1);
+	}
+
+	@Test
+	void readAfterInvalidationSeesTheWrite() {
+		String[] row = {"rice"};
+		cache.get(1, id -> row[0]);
+
+		row[0] = "basmati rice";
+		cache.invalidate(1);
+
+		assertThat(cache.get(1, id -> row[0])).isEqualTo("basmati rice");
+	}
+
+	@Test
+	void valueLoadedDuringInvalidationIsNotKept() {
+		String[] row = {"rice"};
+
+		// The write commits and invalidates while the read is still holding the old row
+		String loaded = cache.get(1, id -> {
+			String old = row[0];
+			row[0] = "basmati rice";
+			cache.invalidate(1);
+			return old;
+		});
+
+		assertThat(loaded).isEqualTo("rice");
+		assertThat(cache.get(1, id -> row[0])).isEqualTo("basmati rice");
+	}
+
+	@Test
+	void failedAndNullLoadsAreNotCached() {
+		assertThat(cache.get(1, id -> null)).isNull();
+		assertThat(cache.size()).isZero();
+
+		assertThatThrownBy(() -> cache.get(2, id -> {
+			throw new IllegalStateException("not found");
+		})).isInstanceOf(IllegalStateException.class);
+		assertThat(cache.size()).isZero();
+		assertThat(cache.getLoadCount()).isEqualTo(2);
+	}
+
+	@Test
+	void sizeStaysBounded() {
+		ExpiringCache<Integer, String> small = new ExpiringCache<>(16, 60_000);
+		for (int i = 0; i < 1_000; i++) {
+			small.get(i, id -> "product-" + id);
+		}
+
+		assertThat(small.size()).isLessThanOrEqualTo(16);
+		assertThat(small.getEvictionCount()).isGreaterThan(0);
+	}
+}
@@ -0,0 +1,100 @@
+package com.khata.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures ranked search over a million synthetic parties, against a scan of every party for the keyword, which is
+ * what {@code lower(name) LIKE '%keyword%'} with an exact count costs before any I/O.
+ * <p>
+ * Names are drawn from small pools, so a short prefix matches a large share of the parties, the worst case for the
+ * index. Not part of {@code mvn test}, since its timings mean little on a shared build machine. Run it with
+ * {@code mvn test -Dtest=NgramIndexBenchmark}; the results are logged.
+ */
+@Slf4j
+class NgramIndexBenchmark {
+
+	private static final int PARTIES = 1_000_000;
+	private static final int RUNS = 30;
+	private static final int PAGE_SIZE = 20;
+
+	private static final String[] FIRST_NAMES = {"Ram", "Ramesh", "Sita", "Hari", "Gita", "Krishna", "Sundar", "Bishnu",
+			"Laxmi", "Suresh", "Anita", "Binod", "Kamala", "Dipak", "Sarita", "Rajesh", "Sunita", "Prakash", "Mina", "Arjun",
+			"Nabin", "Pooja", "Santosh", "Rekha", "Bikash", "Asha", "Manoj", "Radha", "Dinesh", "Shanti"};
+	private static final String[] SURNAMES = {"Shrestha", "Tamang", "Gurung", "Magar", "Rai", "Limbu", "Thapa", "Karki",
+			"Adhikari", "Poudel", "Sharma", "Basnet", "Khadka", "Bhandari", "Lama", "Maharjan", "Bajracharya", "Joshi",
+			"Pandey", "Koirala"};
+	private static final String[] TRADES = {"Traders", "Stores", "Suppliers", "Enterprises", "Kirana", "Pasal", "Hardware",
+			"Textiles", "Pharmacy", "Electronics"};
+	private static final List<String> QUERIES = List.of("r", "ra", "ram", "rame", "ramesh", "ramesh shr", "shrestha",
+			"sresthta", "kirana pasal", "98412");
+
+	@Test
+	void rankedSearchAgainstScanningEveryParty() {
+		NgramIndex<String> index = new NgramIndex<>();
+		String[] texts = new String[PARTIES];
+		Random random = new Random(42);
+		long begin = System.nanoTime();
+		for (int id = 1; id <= PARTIES; id++) {
+			String name = pick(random, FIRST_NAMES) + " " + pick(random, SURNAMES);
+			String business = pick(random, SURNAMES) + " " + pick(random, TRADES);
+			String phone = "98" + (10_000_000 + random.nextInt(90_000_000));
+			String email = name.toLowerCase(Locale.ROOT).replace(' ', '.') + id + "@khata.test";
+			index.put(id, name, name, business, phone, email);
+			texts[id - 1] = String.join(" ", name, business, phone, email).toLowerCase(Locale.ROOT);
+		}
+		log.info("{} parties indexed in {} ms", PARTIES, (System.nanoTime() - begin) / 1_000_000);
+
+		for (String query : QUERIES) {
+			// Warm both paths up first, so neither is measured while still being compiled
+			search(index, query);
+			scan(texts, query);
+
+			long[] searchNanos = new long[RUNS];
+			long[] scanNanos = new long[RUNS];
+			int matches = 0;
+			for (int run = 0; run < RUNS; run++) {
+				long start = System.nanoTime();
+				matches = search(index, query);
+				searchNanos[run] = System.nanoTime() - start;
+				start = System.nanoTime();
+				scan(texts, query);
+				scanNanos[run] = System.nanoTime() - start;
+			}
+			log.info("{}: {} matches, index {}, scan {}", String.format("%-12s", '"' + query + '"'), matches,
+					percentiles(searchNanos), percentiles(scanNanos));
+			assertThat(matches).isPositive();
+		}
+	}
+
+	private static int search(NgramIndex<String> index, String query) {
+		NgramIndex.Result<String> result = index.search(query, 0, PAGE_SIZE);
+		return result.total();
+	}
+
+	private static int scan(String[] texts, String query) {
+		int matches = 0;
+		for (String text : texts) {
+			if (text.contains(query)) {
+				matches++;
+			}
+		}
+		return matches;
+	}
+
+	private static String pick(Random random, String[] pool) {
+		return pool[random.nextInt(pool.length)];
+	}
+
+	private static String percentiles(long[] nanos) {
+		Arrays.sort(nanos);
+		return String.format("p50 %.1f ms, p99 %.1f ms", nanos[nanos.length / 2] / 1e6, nanos[nanos.length * 99 / 100] / 1e6);
+	}
+}
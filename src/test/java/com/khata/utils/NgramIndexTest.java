@@ -0,0 +1,106 @@
+package com.khata.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NgramIndexTest {
+
+	private final NgramIndex<String> index = new NgramIndex<>();
+
+	@Test
+	void matchesPrefixOfAnyWord() {
+		index.put(1, "sundar", "Sundar Tamang", "Tamang Traders");
+		index.put(2, "hari", "Hari Lamichhane", "Hari Stores");
+
+		assertThat(ids(index.search("tam", 0, 10))).containsExactly(1);
+		assertThat(ids(index.search("HAR", 0, 10))).containsExactly(2);
+	}
+
+	@Test
+	void toleratesTypos() {
+		index.put(1, "sundar", "Sundar Tamang");
+		index.put(2, "sita", "Sita Rai");
+
+		assertThat(ids(index.search("sunadr", 0, 10))).containsExactly(1);
+	}
+
+	@Test
+	void ranksWholeWordMatchesFirst() {
+		index.put(1, "ramesh", "Ramesh Shrestha");
+		index.put(2, "ram", "Ram Shrestha");
+
+		assertThat(ids(index.search("ram", 0, 10))).containsExactly(2, 1);
+	}
+
+	@Test
+	void laterWholeWordMatchDisplacesAFullPageOfPrefixMatches() {
+		for (int id = 1; id <= 30; id++) {
+			index.put(id, "ramesh" + id, "Ramesh Shrestha", "Ramesh Traders");
+		}
+		index.put(31, "ram", "Ram Shrestha");
+		index.put(32, "sundar", "Sundar Tamang", "Ramyata Stores");
+
+		NgramIndex.Result<String> page = index.search("ram", 0, 5);
+
+		assertThat(page.total()).isEqualTo(32);
+		assertThat(ids(page)).containsExactly(31, 1, 2, 3, 4);
+	}
+
+	@Test
+	void pagesThroughRankedMatchesAndReportsTotal() {
+		for (int id = 1; id <= 25; id++) {
+			index.put(id, "party" + id, "Kathmandu Traders " + id);
+		}
+
+		NgramIndex.Result<String> page = index.search("kathmandu", 20, 10);
+
+		assertThat(page.total()).isEqualTo(25);
+		assertThat(page.matches()).hasSize(5);
+	}
+
+	@Test
+	void countsFacetsBeforeApplyingFilter() {
+		NgramIndex<Integer> byCategory = new NgramIndex<>();
+		byCategory.put(1, 10, "Basmati Rice 5kg");
+		byCategory.put(2, 10, "Jeera Rice 1kg");
+		byCategory.put(3, 20, "Rice Cooker");
+
+		NgramIndex.Result<Integer> result = byCategory.search("rice", 0, 10, category -> category == 20, category -> category);
+
+		assertThat(result.matches()).extracting(NgramIndex.Match::id).containsExactly(3);
+		assertThat(result.total()).isEqualTo(1);
+		assertThat(result.facets()).containsEntry(10, 2).containsEntry(20, 1);
+	}
+
+	@Test
+	void replacesAndRemovesDocuments() {
+		index.put(1, "old", "Gurung Suppliers");
+		index.put(1, "new", "Magar Suppliers");
+
+		assertThat(index.search("gurung", 0, 10).total()).isZero();
+		assertThat(ids(index.search("magar", 0, 10))).containsExactly(1);
+
+		index.remove(1);
+
+		assertThat(index.search("suppliers", 0, 10).total()).isZero();
+		assertThat(index.size()).isZero();
+	}
+
+	@Test
+	void replacingAValueKeepsTheDocumentSearchable() {
+		index.put(1, "before", "Gurung Suppliers");
+
+		index.replaceValue(1, "after");
+		index.replaceValue(2, "absent");
+
+		assertThat(index.search("gurung", 0, 10).matches()).extracting(NgramIndex.Match::value).containsExactly("after");
+		assertThat(index.size()).isEqualTo(1);
+	}
+
+	private static List<Integer> ids(NgramIndex.Result<String> result) {
+		return result.matches().stream().map(NgramIndex.Match::id).toList();
+	}
+}
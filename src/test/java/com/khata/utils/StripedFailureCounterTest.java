@@ -0,0 +1,99 @@
+package com.khata.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StripedFailureCounterTest {
+
+	private final AtomicLong now = new AtomicLong(1_000_000);
+	private final StripedFailureCounter counter = new StripedFailureCounter(10, 3, 2, 60, 300, now::get);
+
+	@Test
+	void allowsAttemptsBelowThreshold() {
+		counter.recordFailure("a@khata.com");
+		counter.recordFailure("a@khata.com");
+
+		assertThat(counter.retryAfterSeconds("a@khata.com")).isZero();
+	}
+
+	@Test
+	void backoffDoublesWithEachFailureAndIsCapped() {
+		for (int i = 0; i < 3; i++) {
+			counter.recordFailure("a@khata.com");
+		}
+		assertThat(counter.retryAfterSeconds("a@khata.com")).isEqualTo(2);
+
+		counter.recordFailure("a@khata.com");
+		assertThat(counter.retryAfterSeconds("a@khata.com")).isEqualTo(4);
+
+		for (int i = 0; i < 10; i++) {
+			counter.recordFailure("a@khata.com");
+		}
+		assertThat(counter.retryAfterSeconds("a@khata.com")).isEqualTo(60);
+	}
+
+	@Test
+	void backoffElapsesWithTime() {
+		for (int i = 0; i < 3; i++) {
+			counter.recordFailure("a@khata.com");
+		}
+		now.addAndGet(2);
+
+		assertThat(counter.retryAfterSeconds("a@khata.com")).isZero();
+	}
+
+	@Test
+	void countsExpireAfterWindow() {
+		for (int i = 0; i < 5; i++) {
+			counter.recordFailure("a@khata.com");
+		}
+		now.addAndGet(301);
+		counter.recordFailure("a@khata.com");
+
+		assertThat(counter.retryAfterSeconds("a@khata.com")).isZero();
+	}
+
+	@Test
+	void countOutlivesTheMaximumBackoff() {
+		for (int i = 0; i < 10; i++) {
+			counter.recordFailure("a@khata.com");
+		}
+		assertThat(counter.retryAfterSeconds("a@khata.com")).isEqualTo(60);
+		now.addAndGet(61);
+		assertThat(counter.retryAfterSeconds("a@khata.com")).isZero();
+
+		// The next wrong guess goes straight back to the maximum backoff instead of starting over
+		counter.recordFailure("a@khata.com");
+
+		assertThat(counter.retryAfterSeconds("a@khata.com")).isEqualTo(60);
+	}
+
+	@Test
+	void windowMustBeLongerThanTheMaximumBackoff() {
+		assertThatThrownBy(() -> new StripedFailureCounter(10, 3, 2, 300, 300, now::get))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void resetClearsFailures() {
+		for (int i = 0; i < 5; i++) {
+			counter.recordFailure("a@khata.com");
+		}
+		counter.reset("a@khata.com");
+
+		assertThat(counter.retryAfterSeconds("a@khata.com")).isZero();
+	}
+
+	@Test
+	void keysAreTrackedIndependently() {
+		for (int i = 0; i < 5; i++) {
+			counter.recordFailure("a@khata.com");
+		}
+
+		assertThat(counter.retryAfterSeconds("b@khata.com")).isZero();
+	}
+}